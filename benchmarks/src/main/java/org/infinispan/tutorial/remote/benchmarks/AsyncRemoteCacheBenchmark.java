@@ -0,0 +1,127 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.tutorial.remote.concurrent.AsyncRemoteCache;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues batches of concurrent reads and waits for all of them, comparing
+ * {@link AsyncRemoteCache} reads on different executors, a fixed pool of
+ * threads, as used in {@code RemoteConcurrencyIT}, or one that does not cap
+ * the number of in-flight operations, with the client's native asynchronous
+ * reads, whose in-flight operations are capped by the client's fixed size
+ * async executor whatever the batch size. The {@code ops} counter gives
+ * operations per second.
+ *
+ * Virtual threads are left out of the default parameters, since they need a
+ * JVM supporting them; add {@code -p executorType=virtual} on such a JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncRemoteCacheBenchmark {
+
+   static final int NUM_THREADS = 10;
+   static final int NUM_KEYS = 1024;
+
+   @Param({"fixed", "cached"})
+   String executorType;
+
+   @Param({"10", "100", "1000"})
+   int inFlight;
+
+   LocalHotRodServer server;
+   ExecutorService executor;
+   RemoteCache<Integer, Integer> remoteCache;
+   AsyncRemoteCache<Integer, Integer> asyncCache;
+
+   @Setup
+   public void setup() {
+      server = new LocalHotRodServer();
+      executor = executor(executorType);
+      remoteCache = server.remoteCacheManager().getCache();
+      for (int i = 0; i < NUM_KEYS; i++)
+         remoteCache.put(i, i);
+
+      asyncCache = new AsyncRemoteCache<>(remoteCache, executor);
+   }
+
+   @TearDown
+   public void tearDown() {
+      executor.shutdown();
+      server.close();
+   }
+
+   @State(Scope.Thread)
+   @AuxCounters(AuxCounters.Type.EVENTS)
+   public static class Ops {
+      public long ops;
+
+      @Setup(Level.Iteration)
+      public void reset() {
+         ops = 0;
+      }
+   }
+
+   @Benchmark
+   public void getBatch(Ops ops) throws Exception {
+      // Blocking reads, each occupying an executor thread until it completes
+      Future<?>[] futures = new Future<?>[inFlight];
+      for (int i = 0; i < inFlight; i++)
+         futures[i] = asyncCache.get(i % NUM_KEYS);
+
+      await(futures, ops);
+   }
+
+   @Benchmark
+   public void nativeGetBatch(Ops ops) throws Exception {
+      // Native asynchronous reads, queued on the client's own async executor whatever the executor type
+      Future<?>[] futures = new Future<?>[inFlight];
+      for (int i = 0; i < inFlight; i++)
+         futures[i] = remoteCache.getAsync(i % NUM_KEYS);
+
+      await(futures, ops);
+   }
+
+   private void await(Future<?>[] futures, Ops ops) throws Exception {
+      for (Future<?> future : futures)
+         future.get();
+
+      ops.ops += futures.length;
+   }
+
+   static ExecutorService executor(String type) {
+      switch (type) {
+         case "fixed":
+            return Executors.newFixedThreadPool(NUM_THREADS);
+         case "cached":
+            return Executors.newCachedThreadPool();
+         case "virtual":
+            return AsyncRemoteCache.virtualThreadExecutor();
+         default:
+            throw new IllegalArgumentException("Unknown executor type: " + type);
+      }
+   }
+
+}
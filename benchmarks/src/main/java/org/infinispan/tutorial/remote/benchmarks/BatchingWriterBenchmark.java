@@ -0,0 +1,96 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.tutorial.remote.batch.BatchingWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares bulk loading entries one {@code put} at a time, as in
+ * {@code RemoteCompatibilityIT}, with loading them via {@link BatchingWriter}.
+ * Each invocation writes {@value #WRITES} entries and waits for all of them
+ * to be stored, so scores are writes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchingWriterBenchmark {
+
+   static final int WRITES = 1000;
+
+   @Param({"1024"})
+   int valueSize;
+
+   @Param({"50", "500"})
+   int batchSize;
+
+   LocalHotRodServer server;
+   ScheduledExecutorService scheduler;
+   RemoteCache<String, byte[]> remoteCache;
+   BatchingWriter<String, byte[]> writer;
+   String[] keys;
+   byte[] value;
+
+   @Setup
+   public void setup() {
+      server = new LocalHotRodServer();
+      scheduler = Executors.newSingleThreadScheduledExecutor();
+      remoteCache = server.remoteCacheManager().getCache();
+      writer = new BatchingWriter<>(remoteCache, batchSize, scheduler, 5, TimeUnit.MILLISECONDS);
+
+      keys = new String[WRITES];
+      for (int i = 0; i < WRITES; i++)
+         keys[i] = "key-" + i;
+
+      value = new byte[valueSize];
+      new Random(42).nextBytes(value);
+   }
+
+   @TearDown
+   public void tearDown() {
+      writer.close();
+      System.out.printf("%n%s%n", writer);
+      scheduler.shutdown();
+      server.close();
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(WRITES)
+   public void individualPuts() {
+      for (String key : keys)
+         remoteCache.put(key, value);
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(WRITES)
+   public void batchedPuts() throws Exception {
+      Future<?> last = null;
+      for (String key : keys)
+         last = writer.put(key, value);
+
+      // Batches are sent in order, so the last write completing means all have
+      writer.flush();
+      last.get();
+   }
+
+}
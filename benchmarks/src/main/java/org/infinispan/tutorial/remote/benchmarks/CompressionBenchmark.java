@@ -0,0 +1,164 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+import org.infinispan.tutorial.remote.marshall.CompressingMarshaller;
+import org.infinispan.tutorial.remote.util.EmbeddedServer;
+import org.infinispan.tutorial.remote.util.JdkHttpClient;
+import org.infinispan.tutorial.remote.util.JdkHttpClient.Keys;
+import org.infinispan.tutorial.remote.util.JdkHttpClient.Params;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Measures the CPU cost of compressing values above a size threshold, for
+ * Hot Rod with the {@link CompressingMarshaller} and for REST with gzip
+ * content encoding, against sending them as they are. Text values compress
+ * well, random bytes do not and are sent uncompressed after the attempt.
+ * The bytes each value takes on the wire are printed on setup; over the
+ * loopback interface only the CPU side of the trade off shows in timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+   static final int THRESHOLD = CompressingMarshaller.DEFAULT_THRESHOLD;
+   static final Charset UTF8 = Charset.forName("UTF-8");
+
+   @Param({"none", "deflate"})
+   String compression;
+
+   @Param({"256", "4096", "65536", "1048576"})
+   int valueSize;
+
+   @Param({"text", "random"})
+   String payload;
+
+   Marshaller marshaller;
+   byte[] value;
+   byte[] marshalled;
+
+   EmbeddedServer server;
+   RemoteCacheManager remoteCacheManager;
+   RemoteCache<String, byte[]> remoteCache;
+   URI keyUri;
+   Map<String, Object> putParams;
+   Map<String, Object> getParams;
+
+   @Setup
+   public void setup() throws Exception {
+      value = payload(payload, valueSize);
+      boolean compress = "deflate".equals(compression);
+      marshaller = compress
+            ? new CompressingMarshaller(new GenericJBossMarshaller(), THRESHOLD, Deflater.BEST_SPEED)
+            : new GenericJBossMarshaller();
+      marshalled = marshal();
+      if (!Arrays.equals(value, (byte[]) unmarshal()))
+         throw new AssertionError("Value does not survive a round trip with " + compression);
+
+      server = new EmbeddedServer();
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer().host(server.hotRodHost()).port(server.hotRodPort());
+      configurationBuilder.marshaller(marshaller);
+      remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+      remoteCache = remoteCacheManager.getCache();
+      remoteCache.put("key-compressed", value);
+
+      // Opt into compression per request, the embedded server decompresses request
+      // bodies and compresses responses of the same size
+      keyUri = URI.create(server.cacheUri() + "/key-compressed");
+      Params put = Params.apply(Keys.BODY, value).add(Keys.CONTENT_TYPE, "application/octet-stream");
+      Params get = Params.apply(Keys.ACCEPT, "application/octet-stream");
+      if (compress) {
+         put.add(Keys.COMPRESS_ABOVE, THRESHOLD).add(Keys.COMPRESS_REQUESTS, true);
+         get.add(Keys.COMPRESS_ABOVE, THRESHOLD);
+      }
+      putParams = put.map();
+      getParams = get.map();
+      JdkHttpClient.put(keyUri, putParams);
+      Object restLength = JdkHttpClient.get(keyUri, getParams).get("Content-Length");
+
+      System.out.printf("%n%s %s %d bytes: %d bytes via Hot Rod, %s bytes via REST%n",
+            compression, payload, valueSize, marshalled.length, restLength);
+   }
+
+   @TearDown
+   public void tearDown() {
+      remoteCacheManager.stop();
+      server.close();
+   }
+
+   @Benchmark
+   public byte[] marshal() throws Exception {
+      return marshaller.objectToByteBuffer(value);
+   }
+
+   @Benchmark
+   public Object unmarshal() throws Exception {
+      return marshaller.objectFromByteBuffer(marshalled);
+   }
+
+   @Benchmark
+   public Object hotRodPut() {
+      return remoteCache.put("key-compressed", value);
+   }
+
+   @Benchmark
+   public Object hotRodGet() {
+      return remoteCache.get("key-compressed");
+   }
+
+   @Benchmark
+   public Object restPut() {
+      return JdkHttpClient.put(keyUri, putParams).get(Keys.STATUS_CODE);
+   }
+
+   @Benchmark
+   public Object restGet() {
+      return JdkHttpClient.get(keyUri, getParams).get(Keys.BODY);
+   }
+
+   static byte[] payload(String payload, int size) {
+      Random random = new Random(42);
+      byte[] bytes = new byte[size];
+      if ("random".equals(payload)) {
+         random.nextBytes(bytes);
+         return bytes;
+      }
+
+      // Lines of stock quotes, repetitive like most textual values
+      StringBuilder sb = new StringBuilder(size + 64);
+      while (sb.length() < size) {
+         sb.append("INFN,").append(70 + random.nextInt(500) / 100f).append(',')
+               .append(1414000000000L + random.nextInt(1000000)).append('\n');
+      }
+      System.arraycopy(sb.toString().getBytes(UTF8), 0, bytes, 0, size);
+      return bytes;
+   }
+
+}
@@ -0,0 +1,105 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.tutorial.remote.batch.EntryConsumer;
+import org.infinispan.tutorial.remote.batch.EntryScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares full passes over a cache: the {@code keySet()} plus {@code get()}
+ * per key loop in {@code RemoteCompatibilityIT}, an {@link EntryScanner}
+ * with varying batch sizes, and a single bulk retrieval of all entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntryScanBenchmark {
+
+   @Param({"10000"})
+   int numEntries;
+
+   @Param({"128"})
+   int valueSize;
+
+   @Param({"100", "1000"})
+   int batchSize;
+
+   @Param({"4"})
+   int parallelism;
+
+   LocalHotRodServer server;
+   RemoteCache<String, byte[]> remoteCache;
+   ForkJoinPool pool;
+   EntryScanner<String, byte[]> scanner;
+
+   @Setup
+   public void setup() {
+      server = new LocalHotRodServer();
+      remoteCache = server.remoteCacheManager().getCache();
+      pool = new ForkJoinPool(parallelism);
+      scanner = new EntryScanner<>(remoteCache, batchSize, pool);
+
+      byte[] value = new byte[valueSize];
+      new Random(42).nextBytes(value);
+      Map<String, byte[]> entries = new HashMap<>();
+      for (int i = 0; i < numEntries; i++)
+         entries.put("key-" + i, value);
+      remoteCache.putAll(entries);
+   }
+
+   @TearDown
+   public void tearDown() {
+      pool.shutdown();
+      server.close();
+   }
+
+   @Benchmark
+   public long keySetAndGet() {
+      long bytes = 0;
+      for (String key : remoteCache.keySet())
+         bytes += remoteCache.get(key).length;
+      return bytes;
+   }
+
+   @Benchmark
+   public long scanner() {
+      final AtomicLong bytes = new AtomicLong();
+      scanner.scan(new EntryConsumer<String, byte[]>() {
+         @Override
+         public void accept(String key, byte[] value) {
+            bytes.addAndGet(value.length);
+         }
+      });
+      return bytes.get();
+   }
+
+   @Benchmark
+   public long bulk() {
+      long bytes = 0;
+      for (byte[] value : remoteCache.getBulk().values())
+         bytes += value.length;
+      return bytes;
+   }
+
+}
@@ -0,0 +1,85 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.tutorial.remote.util.JdkHttpClient;
+import org.infinispan.tutorial.remote.util.JdkHttpClient.Keys;
+import org.infinispan.tutorial.remote.util.JdkHttpClient.Params;
+import org.infinispan.tutorial.remote.util.KeyIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a REST key set listing into a list of lines, as
+ * {@link JdkHttpClient#get} does, with iterating over it via {@link KeyIterator},
+ * and measures the time it takes for the first key to become available.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class KeyListingBenchmark {
+
+   @Param({"10000", "100000"})
+   int numKeys;
+
+   @Param({"text/plain", "application/xml", "application/json"})
+   String type;
+
+   LocalRestServer server;
+   URI cacheUri;
+   Map<String, Object> params;
+
+   @Setup
+   public void setup() {
+      server = new LocalRestServer();
+      cacheUri = server.cacheUri();
+      params = Params.apply(Keys.ACCEPT, type).map();
+
+      byte[] value = new byte[]{1};
+      for (int i = 0; i < numKeys; i++)
+         server.store("key-" + i, value, "application/octet-stream");
+   }
+
+   @TearDown
+   public void tearDown() {
+      server.close();
+   }
+
+   @Benchmark
+   public Object readAll() {
+      return JdkHttpClient.get(cacheUri, params).get(Keys.BODY);
+   }
+
+   @Benchmark
+   public long iterateAll(Blackhole blackhole) {
+      try (KeyIterator it = JdkHttpClient.keys(cacheUri, params)) {
+         while (it.hasNext())
+            blackhole.consume(it.next());
+         return it.count();
+      }
+   }
+
+   @Benchmark
+   public String firstKey() {
+      try (KeyIterator it = JdkHttpClient.keys(cacheUri, params)) {
+         return it.next();
+      }
+   }
+
+}
@@ -0,0 +1,109 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.metadata.Metadata;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilter;
+import org.infinispan.notifications.cachelistener.filter.EventType;
+import org.infinispan.tutorial.remote.event.KeySetFilterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many events per second a key set filter can process, for a
+ * range of key set sizes. The list filter checks keys like the one in
+ * {@code RemoteListenerFilterIT}, the key set filter is built by
+ * {@link KeySetFilterFactory}. Dense keys are stored in a bitmap and sparse
+ * keys in a hash set. Half of the events are for keys in the set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeySetFilterBenchmark {
+
+   static final int NUM_EVENTS = 1024;
+
+   @Param({"100", "10000", "100000"})
+   int keySetSize;
+
+   @Param({"dense", "sparse"})
+   String keys;
+
+   @Param({"list", "keySet"})
+   String filter;
+
+   CacheEventFilter<Object, Object> eventFilter;
+   Object[] eventKeys;
+
+   @Setup
+   public void setup() {
+      Random random = new Random(42);
+      int[] subscribed = new int[keySetSize];
+      for (int i = 0; i < keySetSize; i++)
+         subscribed[i] = "dense".equals(keys) ? i : random.nextInt(Integer.MAX_VALUE);
+
+      switch (filter) {
+         case "list":
+            Object[] params = new Object[keySetSize];
+            for (int i = 0; i < keySetSize; i++)
+               params[i] = subscribed[i];
+            eventFilter = new ListFilter(Arrays.asList(params));
+            break;
+         case "keySet":
+            eventFilter = new KeySetFilterFactory().getFilter(KeySetFilterFactory.keys(subscribed));
+            break;
+         default:
+            throw new IllegalArgumentException("Unknown filter: " + filter);
+      }
+
+      // Pre-box keys as they would arrive, half of them in the key set, the rest negative
+      eventKeys = new Object[NUM_EVENTS];
+      for (int i = 0; i < NUM_EVENTS; i++) {
+         eventKeys[i] = i % 2 == 0
+               ? subscribed[random.nextInt(keySetSize)]
+               : Integer.valueOf(-1 - random.nextInt(Integer.MAX_VALUE));
+      }
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(NUM_EVENTS)
+   public int accept() {
+      int accepted = 0;
+      for (Object key : eventKeys) {
+         if (eventFilter.accept(key, null, null, "value", null, null))
+            accepted++;
+      }
+      return accepted;
+   }
+
+   static class ListFilter implements CacheEventFilter<Object, Object> {
+      private final List<?> acceptedKeys;
+
+      ListFilter(List<?> acceptedKeys) {
+         this.acceptedKeys = acceptedKeys;
+      }
+
+      @Override
+      public boolean accept(Object key, Object oldValue, Metadata oldMetadata,
+            Object newValue, Metadata newMetadata, EventType eventType) {
+         return acceptedKeys.contains(key);
+      }
+   }
+
+}
@@ -0,0 +1,107 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.tutorial.remote.util.JdkHttpClient;
+import org.infinispan.tutorial.remote.util.JdkHttpClient.Keys;
+import org.infinispan.tutorial.remote.util.JdkHttpClient.Params;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares transferring large values over REST as byte arrays, which
+ * holds a full copy of the value in the heap, with streaming them from
+ * and to files. Run with {@code -prof gc} to see the allocation difference;
+ * allocations made by the in-process REST stand-in are the same for both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LargeValueBenchmark {
+
+   @Param({"1024", "65536", "1048576", "16777216", "104857600"})
+   int valueSize;
+
+   LocalRestServer server;
+   URI keyUri;
+   byte[] value;
+   Path source;
+   Path target;
+   FileChannel sourceChannel;
+   FileChannel targetChannel;
+   Map<String, Object> getParams;
+
+   @Setup
+   public void setup() throws IOException {
+      server = new LocalRestServer();
+      keyUri = server.cacheKeyUri("key-large");
+
+      value = new byte[valueSize];
+      new Random(42).nextBytes(value);
+      source = Files.createTempFile("source", ".bin");
+      target = Files.createTempFile("target", ".bin");
+      Files.write(source, value);
+      sourceChannel = FileChannel.open(source, StandardOpenOption.READ);
+      targetChannel = FileChannel.open(target, StandardOpenOption.WRITE);
+
+      getParams = Params.apply(Keys.ACCEPT, "application/octet-stream").map();
+      JdkHttpClient.put(keyUri, Params.apply(Keys.BODY, value).add(Keys.CONTENT_TYPE, "application/octet-stream").map());
+   }
+
+   @TearDown
+   public void tearDown() throws IOException {
+      sourceChannel.close();
+      targetChannel.close();
+      Files.delete(source);
+      Files.delete(target);
+      server.close();
+   }
+
+   @Benchmark
+   public Object byteArrayGet() {
+      return JdkHttpClient.get(keyUri, getParams).get(Keys.BODY);
+   }
+
+   @Benchmark
+   public Object streamingGet() throws IOException {
+      targetChannel.position(0);
+      return JdkHttpClient.get(keyUri, getParams, targetChannel).get(Keys.LENGTH);
+   }
+
+   @Benchmark
+   public Object byteArrayPut() throws IOException {
+      // Includes loading the value into the heap, as a caller holding it in a file would have to
+      byte[] bytes = Files.readAllBytes(source);
+      return JdkHttpClient.put(keyUri, Params.apply(Keys.BODY, bytes)
+            .add(Keys.CONTENT_TYPE, "application/octet-stream").map()).get(Keys.STATUS_CODE);
+   }
+
+   @Benchmark
+   public Object streamingPut() throws IOException {
+      sourceChannel.position(0);
+      return JdkHttpClient.put(keyUri, Params.apply(Keys.BODY, sourceChannel)
+            .add(Keys.CONTENT_TYPE, "application/octet-stream").map()).get(Keys.STATUS_CODE);
+   }
+
+}
@@ -0,0 +1,73 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.tutorial.remote.stats.LatencyHistogram;
+import org.infinispan.tutorial.remote.stats.LatencyRecorder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of recording latencies: reads through a plain
+ * remote cache and through one wrapped by a {@link LatencyRecorder}, and
+ * recording a value in a {@link LatencyHistogram} on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatencyRecorderBenchmark {
+
+   LocalHotRodServer server;
+   LatencyRecorder recorder;
+   RemoteCache<String, String> remoteCache;
+   RemoteCache<String, String> recordedCache;
+   LatencyHistogram histogram;
+
+   @Setup
+   public void setup() {
+      server = new LocalHotRodServer();
+      remoteCache = server.remoteCacheManager().getCache();
+      remoteCache.put("key", "value");
+
+      // Keep benchmark histograms out of JMX
+      recorder = new LatencyRecorder(null);
+      recordedCache = recorder.wrap(remoteCache);
+      histogram = new LatencyHistogram();
+   }
+
+   @TearDown
+   public void tearDown() {
+      System.out.printf("%nrecorded get latency: %s%n", recorder.histogram("___defaultcache", "get"));
+      server.close();
+   }
+
+   @Benchmark
+   public String get() {
+      return remoteCache.get("key");
+   }
+
+   @Benchmark
+   public String getRecorded() {
+      return recordedCache.get("key");
+   }
+
+   @Benchmark
+   public void record() {
+      histogram.record(ThreadLocalRandom.current().nextLong(1_000_000));
+   }
+
+}
@@ -0,0 +1,46 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.tutorial.remote.util.EmbeddedServer;
+
+/**
+ * An in-process stand-in for an Infinispan Server. It boots an
+ * {@link EmbeddedServer} bound to the loopback interface, so that benchmarks
+ * go through the real client, marshalling and network stack without needing
+ * a downloaded server distribution.
+ */
+public class LocalHotRodServer implements AutoCloseable {
+
+   static final String HOST = EmbeddedServer.HOST;
+
+   private final EmbeddedServer server;
+   private final RemoteCacheManager remoteCacheManager;
+
+   public LocalHotRodServer() {
+      // Start a local, non-clustered, server whose default cache is the one exposed
+      server = new EmbeddedServer();
+
+      // Connect a remote cache manager exactly as the tutorial tests do
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer().host(server.hotRodHost()).port(server.hotRodPort());
+      remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+   }
+
+   public RemoteCacheManager remoteCacheManager() {
+      return remoteCacheManager;
+   }
+
+   public HotRodServer hotRodServer() {
+      return server.hotRodServer();
+   }
+
+   @Override
+   public void close() {
+      // Stop in reverse order, client first so that no connections are left dangling
+      remoteCacheManager.stop();
+      server.close();
+   }
+
+}
@@ -0,0 +1,58 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.tutorial.remote.util.EmbeddedServer;
+
+import java.net.URI;
+
+/**
+ * An in-process server for REST benchmarks. It boots an
+ * {@link EmbeddedServer}, the same way as {@link LocalHotRodServer}, and
+ * talks to its REST endpoint, so that the tutorial's REST client can be
+ * benchmarked without a server distribution or network access.
+ *
+ * That endpoint is a stand-in for the Infinispan REST server built on the
+ * JDK's own HTTP server, so results measure the client and the stand-in,
+ * not the REST server of a distribution.
+ */
+public class LocalRestServer implements AutoCloseable {
+
+   private final EmbeddedServer server;
+
+   public LocalRestServer() {
+      // Start a local, non-clustered, server whose default cache is the one exposed
+      server = new EmbeddedServer();
+   }
+
+   public String host() {
+      return server.restHost();
+   }
+
+   public int port() {
+      return server.restPort();
+   }
+
+   /**
+    * Location of the default cache, as used by the tutorial tests.
+    */
+   public URI cacheUri() {
+      return server.cacheUri();
+   }
+
+   public URI cacheKeyUri(String key) {
+      return server.cacheKeyUri(key);
+   }
+
+   /**
+    * Stores an entry in the default cache without going through HTTP,
+    * to quickly prepare large data sets.
+    */
+   public void store(String key, byte[] data, String contentType) {
+      server.restPut(key, data, contentType);
+   }
+
+   @Override
+   public void close() {
+      server.close();
+   }
+
+}
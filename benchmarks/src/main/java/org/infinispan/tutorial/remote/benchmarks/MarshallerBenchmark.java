@@ -0,0 +1,92 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+import org.infinispan.tutorial.remote.compatibility.StockValue;
+import org.infinispan.tutorial.remote.compatibility.StockValueMarshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding a {@link StockValue} with plain Java
+ * serialization, as sent by REST clients in {@code RemoteCompatibilityIT},
+ * with the Hot Rod client's default marshaller and with the compact
+ * {@link StockValueMarshaller}. The encoded size of each is printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarshallerBenchmark {
+
+   @Param({"serialization", "jboss", "compact"})
+   String marshaller;
+
+   Marshaller hotRodMarshaller;
+   StockValue value;
+   byte[] bytes;
+
+   @Setup
+   public void setup() throws Exception {
+      switch (marshaller) {
+         case "serialization":
+            break;
+         case "jboss":
+            hotRodMarshaller = new GenericJBossMarshaller();
+            break;
+         case "compact":
+            hotRodMarshaller = new StockValueMarshaller();
+            break;
+         default:
+            throw new IllegalArgumentException("Unknown marshaller: " + marshaller);
+      }
+
+      value = new StockValue(72.1f);
+      bytes = encode();
+      if (!value.equals(decode()))
+         throw new AssertionError("Value does not survive a round trip with " + marshaller);
+
+      System.out.printf("%n%s: %d bytes per entry%n", marshaller, bytes.length);
+   }
+
+   @Benchmark
+   public byte[] encode() throws Exception {
+      if (hotRodMarshaller != null)
+         return hotRodMarshaller.objectToByteBuffer(value);
+
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+         oos.writeObject(value);
+      }
+      return baos.toByteArray();
+   }
+
+   @Benchmark
+   public Object decode() throws IOException, ClassNotFoundException {
+      if (hotRodMarshaller != null)
+         return hotRodMarshaller.objectFromByteBuffer(bytes);
+
+      try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+         return ois.readObject();
+      }
+   }
+
+}
@@ -0,0 +1,117 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.tutorial.remote.aggregate.Aggregates;
+import org.infinispan.tutorial.remote.compatibility.StockValue;
+import org.infinispan.tutorial.remote.view.GroupAggregateView;
+import org.infinispan.tutorial.remote.view.TopNView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of applying a quote to a top movers view and a per
+ * exchange aggregate view, for growing numbers of symbols, and of reading
+ * them, both alone and while quotes keep being applied from another thread
+ * as the event thread of {@code MaterializedViews} does. No server is
+ * involved, only the client side views.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaterializedViewBenchmark {
+
+   static final String[] EXCHANGES = {"NYSE", "NASDAQ", "LSE", "TSE"};
+   static final int MOVERS = 10;
+
+   @Param({"1000", "100000"})
+   int symbols;
+
+   String[] keys;
+   StockValue[] quotes;
+   TopNView<String, StockValue> movers;
+   GroupAggregateView<String, StockValue, String> exchanges;
+
+   @Setup
+   public void setup() {
+      movers = new TopNView<>(MOVERS, new TopNView.Scorer<String, StockValue>() {
+         @Override
+         public double score(String key, StockValue oldValue, StockValue newValue) {
+            return oldValue == null ? Double.NaN : Math.abs(newValue.value() - oldValue.value()) / oldValue.value();
+         }
+      });
+      exchanges = new GroupAggregateView<>(new GroupAggregateView.Classifier<String, StockValue, String>() {
+         @Override
+         public String group(String key, StockValue value) {
+            return key.substring(0, key.indexOf(':'));
+         }
+      });
+
+      // Quote every symbol twice, so that all of them are ranked
+      keys = new String[symbols];
+      quotes = new StockValue[symbols];
+      for (int i = 0; i < symbols; i++) {
+         keys[i] = EXCHANGES[i % EXCHANGES.length] + ":SYM" + i;
+         update(i, 100f);
+         update(i, 100f + i % 100 / 10f);
+      }
+   }
+
+   @Benchmark
+   public void update() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      update(random.nextInt(symbols), 90 + random.nextInt(2000) / 100f);
+   }
+
+   @Benchmark
+   public List<TopNView.Ranked<String>> readTop() {
+      return movers.top();
+   }
+
+   @Benchmark
+   public Aggregates readExchange() {
+      return exchanges.aggregates(EXCHANGES[ThreadLocalRandom.current().nextInt(EXCHANGES.length)]);
+   }
+
+   @Benchmark
+   @Group("concurrent")
+   @GroupThreads(1)
+   public void concurrentUpdate() {
+      update();
+   }
+
+   @Benchmark
+   @Group("concurrent")
+   @GroupThreads(3)
+   public double concurrentRead() {
+      // A dashboard reading the best mover and the average of an exchange
+      return movers.top().get(0).score() + readExchange().average();
+   }
+
+   private void update(int i, float value) {
+      // Updates come from a single event thread, as with MaterializedViews
+      synchronized (this) {
+         StockValue quote = new StockValue(value, 0);
+         movers.update(keys[i], quotes[i], quote);
+         exchanges.update(keys[i], quotes[i], quote);
+         quotes[i] = quote;
+      }
+   }
+
+}
@@ -0,0 +1,84 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.tutorial.remote.nearcache.NearCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares read latency of going straight to the server with reading
+ * through a {@link NearCache}. The near cache holds a configurable
+ * fraction of the keys read, so the hit ratio can be varied.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearCacheBenchmark {
+
+   static final int NUM_KEYS = 1024;
+
+   @Param({"1024"})
+   int valueSize;
+
+   @Param({"1024", "512"})
+   int nearCacheSize;
+
+   LocalHotRodServer server;
+   RemoteCache<String, byte[]> remoteCache;
+   NearCache<String, byte[]> nearCache;
+   String[] keys;
+
+   @Setup
+   public void setup() {
+      server = new LocalHotRodServer();
+      remoteCache = server.remoteCacheManager().getCache();
+      nearCache = new NearCache<>(remoteCache, nearCacheSize);
+
+      keys = new String[NUM_KEYS];
+      byte[] value = new byte[valueSize];
+      new Random(42).nextBytes(value);
+      for (int i = 0; i < NUM_KEYS; i++) {
+         keys[i] = "key-" + i;
+         remoteCache.put(keys[i], value);
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      System.out.printf("%n%s%n", nearCache);
+      nearCache.close();
+      server.close();
+   }
+
+   @Benchmark
+   public byte[] remoteGet() {
+      return remoteCache.get(nextKey());
+   }
+
+   @Benchmark
+   public byte[] nearCacheGet() {
+      return nearCache.get(nextKey());
+   }
+
+   String nextKey() {
+      return keys[ThreadLocalRandom.current().nextInt(NUM_KEYS)];
+   }
+
+}
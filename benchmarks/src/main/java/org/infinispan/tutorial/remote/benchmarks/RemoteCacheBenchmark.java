@@ -0,0 +1,88 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the basic remote cache operations exercised in {@code RemoteIT}:
+ * plain writes, reads and mortal writes, for a range of payload sizes.
+ *
+ * Run with {@code -prof gc} to get allocation rates per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemoteCacheBenchmark {
+
+   static final int NUM_KEYS = 1024;
+
+   @Param({"16", "1024", "16384"})
+   int valueSize;
+
+   LocalHotRodServer server;
+   RemoteCache<String, byte[]> remoteCache;
+   String[] keys;
+   byte[] value;
+
+   @Setup
+   public void setup() {
+      server = new LocalHotRodServer();
+      remoteCache = server.remoteCacheManager().getCache();
+
+      // Keys are pre-built so that key construction is not measured
+      keys = new String[NUM_KEYS];
+      for (int i = 0; i < NUM_KEYS; i++)
+         keys[i] = "key-" + i;
+
+      value = new byte[valueSize];
+      new Random(42).nextBytes(value);
+
+      // Pre-populate so that reads always hit
+      for (String key : keys)
+         remoteCache.put(key, value);
+   }
+
+   @TearDown
+   public void tearDown() {
+      server.close();
+   }
+
+   @Benchmark
+   public byte[] put() {
+      return remoteCache.put(nextKey(), value);
+   }
+
+   @Benchmark
+   public byte[] get() {
+      return remoteCache.get(nextKey());
+   }
+
+   @Benchmark
+   public byte[] putMortal() {
+      // Same lifespan as the mortal entry in RemoteIT
+      return remoteCache.put(nextKey(), value, 1, TimeUnit.SECONDS);
+   }
+
+   String nextKey() {
+      return keys[ThreadLocalRandom.current().nextInt(NUM_KEYS)];
+   }
+
+}
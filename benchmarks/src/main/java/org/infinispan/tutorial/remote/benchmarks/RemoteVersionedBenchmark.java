@@ -0,0 +1,90 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.tutorial.remote.concurrent.AtomicUpdater;
+import org.infinispan.tutorial.remote.concurrent.UpdateFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the versioned operations used by {@code RemoteConcurrencyIT}'s
+ * counter updater. Run with {@code -t <threads>} to see how the
+ * compare-and-swap increment behaves as contention on the single key grows,
+ * with and without backing off on conflicts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemoteVersionedBenchmark {
+
+   static final String KEY = "Counter";
+
+   LocalHotRodServer server;
+   RemoteCache<String, Integer> remoteCache;
+   AtomicUpdater updater;
+
+   @Setup
+   public void setup() {
+      server = new LocalHotRodServer();
+      remoteCache = server.remoteCacheManager().getCache();
+      remoteCache.put(KEY, 0);
+      updater = new AtomicUpdater();
+   }
+
+   @TearDown
+   public void tearDown() {
+      System.out.printf("%natomic updater: %s%n", updater.stats(KEY));
+      server.close();
+   }
+
+   @Benchmark
+   public VersionedValue<Integer> getVersioned() {
+      return remoteCache.getVersioned(KEY);
+   }
+
+   @Benchmark
+   public int incrementCounter() {
+      // Same compare-and-swap loop as RemoteConcurrencyIT.CounterUpdater
+      while (true) {
+         VersionedValue<Integer> versioned = remoteCache.getVersioned(KEY);
+         if (versioned == null) {
+            if (remoteCache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(KEY, 1) == null)
+               return 1;
+         } else {
+            int val = versioned.getValue() + 1;
+            if (remoteCache.replaceWithVersion(KEY, val, versioned.getVersion()))
+               return val;
+         }
+      }
+   }
+
+   @Benchmark
+   public int atomicUpdate() {
+      // Same increment, with backoff on conflicts
+      return updater.atomicUpdate(remoteCache, KEY, INCREMENT);
+   }
+
+   static final UpdateFunction<Integer> INCREMENT = new UpdateFunction<Integer>() {
+      @Override
+      public Integer apply(Integer current) {
+         return current == null ? 1 : current + 1;
+      }
+   };
+
+}
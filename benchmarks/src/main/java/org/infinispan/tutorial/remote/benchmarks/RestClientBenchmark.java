@@ -0,0 +1,95 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.tutorial.remote.util.JdkHttpClient;
+import org.infinispan.tutorial.remote.util.JdkHttpClient.Keys;
+import org.infinispan.tutorial.remote.util.JdkHttpClient.Params;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares REST requests sent through {@link JdkHttpClient}, which keeps
+ * connections alive between requests, with requests that open a new
+ * connection and disconnect it afterwards, as the client used to do.
+ * Run with {@code -t <threads>} to see the effect of the pool size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestClientBenchmark {
+
+   @Param({"1024"})
+   int valueSize;
+
+   @Param({"5", "32"})
+   int poolSize;
+
+   LocalRestServer server;
+   URI keyUri;
+   Map<String, Object> getParams;
+
+   @Setup
+   public void setup() {
+      // Must happen before any connection is opened in this JVM
+      JdkHttpClient.keepAlivePoolSize(poolSize);
+
+      server = new LocalRestServer();
+      keyUri = server.cacheKeyUri("key-bytes");
+
+      byte[] value = new byte[valueSize];
+      new Random(42).nextBytes(value);
+      Params params = Params.apply(Keys.BODY, value).add(Keys.CONTENT_TYPE, "application/octet-stream");
+      JdkHttpClient.put(keyUri, params.map());
+
+      getParams = Params.apply(Keys.ACCEPT, "application/octet-stream").map();
+   }
+
+   @TearDown
+   public void tearDown() {
+      server.close();
+   }
+
+   @Benchmark
+   public Object keepAliveGet() {
+      return JdkHttpClient.get(keyUri, getParams).get(Keys.BODY);
+   }
+
+   @Benchmark
+   public int newConnectionGet() throws IOException {
+      HttpURLConnection httpcon = (HttpURLConnection) keyUri.toURL().openConnection();
+      try {
+         httpcon.setRequestProperty(Keys.ACCEPT, "application/octet-stream");
+         int read = 0;
+         try (InputStream is = httpcon.getInputStream()) {
+            byte[] buffer = new byte[valueSize];
+            int n;
+            while ((n = is.read(buffer)) != -1)
+               read += n;
+         }
+         return read;
+      } finally {
+         httpcon.disconnect();
+      }
+   }
+
+}
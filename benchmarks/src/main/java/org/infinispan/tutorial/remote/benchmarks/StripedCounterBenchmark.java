@@ -0,0 +1,141 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.tutorial.remote.concurrent.StripedCounter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single key compare-and-swap counter in {@code RemoteConcurrencyIT}
+ * with {@link StripedCounter}. Run once per thread count, e.g.
+ * {@code for t in 1 2 4 8 16; do java -jar target/benchmarks.jar StripedCounterBenchmark -t $t; done},
+ * to see how each approach scales as contention grows.
+ *
+ * Both count increments stored remotely: the striped variants flush before
+ * returning, so local accumulation alone is never timed. Flushing after each
+ * increment shows the effect of striping, flushing after a batch that of
+ * pushing many increments with one compare-and-swap.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StripedCounterBenchmark {
+
+   static final String KEY = "Counter";
+   static final int BATCH = 100;
+
+   @State(Scope.Benchmark)
+   public static class CasState {
+      LocalHotRodServer server;
+      RemoteCache<String, Integer> remoteCache;
+
+      @Setup
+      public void setup() {
+         server = new LocalHotRodServer();
+         remoteCache = server.remoteCacheManager().getCache();
+      }
+
+      @TearDown
+      public void tearDown() {
+         server.close();
+      }
+   }
+
+   @State(Scope.Benchmark)
+   public static class StripedState {
+      @Param({"1", "8", "32"})
+      int stripes;
+
+      // Benchmarks flush explicitly, background flushes only pick up what is left
+      @Param({"1000"})
+      long flushIntervalMillis;
+
+      LocalHotRodServer server;
+      ScheduledExecutorService scheduler;
+      StripedCounter counter;
+
+      @Setup
+      public void setup() {
+         server = new LocalHotRodServer();
+         scheduler = Executors.newSingleThreadScheduledExecutor();
+         RemoteCache<String, Long> remoteCache = server.remoteCacheManager().getCache();
+         counter = new StripedCounter(remoteCache, KEY, stripes, scheduler, flushIntervalMillis, TimeUnit.MILLISECONDS);
+      }
+
+      @TearDown
+      public void tearDown() {
+         counter.close();
+         System.out.printf("%nstriped counter: value=%d, flushes=%d, retries=%d%n",
+               counter.get(), counter.flushes(), counter.retries());
+         scheduler.shutdown();
+         server.close();
+      }
+   }
+
+   @State(Scope.Thread)
+   @AuxCounters(AuxCounters.Type.EVENTS)
+   public static class Retries {
+      public long retries;
+
+      @Setup(Level.Iteration)
+      public void reset() {
+         retries = 0;
+      }
+   }
+
+   @Benchmark
+   public int casLoop(CasState state, Retries retries) {
+      // Same compare-and-swap loop as RemoteConcurrencyIT.CounterUpdater
+      RemoteCache<String, Integer> cache = state.remoteCache;
+      while (true) {
+         VersionedValue<Integer> versioned = cache.getVersioned(KEY);
+         if (versioned == null) {
+            if (cache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(KEY, 1) == null)
+               return 1;
+         } else {
+            int val = versioned.getValue() + 1;
+            if (cache.replaceWithVersion(KEY, val, versioned.getVersion()))
+               return val;
+         }
+         retries.retries++;
+      }
+   }
+
+   @Benchmark
+   public void striped(StripedState state) {
+      // Store the increment before returning, retries are printed on tear down
+      state.counter.increment();
+      state.counter.flush();
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(BATCH)
+   public void stripedBatched(StripedState state) {
+      // Flushing also pushes increments of other threads accumulated meanwhile
+      for (int i = 0; i < BATCH; i++)
+         state.counter.increment();
+      state.counter.flush();
+   }
+
+}
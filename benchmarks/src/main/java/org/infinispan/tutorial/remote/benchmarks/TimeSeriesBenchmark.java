@@ -0,0 +1,140 @@
+package org.infinispan.tutorial.remote.benchmarks;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.tutorial.remote.compatibility.StockValue;
+import org.infinispan.tutorial.remote.compatibility.StockValueMarshaller;
+import org.infinispan.tutorial.remote.timeseries.TimeSeries;
+import org.infinispan.tutorial.remote.timeseries.TimeSeriesStore;
+import org.infinispan.tutorial.remote.util.EmbeddedServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares storing a day of quotes for a symbol as one {@link StockValue}
+ * entry per tick with storing it as {@link TimeSeries} columns bucketed per
+ * hour, both with the compact {@link StockValueMarshaller}. The heap taken
+ * per tick by the in-process server is printed on setup, and reads of a
+ * window of consecutive ticks are timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TimeSeriesBenchmark {
+
+   static final String SYMBOL = "INFN";
+   static final long START = 1414000000000L;
+   static final long TICK_MILLIS = 1000;
+
+   @Param({"entries", "columnar"})
+   String layout;
+
+   @Param({"86400"})
+   int ticks;
+
+   @Param({"60", "3600"})
+   int window;
+
+   EmbeddedServer server;
+   RemoteCacheManager remoteCacheManager;
+   RemoteCache<String, StockValue> tickCache;
+   TimeSeriesStore store;
+
+   @Setup
+   public void setup() {
+      server = new EmbeddedServer();
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer().host(server.hotRodHost()).port(server.hotRodPort());
+      configurationBuilder.marshaller(new StockValueMarshaller());
+      remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+      tickCache = remoteCacheManager.getCache();
+      RemoteCache<String, TimeSeries> seriesCache = remoteCacheManager.getCache();
+      store = new TimeSeriesStore(seriesCache, 1, TimeUnit.HOURS);
+
+      long before = usedHeap();
+      load();
+      long after = usedHeap();
+      System.out.printf("%n%s: %d entries, %.1f bytes of heap per tick%n",
+            layout, server.cacheManager().getCache().size(), (after - before) / (double) ticks);
+   }
+
+   @TearDown
+   public void tearDown() {
+      remoteCacheManager.stop();
+      server.close();
+   }
+
+   @Benchmark
+   public double rangeRead() {
+      long from = START + ThreadLocalRandom.current().nextInt(ticks - window) * TICK_MILLIS;
+      long to = from + window * TICK_MILLIS;
+      double sum = 0;
+      if ("columnar".equals(layout)) {
+         TimeSeries series = store.range(SYMBOL, from, to);
+         for (int i = 0; i < series.size(); i++)
+            sum += series.value(i);
+      } else {
+         // One entry per tick, so the keys of a window are known from its times
+         for (long time = from; time < to; time += TICK_MILLIS)
+            sum += tickCache.get(tickKey(time)).value();
+      }
+      return sum;
+   }
+
+   private void load() {
+      Random random = new Random(42);
+      long[] times = new long[ticks];
+      float[] values = new float[ticks];
+      for (int i = 0; i < ticks; i++) {
+         times[i] = START + i * TICK_MILLIS;
+         values[i] = 70 + random.nextInt(500) / 100f;
+      }
+
+      if ("columnar".equals(layout)) {
+         store.append(SYMBOL, times, values);
+         return;
+      }
+
+      Map<String, StockValue> batch = new HashMap<>();
+      for (int i = 0; i < ticks; i++) {
+         batch.put(tickKey(times[i]), new StockValue(values[i], times[i]));
+         if (batch.size() == 1000 || i == ticks - 1) {
+            tickCache.putAll(batch);
+            batch.clear();
+         }
+      }
+   }
+
+   static String tickKey(long time) {
+      return SYMBOL + ":" + time;
+   }
+
+   static long usedHeap() {
+      // Settle the heap so that the difference reflects live data only
+      Runtime runtime = Runtime.getRuntime();
+      for (int i = 0; i < 3; i++)
+         System.gc();
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+
+}
@@ -2,25 +2,114 @@ package org.infinispan.tutorial.remote;
 
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.tutorial.remote.load.WorkloadGenerator;
+import org.infinispan.tutorial.remote.stats.StatsMonitor;
 
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class RemoteTutorial {
 
-   public static void main(String[] args) {
+   static final String USAGE = "Usage: RemoteTutorial [monitor [-interval <seconds>] [-window <samples>] " +
+         "[-csv <file>] [cache...] | load <options>]";
+
+   public static void main(String[] args) throws Exception {
       RemoteCacheManager remoteCacheManager = new RemoteCacheManager();
 
-      // Obtain the default cache
-      RemoteCache<String, String> cache = remoteCacheManager.getCache();
+      try {
+         if (args.length > 0 && args[0].equals("monitor")) {
+            // Keep sampling statistics until interrupted
+            monitor(remoteCacheManager, args);
+            return;
+         }
+
+         if (args.length > 0 && args[0].equals("load")) {
+            // Run a workload and report throughput and latencies
+            load(remoteCacheManager, args);
+            return;
+         }
+
+         // Obtain the default cache
+         RemoteCache<String, String> cache = remoteCacheManager.getCache();
+
+         // Get cache statistics
+         Map<String, String> stats = cache.stats().getStatsMap();
+
+         // Print them out
+         System.out.println(stats);
+      } finally {
+         // Stop the cache manager and release all resources
+         remoteCacheManager.stop();
+      }
+   }
+
+   static void monitor(RemoteCacheManager remoteCacheManager, String[] args) throws IOException, InterruptedException {
+      long interval = 1;
+      int window = 10;
+      Writer csv = null;
+      List<RemoteCache<?, ?>> caches = new ArrayList<>();
 
-      // Get cache statistics
-      Map<String, String> stats = cache.stats().getStatsMap();
+      // Parse options, anything else is a cache name
+      for (int i = 1; i < args.length; i++) {
+         switch (args[i]) {
+            case "-interval":
+               interval = Long.parseLong(argument(args, ++i));
+               break;
+            case "-window":
+               window = Integer.parseInt(argument(args, ++i));
+               break;
+            case "-csv":
+               csv = new FileWriter(argument(args, ++i));
+               break;
+            default:
+               caches.add(remoteCacheManager.getCache(args[i]));
+         }
+      }
 
-      // Print them out
-      System.out.println(stats);
+      // Monitor the default cache if none given
+      if (caches.isEmpty())
+         caches.add(remoteCacheManager.getCache());
+
+      // Redraw the screen on each sample only when attached to a terminal
+      final StatsMonitor monitor = new StatsMonitor(caches, window, System.out, csv, System.console() != null);
+      // The JVM exits once shutdown hooks complete, so stop monitoring from the hook
+      Runtime.getRuntime().addShutdownHook(new Thread() {
+         @Override
+         public void run() {
+            try {
+               monitor.close();
+            } catch (IOException e) {
+               e.printStackTrace();
+            }
+         }
+      });
+
+      // Sample until interrupted, e.g. with Ctrl-C
+      monitor.start(interval, TimeUnit.SECONDS);
+      new CountDownLatch(1).await();
+   }
+
+   static void load(RemoteCacheManager remoteCacheManager, String[] args) throws InterruptedException {
+      WorkloadGenerator generator = WorkloadGenerator.parse(args, 1);
+
+      // Obtain the cache to load, the default one unless named
+      RemoteCache<String, byte[]> cache = generator.cacheName() == null
+            ? remoteCacheManager.<String, byte[]>getCache()
+            : remoteCacheManager.<String, byte[]>getCache(generator.cacheName());
+
+      generator.run(cache).print(System.out);
+   }
 
-      // Stop the cache manager and release all resources
-      remoteCacheManager.stop();
+   private static String argument(String[] args, int i) {
+      if (i >= args.length)
+         throw new IllegalArgumentException(USAGE);
+      return args[i];
    }
 
 }
@@ -0,0 +1,119 @@
+package org.infinispan.tutorial.remote.aggregate;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+/**
+ * Custom event shipped to aggregation listeners, summarizing the
+ * {@link Measurable} values of all entries in a cache: their count, minimum,
+ * maximum, average and weighted average, e.g. a volume weighted average
+ * price. Minimum, maximum and averages are {@code NaN} when there are no
+ * values.
+ */
+public final class Aggregates implements Serializable {
+
+   static final Aggregates EMPTY = new Aggregates(0, Double.NaN, Double.NaN, 0, 0, 0, null, 0);
+
+   private final long count;
+   private final double min;
+   private final double max;
+   private final double sum;
+   private final double weightedSum;
+   private final double totalWeight;
+   private final String source;
+   private final long marker;
+
+   Aggregates(long count, double min, double max, double sum, double weightedSum, double totalWeight,
+         String source, long marker) {
+      this.count = count;
+      this.min = min;
+      this.max = max;
+      this.sum = sum;
+      this.weightedSum = weightedSum;
+      this.totalWeight = totalWeight;
+      this.source = source;
+      this.marker = marker;
+   }
+
+   /**
+    * Combines the aggregates of disjoint sets of values, such as those
+    * shipped by each node of a cluster, answering the latest snapshot
+    * request any of them answers.
+    */
+   static Aggregates merge(Collection<Aggregates> partials) {
+      long count = 0;
+      double min = Double.NaN;
+      double max = Double.NaN;
+      double sum = 0;
+      double weightedSum = 0;
+      double totalWeight = 0;
+      long marker = 0;
+      for (Aggregates partial : partials) {
+         // Empty aggregates have no minimum or maximum to compare
+         if (partial.count > 0) {
+            min = count == 0 ? partial.min : Math.min(min, partial.min);
+            max = count == 0 ? partial.max : Math.max(max, partial.max);
+            count += partial.count;
+            sum += partial.sum;
+            weightedSum += partial.weightedSum;
+            totalWeight += partial.totalWeight;
+         }
+         marker = Math.max(marker, partial.marker);
+      }
+      return new Aggregates(count, min, max, sum, weightedSum, totalWeight, null, marker);
+   }
+
+   public long count() {
+      return count;
+   }
+
+   public double min() {
+      return min;
+   }
+
+   public double max() {
+      return max;
+   }
+
+   public double sum() {
+      return sum;
+   }
+
+   public double average() {
+      return count == 0 ? Double.NaN : sum / count;
+   }
+
+   /**
+    * Average of the measures weighted by their weights, e.g. the volume
+    * weighted average price of trades.
+    */
+   public double weightedAverage() {
+      return totalWeight == 0 ? Double.NaN : weightedSum / totalWeight;
+   }
+
+   public double totalWeight() {
+      return totalWeight;
+   }
+
+   /**
+    * Id of the server side aggregator that computed these aggregates, or
+    * null if computed on the client.
+    */
+   String source() {
+      return source;
+   }
+
+   /**
+    * The latest snapshot request these aggregates answer, see {@link RemoteAggregation#snapshot}.
+    */
+   long marker() {
+      return marker;
+   }
+
+   @Override
+   public String toString() {
+      return "Aggregates{" + "count=" + count + ", min=" + min + ", max=" + max
+            + ", average=" + average() + ", weightedAverage=" + weightedAverage() + '}';
+   }
+
+}
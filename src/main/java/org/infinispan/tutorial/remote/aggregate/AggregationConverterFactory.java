@@ -0,0 +1,38 @@
+package org.infinispan.tutorial.remote.aggregate;
+
+import org.infinispan.metadata.Metadata;
+import org.infinispan.notifications.cachelistener.filter.CacheEventConverter;
+import org.infinispan.notifications.cachelistener.filter.CacheEventConverterFactory;
+import org.infinispan.notifications.cachelistener.filter.EventType;
+import org.infinispan.notifications.cachelistener.filter.NamedFactory;
+
+/**
+ * Converter factory for aggregation listeners. For every event let through
+ * by the {@link AggregationFilterFactory} filter, the converter ships the
+ * aggregates of the whole cache instead of the modified entry.
+ */
+@NamedFactory(name = AggregationConverterFactory.NAME)
+public class AggregationConverterFactory implements CacheEventConverterFactory {
+
+   public static final String NAME = "aggregation-converter-factory";
+
+   @Override
+   public CacheEventConverter<Object, Object, Aggregates> getConverter(Object[] params) {
+      return new AggregationConverter(Aggregator.forListener(params));
+   }
+
+   static class AggregationConverter implements CacheEventConverter<Object, Object, Aggregates> {
+      private final Aggregator aggregator;
+
+      AggregationConverter(Aggregator aggregator) {
+         this.aggregator = aggregator;
+      }
+
+      @Override
+      public Aggregates convert(Object key, Object oldValue, Metadata oldMetadata,
+            Object newValue, Metadata newMetadata, EventType eventType) {
+         return aggregator.snapshot();
+      }
+   }
+
+}
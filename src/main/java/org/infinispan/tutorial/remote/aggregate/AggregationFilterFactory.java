@@ -0,0 +1,62 @@
+package org.infinispan.tutorial.remote.aggregate;
+
+import org.infinispan.metadata.Metadata;
+import org.infinispan.notifications.cachelistener.event.Event;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilter;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilterFactory;
+import org.infinispan.notifications.cachelistener.filter.EventType;
+import org.infinispan.notifications.cachelistener.filter.NamedFactory;
+
+/**
+ * Filter factory for aggregation listeners. On the aggregated cache, the
+ * filter folds each modification into the listener's aggregates, and on the
+ * control cache it handles requests for them. Either way it only lets
+ * through the events for which the {@link AggregationConverterFactory}
+ * converter should ship the aggregates as {@link Aggregates}.
+ */
+@NamedFactory(name = AggregationFilterFactory.NAME)
+public class AggregationFilterFactory implements CacheEventFilterFactory {
+
+   public static final String NAME = "aggregation-filter-factory";
+
+   @Override
+   public CacheEventFilter<Object, Object> getFilter(Object[] params) {
+      return new AggregationFilter(Aggregator.forListener(params), Aggregator.isControl(params));
+   }
+
+   static class AggregationFilter implements CacheEventFilter<Object, Object> {
+      private final Aggregator aggregator;
+      private final boolean control;
+
+      AggregationFilter(Aggregator aggregator, boolean control) {
+         this.aggregator = aggregator;
+         this.control = control;
+      }
+
+      @Override
+      public boolean accept(Object key, Object oldValue, Metadata oldMetadata,
+            Object newValue, Metadata newMetadata, EventType eventType) {
+         // Remote listeners are only sent events after modifications are applied
+         if (eventType.isPreEvent())
+            return false;
+
+         if (control) {
+            // Requests are written, their expiry and removal are not requests
+            boolean removed = eventType.getType() == Event.Type.CACHE_ENTRY_REMOVED;
+            return !removed && aggregator.request(key, newValue);
+         }
+
+         switch (eventType.getType()) {
+            case CACHE_ENTRY_CREATED:
+               return aggregator.offer(key, null, newValue);
+            case CACHE_ENTRY_MODIFIED:
+               return aggregator.offer(key, oldValue, newValue);
+            case CACHE_ENTRY_REMOVED:
+               return aggregator.offer(key, oldValue, null);
+            default:
+               return false;
+         }
+      }
+   }
+
+}
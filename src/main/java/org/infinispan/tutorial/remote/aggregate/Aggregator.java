@@ -0,0 +1,126 @@
+package org.infinispan.tutorial.remote.aggregate;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Server side state of an aggregation, shared by the filters and converters
+ * created for its listeners on the aggregated cache and on the control
+ * cache. The data filter folds every modification into running aggregates,
+ * replacing the previous value of modified and removed entries, and only
+ * lets through at most one event per interval. The control filter lets
+ * through snapshot and refresh requests, and the converters then ship the
+ * aggregates so far. A refresh is only answered if modifications were
+ * folded since the last shipped aggregates, which would otherwise only be
+ * shipped with the next modification after the interval.
+ *
+ * Entries present when the listener is added are replayed to the filter as
+ * creations, so the aggregates cover the whole cache. Each node of a cluster
+ * aggregates the modifications it notifies on its own, shipping aggregates
+ * tagged with its own id for the client to merge.
+ */
+final class Aggregator {
+
+   // Filter and converter instances hold their aggregator, so once a listener
+   // is removed and those instances are collected, its aggregator goes too
+   private static final Map<String, WeakReference<Aggregator>> AGGREGATORS = new HashMap<>();
+
+   static final String SNAPSHOT = "aggregation-snapshot";
+   static final String REFRESH = "aggregation-refresh";
+
+   private final String source = UUID.randomUUID().toString();
+   private final String snapshotKey;
+   private final String refreshKey;
+   private final long intervalMillis;
+
+   // Guarded by this
+   private final RunningAggregates aggregates = new RunningAggregates();
+   private long marker;
+   private long lastShipped;
+   private boolean pending;
+
+   Aggregator(String listenerId, long intervalMillis) {
+      this.snapshotKey = SNAPSHOT + ":" + listenerId;
+      this.refreshKey = REFRESH + ":" + listenerId;
+      this.intervalMillis = intervalMillis;
+   }
+
+   /**
+    * Returns the aggregator for the listener identified in the parameters
+    * built by {@link RemoteAggregation}, creating it if necessary.
+    */
+   static synchronized Aggregator forListener(Object[] params) {
+      if (params == null || params.length != 3)
+         throw new IllegalArgumentException("Expected listener id, interval and control flag as parameters");
+
+      // Drop aggregators of listeners that are gone
+      Iterator<WeakReference<Aggregator>> it = AGGREGATORS.values().iterator();
+      while (it.hasNext()) {
+         if (it.next().get() == null)
+            it.remove();
+      }
+
+      String listenerId = (String) params[0];
+      WeakReference<Aggregator> ref = AGGREGATORS.get(listenerId);
+      Aggregator aggregator = ref == null ? null : ref.get();
+      if (aggregator == null) {
+         aggregator = new Aggregator(listenerId, ((Number) params[1]).longValue());
+         AGGREGATORS.put(listenerId, new WeakReference<>(aggregator));
+      }
+      return aggregator;
+   }
+
+   /**
+    * Folds a modification into the aggregates, and returns whether they
+    * should be shipped now. The previous value is removed from the aggregates
+    * and the new one, which is null for removals, added.
+    */
+   synchronized boolean offer(Object key, Object oldValue, Object newValue) {
+      boolean changed = aggregates.remove(oldValue) | aggregates.add(newValue);
+      long now = System.currentTimeMillis();
+      if (!changed)
+         return false;
+      if (now - lastShipped < intervalMillis) {
+         pending = true;
+         return false;
+      }
+      return ship(now);
+   }
+
+   /**
+    * Handles a write to the control cache, and returns whether the
+    * aggregates should be shipped now to answer it.
+    */
+   synchronized boolean request(Object key, Object value) {
+      // Snapshot requests of this aggregation are always answered, refreshes only
+      // if anything is pending, and requests of other aggregations ignored
+      if (!(value instanceof Long))
+         return false;
+      if (snapshotKey.equals(key))
+         marker = (Long) value;
+      else if (!refreshKey.equals(key) || !pending)
+         return false;
+      return ship(System.currentTimeMillis());
+   }
+
+   /**
+    * Whether the parameters are those of the listener on the control cache.
+    */
+   static boolean isControl(Object[] params) {
+      return Boolean.TRUE.equals(params[2]);
+   }
+
+   synchronized Aggregates snapshot() {
+      return aggregates.snapshot(source, marker);
+   }
+
+   private boolean ship(long now) {
+      lastShipped = now;
+      pending = false;
+      return true;
+   }
+
+}
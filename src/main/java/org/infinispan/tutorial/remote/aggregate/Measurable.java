@@ -0,0 +1,20 @@
+package org.infinispan.tutorial.remote.aggregate;
+
+/**
+ * A value which server side aggregations can summarize, such as a quote or
+ * a trade. Values of any other type are ignored by aggregations.
+ */
+public interface Measurable {
+
+   /**
+    * The measured quantity, e.g. a price.
+    */
+   double measure();
+
+   /**
+    * Weight of the measure in weighted averages, e.g. a traded volume for
+    * a volume weighted average price, or one for a plain average.
+    */
+   double weight();
+
+}
@@ -0,0 +1,207 @@
+package org.infinispan.tutorial.remote.aggregate;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryCreated;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryModified;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryRemoved;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.event.ClientCacheEntryCustomEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregates the {@link Measurable} values of a remote cache on the server,
+ * where the {@link AggregationFilterFactory} and
+ * {@link AggregationConverterFactory} must be deployed, so that only small
+ * {@link Aggregates} travel to the client instead of every entry.
+ *
+ * Aggregates are kept up to date as the cache is modified, and pushed to the
+ * client at most once per interval. Modifications folded within an interval
+ * are only pushed with the next modification after it, unless a scheduler is
+ * given to ask for them once per interval. {@link #snapshot} asks for
+ * aggregates covering every modification made so far.
+ *
+ * Both requests write a short lived entry into a separate control cache,
+ * never into the aggregated cache, so readers of the data only ever see
+ * their own entries. A second listener, on the control cache, shares the
+ * server side state of the aggregation and answers requests with the
+ * current aggregates. The control cache must be a different cache of the
+ * same server, and can be shared by any number of aggregations.
+ *
+ * Each node of a cluster aggregates the modifications it notifies, and the
+ * client merges the latest aggregates of each node. A request is answered
+ * by the node notifying it only though, and existing entries are replayed
+ * by the node the listener is added to, so exact aggregates need local
+ * caches.
+ */
+public class RemoteAggregation implements AutoCloseable {
+
+   /**
+    * Lifespan of request entries in the control cache, long enough for the
+    * write to be notified, so that none are left behind by crashed clients.
+    */
+   static final long REQUEST_LIFESPAN_SECONDS = 60;
+
+   private final RemoteCache<Object, Object> cache;
+   private final RemoteCache<Object, Object> controlCache;
+   private final String snapshotKey;
+   private final String refreshKey;
+   private final AggregationListener listener = new AggregationListener();
+   private final ControlListener controlListener = new ControlListener();
+   private final AtomicLong snapshots = new AtomicLong();
+   private final ScheduledFuture<?> refresher;
+
+   // Guarded by lock, the latest aggregates of each node and their merge
+   private final Object lock = new Object();
+   private final Map<String, Aggregates> partials = new HashMap<>();
+   private Aggregates latest = Aggregates.EMPTY;
+
+   /**
+    * Starts aggregating the given cache, pushing aggregates as the cache is
+    * modified no more often than the given interval, and writing requests
+    * to the given control cache.
+    */
+   public RemoteAggregation(RemoteCache<?, ?> cache, RemoteCache<?, ?> controlCache, long interval, TimeUnit unit) {
+      this(cache, controlCache, interval, unit, null);
+   }
+
+   /**
+    * Starts aggregating the given cache, pushing aggregates as the cache is
+    * modified no more often than the given interval, writing requests to the
+    * given control cache, and using the given scheduler, unless null, to ask
+    * for modifications not pushed yet once per interval.
+    */
+   @SuppressWarnings("unchecked")
+   public RemoteAggregation(RemoteCache<?, ?> cache, RemoteCache<?, ?> controlCache, long interval, TimeUnit unit,
+         ScheduledExecutorService scheduler) {
+      if (String.valueOf(cache.getName()).equals(String.valueOf(controlCache.getName())))
+         throw new IllegalArgumentException("The control cache must not be the aggregated cache: " + cache.getName());
+
+      this.cache = (RemoteCache<Object, Object>) cache;
+      this.controlCache = (RemoteCache<Object, Object>) controlCache;
+
+      // Random id linking the filter and converter instances created for both listeners
+      String listenerId = UUID.randomUUID().toString();
+      this.snapshotKey = Aggregator.SNAPSHOT + ":" + listenerId;
+      this.refreshKey = Aggregator.REFRESH + ":" + listenerId;
+      long intervalMillis = unit.toMillis(interval);
+      Object[] params = {listenerId, intervalMillis, false};
+      Object[] controlParams = {listenerId, intervalMillis, true};
+      this.controlCache.addClientListener(controlListener, controlParams, controlParams);
+      this.cache.addClientListener(listener, params, params);
+
+      this.refresher = scheduler == null ? null : scheduler.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            request(refreshKey, System.currentTimeMillis());
+         }
+      }, interval, interval, unit);
+   }
+
+   /**
+    * The latest aggregates pushed by the server, which might not reflect
+    * the most recent modifications.
+    */
+   public Aggregates latest() {
+      synchronized (lock) {
+         return latest;
+      }
+   }
+
+   /**
+    * Returns aggregates reflecting all modifications made before the call,
+    * waiting for the server to answer for at most the given time.
+    */
+   public Aggregates snapshot(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+      long marker = snapshots.incrementAndGet();
+      request(snapshotKey, marker);
+
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      synchronized (lock) {
+         while (latest.marker() < marker) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+               throw new TimeoutException("No aggregates received within " + timeout + " " + unit);
+            TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+         }
+         return latest;
+      }
+   }
+
+   /**
+    * Stops aggregating, and removes the request entries from the control
+    * cache rather than waiting for them to expire.
+    */
+   @Override
+   public void close() {
+      if (refresher != null)
+         refresher.cancel(false);
+      cache.removeClientListener(listener);
+      controlCache.removeClientListener(controlListener);
+      if (snapshots.get() > 0)
+         controlCache.remove(snapshotKey);
+      if (refresher != null)
+         controlCache.remove(refreshKey);
+   }
+
+   private void request(String key, long value) {
+      controlCache.put(key, value, REQUEST_LIFESPAN_SECONDS, TimeUnit.SECONDS);
+   }
+
+   private void update(Aggregates aggregates) {
+      synchronized (lock) {
+         partials.put(aggregates.source(), aggregates);
+         latest = partials.size() == 1 ? aggregates : Aggregates.merge(partials.values());
+         lock.notifyAll();
+      }
+   }
+
+   // Link up client listener with associated filter and converter factories, replaying existing entries
+   @ClientListener(filterFactoryName = AggregationFilterFactory.NAME,
+         converterFactoryName = AggregationConverterFactory.NAME, includeCurrentState = true)
+   public class AggregationListener {
+
+      // Whatever the type of event, the custom event contains the aggregates of the whole cache
+
+      @ClientCacheEntryCreated
+      public void createdEntry(ClientCacheEntryCustomEvent<Aggregates> event) {
+         update(event.getEventData());
+      }
+
+      @ClientCacheEntryModified
+      public void modifiedEntry(ClientCacheEntryCustomEvent<Aggregates> event) {
+         update(event.getEventData());
+      }
+
+      @ClientCacheEntryRemoved
+      public void removedEntry(ClientCacheEntryCustomEvent<Aggregates> event) {
+         update(event.getEventData());
+      }
+   }
+
+   // Link up client listener on the control cache with the same factories, answering requests
+   @ClientListener(filterFactoryName = AggregationFilterFactory.NAME,
+         converterFactoryName = AggregationConverterFactory.NAME)
+   public class ControlListener {
+
+      // Requests are always written, so answers arrive as created or modified entries
+
+      @ClientCacheEntryCreated
+      public void createdEntry(ClientCacheEntryCustomEvent<Aggregates> event) {
+         update(event.getEventData());
+      }
+
+      @ClientCacheEntryModified
+      public void modifiedEntry(ClientCacheEntryCustomEvent<Aggregates> event) {
+         update(event.getEventData());
+      }
+   }
+
+}
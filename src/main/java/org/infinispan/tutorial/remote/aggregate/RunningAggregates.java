@@ -0,0 +1,83 @@
+package org.infinispan.tutorial.remote.aggregate;
+
+import java.util.TreeMap;
+
+/**
+ * Aggregates of a changing set of {@link Measurable} values, updated as
+ * values are added and removed. Minimum and maximum are kept in an ordered
+ * count of values per measure, so that both updates and removals take
+ * logarithmic time. Values of any other type are ignored.
+ *
+ * Not thread safe, callers are expected to synchronize access.
+ */
+public final class RunningAggregates {
+
+   private long count;
+   private double sum;
+   private double weightedSum;
+   private double totalWeight;
+   // Number of values per measure, so that minimum and maximum survive removals
+   private final TreeMap<Double, Integer> measures = new TreeMap<>();
+
+   /**
+    * Adds a value, returning false if it is not {@link Measurable}.
+    */
+   public boolean add(Object value) {
+      if (!(value instanceof Measurable))
+         return false;
+
+      Measurable m = (Measurable) value;
+      double measure = m.measure();
+      Integer n = measures.get(measure);
+      measures.put(measure, n == null ? 1 : n + 1);
+      count++;
+      sum += measure;
+      weightedSum += measure * m.weight();
+      totalWeight += m.weight();
+      return true;
+   }
+
+   /**
+    * Removes a value previously added, returning false if it was not.
+    */
+   public boolean remove(Object value) {
+      if (!(value instanceof Measurable))
+         return false;
+
+      Measurable m = (Measurable) value;
+      double measure = m.measure();
+      Integer n = measures.get(measure);
+      if (n == null)
+         return false;
+
+      if (n == 1)
+         measures.remove(measure);
+      else
+         measures.put(measure, n - 1);
+      count--;
+      sum -= measure;
+      weightedSum -= measure * m.weight();
+      totalWeight -= m.weight();
+      if (count == 0) {
+         // Start afresh rather than keep rounding errors around
+         sum = weightedSum = totalWeight = 0;
+      }
+      return true;
+   }
+
+   public long count() {
+      return count;
+   }
+
+   public Aggregates snapshot() {
+      return snapshot(null, 0);
+   }
+
+   Aggregates snapshot(String source, long marker) {
+      if (count == 0)
+         return new Aggregates(0, Double.NaN, Double.NaN, 0, 0, 0, source, marker);
+      return new Aggregates(count, measures.firstKey(), measures.lastKey(), sum, weightedSum, totalWeight,
+            source, marker);
+   }
+
+}
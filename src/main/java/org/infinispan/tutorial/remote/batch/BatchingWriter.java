@@ -0,0 +1,182 @@
+package org.infinispan.tutorial.remote.batch;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+import org.infinispan.tutorial.remote.concurrent.NotifyingFutureTask;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers writes to a remote cache and sends them in bulk with a single
+ * {@code putAll} call, instead of paying a network round trip per entry.
+ *
+ * A batch is sent once it reaches the maximum size, or when the maximum
+ * delay elapses, whichever comes first. Repeated writes to the same key
+ * within a batch are merged, the last one wins. Each write returns a future
+ * that completes once the batch containing it has been stored. Once closed,
+ * the writer rejects further writes.
+ */
+public class BatchingWriter<K, V> implements AutoCloseable {
+
+   private final RemoteCache<K, V> cache;
+   private final int maxBatchSize;
+   private final ScheduledFuture<?> flusher;
+
+   // Guarded by this writer's monitor
+   private Map<K, PendingWrite<V>> pending = new LinkedHashMap<>();
+   private boolean closed;
+
+   // Batches are sent one at a time so that a later write to a key never
+   // lands before an earlier one sent in a different batch
+   private final Object flushLock = new Object();
+
+   private final AtomicLong batches = new AtomicLong();
+   private final AtomicLong written = new AtomicLong();
+   private final AtomicLong coalesced = new AtomicLong();
+
+   public BatchingWriter(RemoteCache<K, V> cache, int maxBatchSize,
+         ScheduledExecutorService scheduler, long maxDelay, TimeUnit unit) {
+      if (maxBatchSize < 1)
+         throw new IllegalArgumentException("Batch size must be at least 1");
+
+      this.cache = cache;
+      this.maxBatchSize = maxBatchSize;
+      this.flusher = scheduler.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            flush();
+         }
+      }, maxDelay, maxDelay, unit);
+   }
+
+   /**
+    * Queues a write. If the batch is full, it is sent from the calling thread.
+    *
+    * @return a future that completes once the entry has been stored remotely
+    * @throws IllegalStateException if the writer is closed, as nothing would send the write
+    */
+   public NotifyingFuture<Void> put(K key, V value) {
+      NotifyingFutureTask<Void> future = new NotifyingFutureTask<>();
+      boolean full;
+      synchronized (this) {
+         if (closed)
+            throw new IllegalStateException("Writer is closed");
+
+         PendingWrite<V> write = pending.get(key);
+         if (write == null) {
+            pending.put(key, new PendingWrite<>(value, future));
+         } else {
+            // Last write wins, but everyone waiting is notified when it is stored
+            write.value = value;
+            write.futures.add(future);
+            coalesced.incrementAndGet();
+         }
+         full = pending.size() >= maxBatchSize;
+      }
+
+      if (full)
+         flush();
+
+      return future;
+   }
+
+   /**
+    * Sends all buffered writes now.
+    */
+   public void flush() {
+      synchronized (flushLock) {
+         Map<K, PendingWrite<V>> batch;
+         synchronized (this) {
+            if (pending.isEmpty())
+               return;
+
+            batch = pending;
+            pending = new LinkedHashMap<>();
+         }
+
+         Map<K, V> entries = new LinkedHashMap<>(batch.size() * 2);
+         for (Map.Entry<K, PendingWrite<V>> e : batch.entrySet())
+            entries.put(e.getKey(), e.getValue().value);
+
+         try {
+            cache.putAll(entries);
+         } catch (RuntimeException e) {
+            for (PendingWrite<V> write : batch.values())
+               write.fail(e);
+            return;
+         }
+
+         batches.incrementAndGet();
+         written.addAndGet(entries.size());
+         for (PendingWrite<V> write : batch.values())
+            write.complete();
+      }
+   }
+
+   /**
+    * Number of batches sent.
+    */
+   public long batches() {
+      return batches.get();
+   }
+
+   /**
+    * Number of entries sent, after merging repeated writes.
+    */
+   public long written() {
+      return written.get();
+   }
+
+   /**
+    * Number of writes merged into a previous write to the same key.
+    */
+   public long coalesced() {
+      return coalesced.get();
+   }
+
+   /**
+    * Stops periodic flushing and sends any buffered writes. Writes queued
+    * before closing are sent, later ones are rejected.
+    */
+   @Override
+   public void close() {
+      synchronized (this) {
+         closed = true;
+      }
+      flusher.cancel(false);
+      flush();
+   }
+
+   @Override
+   public String toString() {
+      return "BatchingWriter{" + "batches=" + batches + ", written=" + written + ", coalesced=" + coalesced + '}';
+   }
+
+   private static final class PendingWrite<V> {
+      V value;
+      final List<NotifyingFutureTask<Void>> futures = new ArrayList<>(1);
+
+      PendingWrite(V value, NotifyingFutureTask<Void> future) {
+         this.value = value;
+         this.futures.add(future);
+      }
+
+      void complete() {
+         for (NotifyingFutureTask<Void> future : futures)
+            future.complete(null);
+      }
+
+      void fail(Throwable t) {
+         for (NotifyingFutureTask<Void> future : futures)
+            future.completeExceptionally(t);
+      }
+   }
+
+}
@@ -0,0 +1,14 @@
+package org.infinispan.tutorial.remote.batch;
+
+/**
+ * Receives entries found by an {@link EntryScanner}. It is called from
+ * several threads concurrently, so implementations must be thread safe.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public interface EntryConsumer<K, V> {
+
+   void accept(K key, V value);
+
+}
@@ -0,0 +1,143 @@
+package org.infinispan.tutorial.remote.batch;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scans all entries of a remote cache, avoiding a sequential network round
+ * trip per entry as in the {@code keySet()} plus {@code get()} loop shown in
+ * {@code RemoteCompatibilityIT}.
+ *
+ * Keys are retrieved once, then split into batches. Each batch is a fork-join
+ * task which sends the reads for all of its keys at once, before waiting for
+ * any reply, so that batches are limited by bandwidth rather than latency.
+ * Waiting goes through a {@link ForkJoinPool.ManagedBlocker}, so the pool
+ * may add threads while workers wait, and other tasks of the pool are not
+ * starved by a scan.
+ *
+ * Up to parallelism batches, so {@code batchSize * parallelism} reads, are
+ * sent at once. Reads are {@link RemoteCache#getAsync} calls though, each
+ * running a blocking read on the client's fixed size async executor, so at
+ * most as many reads as that executor has threads are on the wire at any
+ * time (10 unless {@code infinispan.client.hotrod.default_executor_factory.pool_size}
+ * says otherwise), and no more than the connection pool allows; the others
+ * queue in the client.
+ */
+public class EntryScanner<K, V> {
+
+   private final RemoteCache<K, V> cache;
+   private final int batchSize;
+   private final ForkJoinPool pool;
+
+   /**
+    * @param batchSize number of reads sent together
+    * @param pool pool running batches; its parallelism bounds the number of batches sent at once
+    */
+   public EntryScanner(RemoteCache<K, V> cache, int batchSize, ForkJoinPool pool) {
+      if (batchSize < 1)
+         throw new IllegalArgumentException("Batch size must be at least 1");
+
+      this.cache = cache;
+      this.batchSize = batchSize;
+      this.pool = pool;
+   }
+
+   /**
+    * Passes every entry to the consumer. Entries removed after keys have been
+    * retrieved are skipped, and entries added afterwards are not seen.
+    *
+    * @return the number of entries passed to the consumer
+    */
+   public long scan(EntryConsumer<K, V> consumer) {
+      List<K> keys = new ArrayList<>(cache.keySet());
+      return pool.invoke(new ScanTask(keys, 0, keys.size(), consumer));
+   }
+
+   final class ScanTask extends RecursiveTask<Long> {
+      final List<K> keys;
+      final int from;
+      final int to;
+      final EntryConsumer<K, V> consumer;
+
+      ScanTask(List<K> keys, int from, int to, EntryConsumer<K, V> consumer) {
+         this.keys = keys;
+         this.from = from;
+         this.to = to;
+         this.consumer = consumer;
+      }
+
+      @Override
+      protected Long compute() {
+         if (to - from <= batchSize)
+            return scanBatch();
+
+         // Split in halves aligned to batch boundaries
+         int batches = (to - from + batchSize - 1) / batchSize;
+         int middle = from + (batches / 2) * batchSize;
+         ScanTask left = new ScanTask(keys, from, middle, consumer);
+         ScanTask right = new ScanTask(keys, middle, to, consumer);
+         left.fork();
+         return right.compute() + left.join();
+      }
+
+      private long scanBatch() {
+         // Send all reads in the batch before waiting for any reply
+         List<NotifyingFuture<V>> values = new ArrayList<>(to - from);
+         for (int i = from; i < to; i++)
+            values.add(cache.getAsync(keys.get(i)));
+
+         long count = 0;
+         for (int i = from; i < to; i++) {
+            V value = await(values.get(i - from));
+            if (value != null) {
+               consumer.accept(keys.get(i), value);
+               count++;
+            }
+         }
+         return count;
+      }
+   }
+
+   private static <T> T await(NotifyingFuture<T> future) {
+      try {
+         // Let the pool compensate for the blocked worker, then read the completed future
+         ForkJoinPool.managedBlock(new FutureBlocker(future));
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException(e);
+      } catch (ExecutionException e) {
+         throw new IllegalStateException(e.getCause());
+      }
+   }
+
+   static final class FutureBlocker implements ForkJoinPool.ManagedBlocker {
+      private final NotifyingFuture<?> future;
+
+      FutureBlocker(NotifyingFuture<?> future) {
+         this.future = future;
+      }
+
+      @Override
+      public boolean block() throws InterruptedException {
+         try {
+            future.get();
+         } catch (ExecutionException e) {
+            // Rethrown when the caller reads the future
+         }
+         return true;
+      }
+
+      @Override
+      public boolean isReleasable() {
+         return future.isDone();
+      }
+   }
+
+}
@@ -0,0 +1,120 @@
+package org.infinispan.tutorial.remote.concurrent;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An asynchronous facade for the remote cache operations used in
+ * {@code RemoteConcurrencyIT}. Each operation returns straight away with a
+ * future, to which listeners can be attached to be notified on completion.
+ *
+ * Every operation runs the blocking call on the given executor, so the
+ * executor bounds the number of in-flight requests. The client's own
+ * asynchronous variants, such as {@link RemoteCache#getAsync}, are not used:
+ * they run the same blocking call on the client's fixed size async executor,
+ * which would cap in-flight requests at its size whatever executor is given
+ * here. Instead of a fixed thread pool, a {@link #virtualThreadExecutor()
+ * virtual thread per request} executor can be used on JVMs supporting it,
+ * and the number of open connections is then bounded by the client's
+ * connection pool configuration.
+ */
+public class AsyncRemoteCache<K, V> {
+
+   private final RemoteCache<K, V> cache;
+   private final ExecutorService executor;
+
+   public AsyncRemoteCache(RemoteCache<K, V> cache, ExecutorService executor) {
+      this.cache = cache;
+      this.executor = executor;
+   }
+
+   public NotifyingFuture<V> get(final K key) {
+      return submit(new Callable<V>() {
+         @Override
+         public V call() {
+            return cache.get(key);
+         }
+      });
+   }
+
+   public NotifyingFuture<V> put(final K key, final V value) {
+      return submit(new Callable<V>() {
+         @Override
+         public V call() {
+            return cache.put(key, value);
+         }
+      });
+   }
+
+   public NotifyingFuture<V> put(final K key, final V value, final long lifespan, final TimeUnit unit) {
+      return submit(new Callable<V>() {
+         @Override
+         public V call() {
+            return cache.put(key, value, lifespan, unit);
+         }
+      });
+   }
+
+   public NotifyingFuture<VersionedValue<V>> getVersioned(final K key) {
+      return submit(new Callable<VersionedValue<V>>() {
+         @Override
+         public VersionedValue<V> call() {
+            return cache.getVersioned(key);
+         }
+      });
+   }
+
+   public NotifyingFuture<Boolean> replaceWithVersion(final K key, final V newValue, final long version) {
+      return submit(new Callable<Boolean>() {
+         @Override
+         public Boolean call() {
+            return cache.replaceWithVersion(key, newValue, version);
+         }
+      });
+   }
+
+   public RemoteCache<K, V> remoteCache() {
+      return cache;
+   }
+
+   private <T> NotifyingFuture<T> submit(Callable<T> callable) {
+      NotifyingFutureTask<T> future = new NotifyingFutureTask<>(callable);
+      executor.execute(future);
+      return future;
+   }
+
+   /**
+    * Creates an executor that starts a new virtual thread for each operation.
+    *
+    * @throws UnsupportedOperationException if the running JVM does not support virtual threads
+    */
+   public static ExecutorService virtualThreadExecutor() {
+      try {
+         // Looked up reflectively, since virtual threads are not available on every supported JVM
+         return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (NoSuchMethodException e) {
+         throw new UnsupportedOperationException("Virtual threads are not supported by this JVM", e);
+      } catch (ReflectiveOperationException e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * Whether the running JVM supports {@link #virtualThreadExecutor()}.
+    */
+   public static boolean isVirtualThreadSupported() {
+      try {
+         Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+         return true;
+      } catch (NoSuchMethodException e) {
+         return false;
+      }
+   }
+
+}
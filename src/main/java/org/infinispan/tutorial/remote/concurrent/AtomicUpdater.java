@@ -0,0 +1,221 @@
+package org.infinispan.tutorial.remote.concurrent;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.VersionedValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies updates to remote entries atomically using the versioned
+ * compare-and-swap operations shown in {@code RemoteConcurrencyIT}.
+ *
+ * When a concurrent modification is detected, the update is retried after
+ * an exponentially growing, randomly jittered, pause. This spreads competing
+ * updaters apart instead of having all of them hammer the server at once.
+ * An optional retry budget bounds how long a single update can take.
+ *
+ * Contention is tracked across all keys, and per key so that hot keys can
+ * be spotted. Only the first keys updated, up to a limit, are tracked on
+ * their own, so that updating ever more keys does not grow the statistics
+ * without bound; {@link #resetStats()} starts tracking afresh.
+ */
+public class AtomicUpdater {
+
+   public static final int UNBOUNDED = -1;
+   public static final int DEFAULT_TRACKED_KEYS = 1024;
+
+   private final long initialBackoffNanos;
+   private final long maxBackoffNanos;
+   private final int maxRetries;
+   private final int maxTrackedKeys;
+   private final ConcurrentMap<Object, ContentionStats> stats = new ConcurrentHashMap<>();
+   private final AtomicInteger trackedKeys = new AtomicInteger();
+   private volatile ContentionStats total = new ContentionStats(null);
+
+   /**
+    * Creates an updater with no retry budget, backing off
+    * from 50 microseconds up to 10 milliseconds.
+    */
+   public AtomicUpdater() {
+      this(50, 10000, TimeUnit.MICROSECONDS, UNBOUNDED);
+   }
+
+   /**
+    * @param initialBackoff upper bound of the pause after the first conflict
+    * @param maxBackoff upper bound of the pause after any conflict
+    * @param unit time unit for backoff values
+    * @param maxRetries retry budget per update, or {@link #UNBOUNDED}
+    */
+   public AtomicUpdater(long initialBackoff, long maxBackoff, TimeUnit unit, int maxRetries) {
+      this(initialBackoff, maxBackoff, unit, maxRetries, DEFAULT_TRACKED_KEYS);
+   }
+
+   /**
+    * @param initialBackoff upper bound of the pause after the first conflict
+    * @param maxBackoff upper bound of the pause after any conflict
+    * @param unit time unit for backoff values
+    * @param maxRetries retry budget per update, or {@link #UNBOUNDED}
+    * @param maxTrackedKeys number of keys tracked on their own, 0 to only track all keys together
+    */
+   public AtomicUpdater(long initialBackoff, long maxBackoff, TimeUnit unit, int maxRetries, int maxTrackedKeys) {
+      if (maxTrackedKeys < 0)
+         throw new IllegalArgumentException("Expected a non negative number of tracked keys, got " + maxTrackedKeys);
+      this.initialBackoffNanos = unit.toNanos(initialBackoff);
+      this.maxBackoffNanos = unit.toNanos(maxBackoff);
+      this.maxRetries = maxRetries;
+      this.maxTrackedKeys = maxTrackedKeys;
+   }
+
+   /**
+    * Atomically replaces the value of the given key with the result of applying
+    * the function to its current value, retrying on concurrent modifications.
+    *
+    * @return the value stored, or null if the entry was removed
+    * @throws RetryBudgetExceededException if the update could not be applied within the retry budget
+    */
+   public <K, V> V atomicUpdate(RemoteCache<K, V> cache, K key, UpdateFunction<V> function) {
+      int retries = 0;
+      while (true) {
+         // Retrieve the current value along with the version identifying its state
+         VersionedValue<V> versioned = cache.getVersioned(key);
+         V current = versioned == null ? null : versioned.getValue();
+         V updated = function.apply(current);
+
+         if (apply(cache, key, versioned, updated)) {
+            record(key, retries, true);
+            return updated;
+         }
+
+         // A concurrent modification occurred in the mean time
+         if (maxRetries != UNBOUNDED && retries >= maxRetries) {
+            record(key, retries, false);
+            throw new RetryBudgetExceededException(key, retries);
+         }
+
+         backoff(retries++);
+      }
+   }
+
+   private <K, V> boolean apply(RemoteCache<K, V> cache, K key, VersionedValue<V> versioned, V updated) {
+      if (versioned == null) {
+         // Nothing to remove, or the initial value needs to be set atomically
+         return updated == null
+               || cache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(key, updated) == null;
+      }
+
+      long version = versioned.getVersion();
+      return updated == null
+            ? cache.removeWithVersion(key, version)
+            : cache.replaceWithVersion(key, updated, version);
+   }
+
+   private void backoff(int retries) {
+      // Exponential growth capped at the maximum, with full jitter
+      long ceiling = initialBackoffNanos << Math.min(retries, 30);
+      if (ceiling <= 0 || ceiling > maxBackoffNanos)
+         ceiling = maxBackoffNanos;
+      if (ceiling <= 0)
+         return;
+
+      long pause = ThreadLocalRandom.current().nextLong(ceiling + 1);
+      try {
+         TimeUnit.NANOSECONDS.sleep(pause);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while backing off", e);
+      }
+   }
+
+   private void record(Object key, int retries, boolean succeeded) {
+      total.record(retries, succeeded);
+      ContentionStats keyStats = statsFor(key);
+      if (keyStats != null)
+         keyStats.record(retries, succeeded);
+   }
+
+   private ContentionStats statsFor(Object key) {
+      ContentionStats keyStats = stats.get(key);
+      if (keyStats == null) {
+         // Claim a slot before tracking a new key, giving it back if the limit is reached
+         if (trackedKeys.incrementAndGet() > maxTrackedKeys) {
+            trackedKeys.decrementAndGet();
+            return null;
+         }
+         ContentionStats newStats = new ContentionStats(key);
+         keyStats = stats.putIfAbsent(key, newStats);
+         if (keyStats == null)
+            keyStats = newStats;
+         else
+            trackedKeys.decrementAndGet();
+      }
+      return keyStats;
+   }
+
+   /**
+    * Contention statistics for the given key, or null if it has never been
+    * updated or is not tracked on its own.
+    */
+   public ContentionStats stats(Object key) {
+      return stats.get(key);
+   }
+
+   /**
+    * Contention statistics across all keys, whose {@link ContentionStats#key()} is null.
+    */
+   public ContentionStats stats() {
+      return total;
+   }
+
+   /**
+    * Discards the statistics gathered so far, across all keys and per key,
+    * freeing the slots of tracked keys. Updates running meanwhile might be
+    * recorded in either the old or the new statistics.
+    */
+   public void resetStats() {
+      total = new ContentionStats(null);
+      for (Object key : stats.keySet()) {
+         if (stats.remove(key) != null)
+            trackedKeys.decrementAndGet();
+      }
+   }
+
+   /**
+    * Contention statistics for the tracked keys with the most conflicts, most contended first.
+    */
+   public List<ContentionStats> hottestKeys(int limit) {
+      List<ContentionStats> all = new ArrayList<>(stats.values());
+      Collections.sort(all, new Comparator<ContentionStats>() {
+         @Override
+         public int compare(ContentionStats o1, ContentionStats o2) {
+            return Long.compare(o2.conflicts(), o1.conflicts());
+         }
+      });
+      return all.subList(0, Math.min(limit, all.size()));
+   }
+
+   /**
+    * Total number of conflicts across all keys.
+    */
+   public long conflicts() {
+      return total.conflicts();
+   }
+
+   /**
+    * Thrown when an update cannot be applied within the configured retry budget.
+    */
+   public static class RetryBudgetExceededException extends IllegalStateException {
+      RetryBudgetExceededException(Object key, int retries) {
+         super(String.format("Unable to update '%s' after %d retries", key, retries));
+      }
+   }
+
+}
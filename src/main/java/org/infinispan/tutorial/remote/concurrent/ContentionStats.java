@@ -0,0 +1,104 @@
+package org.infinispan.tutorial.remote.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contention statistics for a single key, or for all keys together. Retries per update are recorded in
+ * a histogram with power of two buckets: 0, 1, 2-3, 4-7, 8-15 and so on.
+ */
+public final class ContentionStats {
+
+   static final int BUCKETS = 16;
+
+   private final Object key;
+   private final AtomicLong updates = new AtomicLong();
+   private final AtomicLong conflicts = new AtomicLong();
+   private final AtomicLong exhausted = new AtomicLong();
+   private final AtomicLongArray retryHistogram = new AtomicLongArray(BUCKETS);
+
+   ContentionStats(Object key) {
+      this.key = key;
+   }
+
+   void record(int retries, boolean succeeded) {
+      if (succeeded) updates.incrementAndGet(); else exhausted.incrementAndGet();
+      conflicts.addAndGet(retries);
+      retryHistogram.incrementAndGet(bucket(retries));
+   }
+
+   static int bucket(int retries) {
+      int bucket = 32 - Integer.numberOfLeadingZeros(retries);
+      return Math.min(bucket, BUCKETS - 1);
+   }
+
+   /**
+    * Smallest number of retries that falls in the given bucket.
+    */
+   public static int bucketLowerBound(int bucket) {
+      return bucket == 0 ? 0 : 1 << (bucket - 1);
+   }
+
+   /**
+    * The key these statistics are for, or null if for all keys.
+    */
+   public Object key() {
+      return key;
+   }
+
+   /**
+    * Number of updates that were applied successfully.
+    */
+   public long updates() {
+      return updates.get();
+   }
+
+   /**
+    * Number of compare-and-swap attempts that failed due to a concurrent modification.
+    */
+   public long conflicts() {
+      return conflicts.get();
+   }
+
+   /**
+    * Number of updates given up after exhausting the retry budget.
+    */
+   public long exhausted() {
+      return exhausted.get();
+   }
+
+   /**
+    * Snapshot of the retries per update histogram.
+    */
+   public long[] retryHistogram() {
+      long[] snapshot = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; i++)
+         snapshot[i] = retryHistogram.get(i);
+      return snapshot;
+   }
+
+   /**
+    * Upper bound of the retries needed by the given fraction of updates, e.g. 0.99.
+    */
+   public int retryPercentile(double percentile) {
+      long[] histogram = retryHistogram();
+      long total = 0;
+      for (long count : histogram) total += count;
+
+      long threshold = (long) Math.ceil(total * percentile);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         seen += histogram[i];
+         if (seen >= threshold && seen > 0)
+            return i == BUCKETS - 1 ? Integer.MAX_VALUE : Math.max(0, bucketLowerBound(i + 1) - 1);
+      }
+      return 0;
+   }
+
+   @Override
+   public String toString() {
+      return "ContentionStats{" + "key=" + key + ", updates=" + updates + ", conflicts=" + conflicts
+            + ", exhausted=" + exhausted + ", p99Retries=" + retryPercentile(0.99) + '}';
+   }
+
+}
@@ -0,0 +1,76 @@
+package org.infinispan.tutorial.remote.concurrent;
+
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A future whose completion can be listened to, so that callers never need
+ * to block waiting for results. It either runs a task, or is completed
+ * explicitly by whoever produces the result.
+ */
+public final class NotifyingFutureTask<T> extends FutureTask<T> implements NotifyingFuture<T> {
+
+   private static final Runnable NO_TASK = new Runnable() {
+      @Override
+      public void run() {
+         // Completed explicitly instead
+      }
+   };
+
+   private List<FutureListener<T>> listeners = new ArrayList<>(1);
+
+   /**
+    * Creates a future that completes when the given task is run.
+    */
+   public NotifyingFutureTask(Callable<T> callable) {
+      super(callable);
+   }
+
+   /**
+    * Creates a future that completes when {@link #complete(Object)} or
+    * {@link #completeExceptionally(Throwable)} is called.
+    */
+   public NotifyingFutureTask() {
+      super(NO_TASK, null);
+   }
+
+   public void complete(T value) {
+      set(value);
+   }
+
+   public void completeExceptionally(Throwable t) {
+      setException(t);
+   }
+
+   @Override
+   public NotifyingFuture<T> attachListener(FutureListener<T> listener) {
+      synchronized (this) {
+         if (listeners != null) {
+            listeners.add(listener);
+            return this;
+         }
+      }
+
+      // Already completed, notify straight away
+      listener.futureDone(this);
+      return this;
+   }
+
+   @Override
+   protected void done() {
+      List<FutureListener<T>> toNotify;
+      synchronized (this) {
+         toNotify = listeners;
+         listeners = null;
+      }
+
+      for (FutureListener<T> listener : toNotify)
+         listener.futureDone(this);
+   }
+
+}
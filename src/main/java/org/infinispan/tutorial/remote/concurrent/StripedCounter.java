@@ -0,0 +1,152 @@
+package org.infinispan.tutorial.remote.concurrent;
+
+import org.infinispan.client.hotrod.RemoteCache;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A distributed counter whose value is sharded across a number of stripes,
+ * each stored under its own key in the remote cache.
+ *
+ * Increments are accumulated locally and periodically pushed to a randomly
+ * chosen stripe as a single delta. This means that concurrent updaters,
+ * within this client or across clients, rarely compete for the same key,
+ * and that a burst of local increments costs a single compare-and-swap.
+ * Reading the counter sums the value of all stripes.
+ */
+public class StripedCounter implements AutoCloseable {
+
+   private final RemoteCache<String, Long> cache;
+   private final String[] stripeKeys;
+   private final AtomicLong pending = new AtomicLong();
+   private final AtomicLong flushes = new AtomicLong();
+   private final AtomicLong failures = new AtomicLong();
+   private final AtomicUpdater updater = new AtomicUpdater();
+   private final ScheduledFuture<?> flusher;
+
+   // Flushes run one at a time, and reads never overlap a flush, so that a
+   // delta taken from pending but not yet stored is never missed
+   private final Object flushLock = new Object();
+
+   public StripedCounter(RemoteCache<String, Long> cache, String name, int stripes,
+         ScheduledExecutorService scheduler, long flushInterval, TimeUnit unit) {
+      if (stripes < 1)
+         throw new IllegalArgumentException("At least one stripe is required");
+
+      this.cache = cache;
+      this.stripeKeys = new String[stripes];
+      for (int i = 0; i < stripes; i++)
+         stripeKeys[i] = name + "#" + i;
+
+      // Push locally accumulated increments in the background
+      this.flusher = scheduler.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               flush();
+            } catch (Exception e) {
+               // Keep flushing, the delta is pushed by the next flush
+               failures.incrementAndGet();
+            }
+         }
+      }, flushInterval, flushInterval, unit);
+   }
+
+   /**
+    * Increments the counter by one. No remote call is made.
+    */
+   public void increment() {
+      add(1);
+   }
+
+   /**
+    * Adds the given delta to the counter. No remote call is made.
+    */
+   public void add(long delta) {
+      pending.addAndGet(delta);
+   }
+
+   /**
+    * Returns the value of the counter, which is the sum of all stripes
+    * stored remotely plus any increments not yet flushed by this client.
+    * Waits for a flush in progress, so that its delta is counted once.
+    */
+   public long get() {
+      synchronized (flushLock) {
+         long sum = pending.get();
+         for (String key : stripeKeys) {
+            Long value = cache.get(key);
+            if (value != null)
+               sum += value;
+         }
+         return sum;
+      }
+   }
+
+   /**
+    * Pushes all locally accumulated increments to one of the stripes. If
+    * the push fails, the increments are kept for the next flush and the
+    * failure is thrown.
+    */
+   public void flush() {
+      synchronized (flushLock) {
+         final long delta = pending.getAndSet(0);
+         if (delta == 0)
+            return;
+
+         String key = stripeKeys[ThreadLocalRandom.current().nextInt(stripeKeys.length)];
+         try {
+            // Apply the whole batch of increments with a single compare-and-swap
+            updater.atomicUpdate(cache, key, new UpdateFunction<Long>() {
+               @Override
+               public Long apply(Long current) {
+                  return current == null ? delta : current + delta;
+               }
+            });
+         } catch (RuntimeException e) {
+            // Keep the delta so that it is pushed by a later flush
+            pending.addAndGet(delta);
+            throw e;
+         }
+
+         flushes.incrementAndGet();
+      }
+   }
+
+   /**
+    * Number of deltas successfully pushed to the remote cache.
+    */
+   public long flushes() {
+      return flushes.get();
+   }
+
+   /**
+    * Number of background flushes that failed, whose deltas were kept for
+    * the next flush.
+    */
+   public long failures() {
+      return failures.get();
+   }
+
+   /**
+    * Number of compare-and-swap attempts retried across all flushes.
+    */
+   public long retries() {
+      return updater.conflicts();
+   }
+
+   /**
+    * Stops background flushing and pushes any remaining local increments,
+    * after waiting for a background flush in progress to complete.
+    */
+   @Override
+   public void close() {
+      flusher.cancel(false);
+      flush();
+   }
+
+}
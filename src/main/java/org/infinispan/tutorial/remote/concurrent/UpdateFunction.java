@@ -0,0 +1,18 @@
+package org.infinispan.tutorial.remote.concurrent;
+
+/**
+ * Computes the new value of an entry from its current value. It may be
+ * invoked several times for a single update if concurrent modifications
+ * are detected, so it must not have side effects.
+ *
+ * @param <V> value type
+ */
+public interface UpdateFunction<V> {
+
+   /**
+    * @param current the current value, or null if there is no entry
+    * @return the new value, or null to remove the entry
+    */
+   V apply(V current);
+
+}
@@ -0,0 +1,83 @@
+package org.infinispan.tutorial.remote.event;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custom event shipped to coalescing listeners, holding the latest state of
+ * every key modified since the previous batch, instead of one event per
+ * modification. Removed keys are mapped to {@code null}.
+ *
+ * Windows close on time and size alone, without writing anything to the
+ * cache. The server can only ship a batch while notifying a modification, so
+ * a window is closed by the first modification notified once it has elapsed,
+ * which is part of the batch. A modification is thus delivered at most one
+ * window after it, plus the gap until the next modification of the cache.
+ * While the cache is modified steadily that gap is small, but the last batch
+ * before the cache goes quiet waits for the next modification, however late.
+ * Listeners that need every state within a bounded delay whatever the write
+ * rate should use a smaller maximum number of events or plain events.
+ */
+public final class CoalescedEvents implements Serializable {
+
+   private final LinkedHashMap<Object, Object> latest;
+   private final int events;
+   private final long firstEventTime;
+   private final long lastEventTime;
+
+   CoalescedEvents(LinkedHashMap<Object, Object> latest, int events, long firstEventTime, long lastEventTime) {
+      this.latest = latest;
+      this.events = events;
+      this.firstEventTime = firstEventTime;
+      this.lastEventTime = lastEventTime;
+   }
+
+   /**
+    * Builds the parameters to pass to both the filter and the converter
+    * factories when adding a coalescing listener. Events are shipped with
+    * the first modification after the window has elapsed, or once the given
+    * number of events has been reached, whichever comes first.
+    */
+   public static Object[] params(long window, TimeUnit unit, int maxEvents) {
+      // Random id linking the filter and converter instances created for the listener
+      return new Object[]{UUID.randomUUID().toString(), unit.toMillis(window), maxEvents};
+   }
+
+   /**
+    * Latest value of each key, or {@code null} if the key was removed.
+    */
+   public Map<Object, Object> latest() {
+      return Collections.unmodifiableMap(latest);
+   }
+
+   /**
+    * Number of modifications coalesced into this batch.
+    */
+   public int events() {
+      return events;
+   }
+
+   /**
+    * Server time, in milliseconds, of the oldest modification in this batch.
+    */
+   public long firstEventTime() {
+      return firstEventTime;
+   }
+
+   /**
+    * Server time, in milliseconds, of the newest modification in this batch.
+    */
+   public long lastEventTime() {
+      return lastEventTime;
+   }
+
+   @Override
+   public String toString() {
+      return "CoalescedEvents{" + "events=" + events + ", latest=" + latest + '}';
+   }
+
+}
@@ -0,0 +1,38 @@
+package org.infinispan.tutorial.remote.event;
+
+import org.infinispan.metadata.Metadata;
+import org.infinispan.notifications.cachelistener.filter.CacheEventConverter;
+import org.infinispan.notifications.cachelistener.filter.CacheEventConverterFactory;
+import org.infinispan.notifications.cachelistener.filter.EventType;
+import org.infinispan.notifications.cachelistener.filter.NamedFactory;
+
+/**
+ * Converter factory for coalescing listeners. For every event let through
+ * by the {@link CoalescingFilterFactory} filter, the converter ships the
+ * latest state of all keys modified during the window that just closed.
+ */
+@NamedFactory(name = CoalescingConverterFactory.NAME)
+public class CoalescingConverterFactory implements CacheEventConverterFactory {
+
+   public static final String NAME = "coalescing-converter-factory";
+
+   @Override
+   public CacheEventConverter<Object, Object, CoalescedEvents> getConverter(Object[] params) {
+      return new CoalescingConverter(EventCoalescer.forListener(params));
+   }
+
+   static class CoalescingConverter implements CacheEventConverter<Object, Object, CoalescedEvents> {
+      private final EventCoalescer coalescer;
+
+      CoalescingConverter(EventCoalescer coalescer) {
+         this.coalescer = coalescer;
+      }
+
+      @Override
+      public CoalescedEvents convert(Object key, Object oldValue, Metadata oldMetadata,
+            Object newValue, Metadata newMetadata, EventType eventType) {
+         return coalescer.drain();
+      }
+   }
+
+}
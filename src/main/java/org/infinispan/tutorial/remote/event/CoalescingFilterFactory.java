@@ -0,0 +1,44 @@
+package org.infinispan.tutorial.remote.event;
+
+import org.infinispan.metadata.Metadata;
+import org.infinispan.notifications.cachelistener.event.Event;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilter;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilterFactory;
+import org.infinispan.notifications.cachelistener.filter.EventType;
+import org.infinispan.notifications.cachelistener.filter.NamedFactory;
+
+/**
+ * Filter factory for coalescing listeners. The filter records each
+ * modification and only lets through those closing a window, for which the
+ * {@link CoalescingConverterFactory} converter ships a {@link CoalescedEvents}.
+ */
+@NamedFactory(name = CoalescingFilterFactory.NAME)
+public class CoalescingFilterFactory implements CacheEventFilterFactory {
+
+   public static final String NAME = "coalescing-filter-factory";
+
+   @Override
+   public CacheEventFilter<Object, Object> getFilter(Object[] params) {
+      return new CoalescingFilter(EventCoalescer.forListener(params));
+   }
+
+   static class CoalescingFilter implements CacheEventFilter<Object, Object> {
+      private final EventCoalescer coalescer;
+
+      CoalescingFilter(EventCoalescer coalescer) {
+         this.coalescer = coalescer;
+      }
+
+      @Override
+      public boolean accept(Object key, Object oldValue, Metadata oldMetadata,
+            Object newValue, Metadata newMetadata, EventType eventType) {
+         // Remote listeners are only sent events after modifications are applied
+         if (eventType.isPreEvent())
+            return false;
+
+         boolean removed = eventType.getType() == Event.Type.CACHE_ENTRY_REMOVED;
+         return coalescer.offer(key, removed ? null : newValue);
+      }
+   }
+
+}
@@ -0,0 +1,77 @@
+package org.infinispan.tutorial.remote.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client side statistics of a coalescing listener: how many modifications
+ * each delivered event stands for, and how long modifications took to be
+ * delivered. Latencies compare server and client clocks, so they are only
+ * accurate when both are in sync, e.g. when running on the same host.
+ */
+public class CoalescingStats {
+
+   private final AtomicLong batches = new AtomicLong();
+   private final AtomicLong events = new AtomicLong();
+   private final AtomicLong keys = new AtomicLong();
+   private final AtomicLong latencySum = new AtomicLong();
+   private final AtomicLong maxLatency = new AtomicLong();
+
+   /**
+    * Records a delivered batch, returning the delivery latency in
+    * milliseconds of its oldest modification.
+    */
+   public long record(CoalescedEvents batch) {
+      long latency = Math.max(0, System.currentTimeMillis() - batch.firstEventTime());
+      batches.incrementAndGet();
+      events.addAndGet(batch.events());
+      keys.addAndGet(batch.latest().size());
+      latencySum.addAndGet(latency);
+
+      long max;
+      while (latency > (max = maxLatency.get()) && !maxLatency.compareAndSet(max, latency)) {
+         // Retry until the maximum is at least this latency
+      }
+      return latency;
+   }
+
+   public long batches() {
+      return batches.get();
+   }
+
+   public long events() {
+      return events.get();
+   }
+
+   /**
+    * Modifications per delivered event, 1 meaning nothing was coalesced.
+    */
+   public double reductionRatio() {
+      long b = batches.get();
+      return b == 0 ? 0 : (double) events.get() / b;
+   }
+
+   /**
+    * Average number of distinct keys per delivered event.
+    */
+   public double keysPerBatch() {
+      long b = batches.get();
+      return b == 0 ? 0 : (double) keys.get() / b;
+   }
+
+   public double averageLatencyMillis() {
+      long b = batches.get();
+      return b == 0 ? 0 : (double) latencySum.get() / b;
+   }
+
+   public long maxLatencyMillis() {
+      return maxLatency.get();
+   }
+
+   @Override
+   public String toString() {
+      return String.format("CoalescingStats{batches=%d, events=%d, reductionRatio=%.1f, keysPerBatch=%.1f, " +
+            "averageLatencyMillis=%.1f, maxLatencyMillis=%d}", batches(), events(), reductionRatio(),
+            keysPerBatch(), averageLatencyMillis(), maxLatencyMillis());
+   }
+
+}
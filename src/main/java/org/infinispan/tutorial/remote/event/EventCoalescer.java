@@ -0,0 +1,100 @@
+package org.infinispan.tutorial.remote.event;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Server side state of a coalescing listener, shared by the filter and the
+ * converter created for it. The filter records every modification and only
+ * lets through the one closing the window, and the converter then ships the
+ * state recorded so far.
+ *
+ * The server only notifies listeners while executing a write, so a window
+ * that elapses is closed by the next modification, see
+ * {@link CoalescedEvents} for the resulting delivery delay. Each node of a
+ * cluster coalesces the modifications it notifies on its own.
+ */
+final class EventCoalescer {
+
+   // Filter and converter instances hold their coalescer, so once a listener
+   // is removed and those instances are collected, its coalescer goes too
+   private static final Map<String, WeakReference<EventCoalescer>> COALESCERS = new HashMap<>();
+
+   private final long windowMillis;
+   private final int maxEvents;
+
+   // Guarded by this
+   private LinkedHashMap<Object, Object> latest = new LinkedHashMap<>();
+   private int events;
+   private long firstEventTime;
+   private long lastEventTime;
+   private boolean closing;
+
+   EventCoalescer(long windowMillis, int maxEvents) {
+      this.windowMillis = windowMillis;
+      this.maxEvents = maxEvents;
+   }
+
+   /**
+    * Returns the coalescer for the listener identified in the parameters
+    * built by {@link CoalescedEvents#params}, creating it if necessary.
+    */
+   static synchronized EventCoalescer forListener(Object[] params) {
+      if (params == null || params.length != 3)
+         throw new IllegalArgumentException("Expected listener id, window and maximum events as parameters");
+
+      // Drop coalescers of listeners that are gone
+      Iterator<WeakReference<EventCoalescer>> it = COALESCERS.values().iterator();
+      while (it.hasNext()) {
+         if (it.next().get() == null)
+            it.remove();
+      }
+
+      String listenerId = (String) params[0];
+      WeakReference<EventCoalescer> ref = COALESCERS.get(listenerId);
+      EventCoalescer coalescer = ref == null ? null : ref.get();
+      if (coalescer == null) {
+         coalescer = new EventCoalescer(((Number) params[1]).longValue(), ((Number) params[2]).intValue());
+         COALESCERS.put(listenerId, new WeakReference<>(coalescer));
+      }
+      return coalescer;
+   }
+
+   /**
+    * Records the latest state of a key, and returns whether the window is
+    * now closed and the state recorded so far should be shipped. Only one
+    * caller is told to ship until {@link #drain()} is called.
+    */
+   synchronized boolean offer(Object key, Object value) {
+      long now = System.currentTimeMillis();
+      if (events == 0)
+         firstEventTime = now;
+      lastEventTime = now;
+
+      // Re-insert so that keys are shipped in order of their latest modification
+      latest.remove(key);
+      latest.put(key, value);
+      events++;
+
+      if (!closing && (events >= maxEvents || now - firstEventTime >= windowMillis)) {
+         closing = true;
+         return true;
+      }
+      return false;
+   }
+
+   /**
+    * Takes the state recorded since the previous batch and opens a new window.
+    */
+   synchronized CoalescedEvents drain() {
+      CoalescedEvents batch = new CoalescedEvents(latest, events, firstEventTime, lastEventTime);
+      latest = new LinkedHashMap<>();
+      events = 0;
+      closing = false;
+      return batch;
+   }
+
+}
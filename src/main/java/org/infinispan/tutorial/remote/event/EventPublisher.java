@@ -0,0 +1,393 @@
+package org.infinispan.tutorial.remote.event;
+
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryCreated;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryModified;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryRemoved;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.event.ClientCacheEntryCreatedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryModifiedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryRemovedEvent;
+import org.infinispan.client.hotrod.event.ClientEvent;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publishes remote cache events to subscribers with backpressure. Client
+ * listener methods, as in {@code RemoteListenerIT}, run on the thread
+ * receiving events from the server, so a slow handler delays every event
+ * after it. Here listener methods only hand events to the publisher, which
+ * buffers them per subscriber and delivers them on an executor, as the
+ * subscriber requests them.
+ *
+ * When a subscriber's buffer is full, the {@link OverflowPolicy} decides
+ * whether the oldest event is dropped, an older event for the same key is
+ * replaced, or the listener thread blocks until there is room.
+ */
+public class EventPublisher<E> implements Flow.Publisher<E>, AutoCloseable {
+
+   private static final Logger log = Logger.getLogger(EventPublisher.class.getName());
+
+   public enum OverflowPolicy {
+      /**
+       * Drop the oldest buffered event to make room.
+       */
+      DROP_OLDEST,
+      /**
+       * Replace the buffered event for the same key, if any, with the new
+       * one. Otherwise drop the oldest buffered event.
+       */
+      COALESCE,
+      /**
+       * Block the listener thread until the subscriber catches up. This
+       * holds back delivery of events to all listeners sharing the connection.
+       */
+      BLOCK
+   }
+
+   /**
+    * Extracts the key of an event, used to coalesce events. Events for
+    * which {@code null} is returned are never coalesced.
+    */
+   public interface KeyExtractor<E> {
+      Object keyOf(E event);
+   }
+
+   private final int bufferSize;
+   private final OverflowPolicy policy;
+   private final KeyExtractor<? super E> keyExtractor;
+   private final Executor executor;
+   private final CopyOnWriteArrayList<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+   private volatile boolean closed;
+
+   private final AtomicLong published = new AtomicLong();
+   private final AtomicLong dropped = new AtomicLong();
+   private final AtomicLong coalesced = new AtomicLong();
+
+   public EventPublisher(int bufferSize, OverflowPolicy policy, KeyExtractor<? super E> keyExtractor, Executor executor) {
+      if (bufferSize <= 0)
+         throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+      this.bufferSize = bufferSize;
+      this.policy = policy;
+      this.keyExtractor = keyExtractor;
+      this.executor = executor;
+   }
+
+   /**
+    * Creates a publisher of the events received by a {@link ClientEventListener},
+    * coalescing events by entry key.
+    */
+   public static EventPublisher<ClientEvent> forClientEvents(int bufferSize, OverflowPolicy policy, Executor executor) {
+      return new EventPublisher<>(bufferSize, policy, new KeyExtractor<ClientEvent>() {
+         @Override
+         public Object keyOf(ClientEvent event) {
+            if (event instanceof ClientCacheEntryCreatedEvent)
+               return ((ClientCacheEntryCreatedEvent<?>) event).getKey();
+            if (event instanceof ClientCacheEntryModifiedEvent)
+               return ((ClientCacheEntryModifiedEvent<?>) event).getKey();
+            if (event instanceof ClientCacheEntryRemovedEvent)
+               return ((ClientCacheEntryRemovedEvent<?>) event).getKey();
+            return null;
+         }
+      }, executor);
+   }
+
+   @Override
+   public void subscribe(Flow.Subscriber<? super E> subscriber) {
+      BufferedSubscription subscription = new BufferedSubscription(subscriber);
+      subscriber.onSubscribe(subscription);
+      subscriptions.add(subscription);
+      if (closed)
+         subscription.complete();
+   }
+
+   /**
+    * Hands an event to all subscribers. Called from listener methods, it
+    * only blocks if a subscriber's buffer is full and the policy is
+    * {@link OverflowPolicy#BLOCK}.
+    */
+   public void publish(E event) {
+      if (closed)
+         throw new IllegalStateException("Publisher is closed");
+
+      published.incrementAndGet();
+      for (BufferedSubscription subscription : subscriptions)
+         subscription.offer(event);
+   }
+
+   /**
+    * Completes all subscriptions once their buffered events are delivered.
+    */
+   @Override
+   public void close() {
+      closed = true;
+      for (BufferedSubscription subscription : subscriptions)
+         subscription.complete();
+   }
+
+   public long published() {
+      return published.get();
+   }
+
+   /**
+    * Events dropped across all subscribers because their buffer was full.
+    */
+   public long dropped() {
+      return dropped.get();
+   }
+
+   /**
+    * Events replaced across all subscribers by newer ones for the same key.
+    */
+   public long coalesced() {
+      return coalesced.get();
+   }
+
+   /**
+    * Number of events buffered for the subscriber furthest behind.
+    */
+   public int lag() {
+      int lag = 0;
+      for (BufferedSubscription subscription : subscriptions)
+         lag = Math.max(lag, subscription.buffered());
+      return lag;
+   }
+
+   @Override
+   public String toString() {
+      return "EventPublisher{" + "policy=" + policy + ", published=" + published() + ", dropped=" + dropped() +
+            ", coalesced=" + coalesced() + ", lag=" + lag() + '}';
+   }
+
+   private final class BufferedSubscription implements Flow.Subscription, Runnable {
+      private final Flow.Subscriber<? super E> subscriber;
+
+      // Buffer and demand, guarded by the lock
+      private final ReentrantLock lock = new ReentrantLock();
+      private final Condition notFull = lock.newCondition();
+      private final ArrayDeque<E> buffer = new ArrayDeque<>();
+      private long demand;
+      private boolean completed;
+      private boolean cancelled;
+      private boolean invalidRequest;
+      private long invalidDemand;
+
+      // Ensures a single delivery task runs at a time, counting missed signals
+      private final AtomicInteger wip = new AtomicInteger();
+      private boolean terminated;
+
+      BufferedSubscription(Flow.Subscriber<? super E> subscriber) {
+         this.subscriber = subscriber;
+      }
+
+      void offer(E event) {
+         lock.lock();
+         try {
+            if (cancelled)
+               return;
+
+            if (buffer.size() >= bufferSize) {
+               switch (policy) {
+                  case BLOCK:
+                     while (buffer.size() >= bufferSize && !cancelled)
+                        notFull.awaitUninterruptibly();
+                     if (cancelled)
+                        return;
+                     break;
+                  case COALESCE:
+                     if (replace(event)) {
+                        coalesced.incrementAndGet();
+                        return;
+                     }
+                     // No event for the same key, so drop the oldest instead
+                  case DROP_OLDEST:
+                     buffer.poll();
+                     dropped.incrementAndGet();
+                     break;
+               }
+            }
+            buffer.offer(event);
+         } finally {
+            lock.unlock();
+         }
+         signal();
+      }
+
+      private boolean replace(E event) {
+         Object key = keyExtractor.keyOf(event);
+         if (key == null)
+            return false;
+
+         // Only called when the buffer is full, which is bounded
+         Iterator<E> it = buffer.iterator();
+         while (it.hasNext()) {
+            if (key.equals(keyExtractor.keyOf(it.next()))) {
+               it.remove();
+               buffer.offer(event);
+               return true;
+            }
+         }
+         return false;
+      }
+
+      int buffered() {
+         lock.lock();
+         try {
+            return buffer.size();
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      void complete() {
+         lock.lock();
+         try {
+            completed = true;
+         } finally {
+            lock.unlock();
+         }
+         signal();
+      }
+
+      @Override
+      public void request(long n) {
+         lock.lock();
+         try {
+            if (n <= 0) {
+               invalidRequest = true;
+               invalidDemand = n;
+            } else {
+               demand += n;
+               // Overflowing demand means unbounded
+               if (demand < 0)
+                  demand = Long.MAX_VALUE;
+            }
+         } finally {
+            lock.unlock();
+         }
+         signal();
+      }
+
+      @Override
+      public void cancel() {
+         lock.lock();
+         try {
+            cancelled = true;
+            buffer.clear();
+            notFull.signalAll();
+         } finally {
+            lock.unlock();
+         }
+         subscriptions.remove(this);
+      }
+
+      private void signal() {
+         if (wip.getAndIncrement() == 0)
+            executor.execute(this);
+      }
+
+      @Override
+      public void run() {
+         int missed = 1;
+         do {
+            drain();
+            missed = wip.addAndGet(-missed);
+         } while (missed != 0);
+      }
+
+      private void drain() {
+         while (!terminated) {
+            E next = null;
+            boolean complete = false;
+            boolean invalid = false;
+            lock.lock();
+            try {
+               if (cancelled)
+                  return;
+
+               if (invalidRequest) {
+                  invalid = true;
+               } else if (demand > 0 && !buffer.isEmpty()) {
+                  next = buffer.poll();
+                  if (demand != Long.MAX_VALUE)
+                     demand--;
+                  notFull.signal();
+               } else if (completed && buffer.isEmpty()) {
+                  complete = true;
+               }
+            } finally {
+               lock.unlock();
+            }
+
+            if (invalid) {
+               // Non-positive requests are a subscriber error, which ends the subscription
+               cancel();
+               terminated = true;
+               subscriber.onError(new IllegalArgumentException("Requested a non-positive number of events: " + invalidDemand));
+            } else if (complete) {
+               subscriptions.remove(this);
+               terminated = true;
+               subscriber.onComplete();
+            } else if (next != null) {
+               deliver(next);
+            } else {
+               return;
+            }
+         }
+      }
+
+      private void deliver(E event) {
+         try {
+            subscriber.onNext(event);
+         } catch (Throwable t) {
+            // Subscribers must not throw, so stop delivering to this one and tell it why
+            log.log(Level.WARNING, "Subscriber failed handling event, cancelling its subscription", t);
+            cancel();
+            terminated = true;
+            try {
+               subscriber.onError(t);
+            } catch (Throwable e) {
+               log.log(Level.WARNING, "Subscriber failed handling its own error", e);
+            }
+         }
+      }
+   }
+
+   /**
+    * Client listener handing all entry events to a publisher. Listeners
+    * with filter or converter factories should call {@link #publish} from
+    * their own listener methods instead.
+    */
+   @ClientListener
+   public static class ClientEventListener {
+      private final EventPublisher<ClientEvent> publisher;
+
+      public ClientEventListener(EventPublisher<ClientEvent> publisher) {
+         this.publisher = publisher;
+      }
+
+      @ClientCacheEntryCreated
+      public void createdEntry(ClientCacheEntryCreatedEvent<?> event) {
+         publisher.publish(event);
+      }
+
+      @ClientCacheEntryModified
+      public void modifiedEntry(ClientCacheEntryModifiedEvent<?> event) {
+         publisher.publish(event);
+      }
+
+      @ClientCacheEntryRemoved
+      public void removedEntry(ClientCacheEntryRemovedEvent<?> event) {
+         publisher.publish(event);
+      }
+   }
+
+}
@@ -0,0 +1,40 @@
+package org.infinispan.tutorial.remote.event;
+
+/**
+ * Reactive streams interfaces, mirroring {@code java.util.concurrent.Flow}
+ * in Java 9 and later, for publishing events with backpressure on Java 7.
+ */
+public final class Flow {
+
+   private Flow() {
+      // Holder of interfaces only
+   }
+
+   public interface Publisher<T> {
+      /**
+       * Adds the subscriber, which receives a {@link Subscription} and then
+       * items as requested through it.
+       */
+      void subscribe(Subscriber<? super T> subscriber);
+   }
+
+   public interface Subscriber<T> {
+      void onSubscribe(Subscription subscription);
+
+      void onNext(T item);
+
+      void onError(Throwable throwable);
+
+      void onComplete();
+   }
+
+   public interface Subscription {
+      /**
+       * Adds the given number of items to the outstanding demand.
+       */
+      void request(long n);
+
+      void cancel();
+   }
+
+}
@@ -0,0 +1,303 @@
+package org.infinispan.tutorial.remote.event;
+
+import org.infinispan.metadata.Metadata;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilter;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilterFactory;
+import org.infinispan.notifications.cachelistener.filter.EventType;
+import org.infinispan.notifications.cachelistener.filter.NamedFactory;
+
+import java.util.Arrays;
+
+/**
+ * Filter factory letting through events for integer keys in a given set,
+ * which can hold hundreds of thousands of keys. Instead of searching a list
+ * of keys for every event, as {@code RemoteListenerFilterIT} does, the key
+ * set is turned into a bitmap when keys are dense, or into a primitive hash
+ * set otherwise, so that checking a key takes constant time. Key ranges are
+ * kept in a sorted table and checked with a binary search.
+ *
+ * Parameters should be built with {@link #keys(int...)}, {@link #keys(long...)}
+ * or {@link #ranges(long...)}, which send keys as primitive arrays. Boxed
+ * keys passed one per parameter, as in {@code RemoteListenerFilterIT}, are
+ * accepted too.
+ */
+@NamedFactory(name = KeySetFilterFactory.NAME)
+public class KeySetFilterFactory implements CacheEventFilterFactory {
+
+   public static final String NAME = "key-set-filter-factory";
+
+   static final String INTS = "ints";
+   static final String LONGS = "longs";
+   static final String RANGES = "ranges";
+
+   public static Object[] keys(int... keys) {
+      return new Object[]{INTS, keys};
+   }
+
+   public static Object[] keys(long... keys) {
+      return new Object[]{LONGS, keys};
+   }
+
+   /**
+    * Parameters for a filter accepting keys in the given ranges, passed as
+    * pairs of inclusive lower and upper bounds.
+    */
+   public static Object[] ranges(long... bounds) {
+      if (bounds.length % 2 != 0)
+         throw new IllegalArgumentException("Ranges must be given as pairs of bounds");
+      return new Object[]{RANGES, bounds};
+   }
+
+   @Override
+   public CacheEventFilter<Object, Object> getFilter(Object[] params) {
+      return new KeySetFilter(matcher(params));
+   }
+
+   static KeyMatcher matcher(Object[] params) {
+      if (params.length == 2 && INTS.equals(params[0])) {
+         int[] keys = (int[]) params[1];
+         long[] widened = new long[keys.length];
+         for (int i = 0; i < keys.length; i++)
+            widened[i] = keys[i];
+         return matcher(widened);
+      } else if (params.length == 2 && LONGS.equals(params[0])) {
+         return matcher((long[]) params[1]);
+      } else if (params.length == 2 && RANGES.equals(params[0])) {
+         return new RangeTable((long[]) params[1]);
+      }
+
+      // Boxed keys, one per parameter
+      long[] keys = new long[params.length];
+      for (int i = 0; i < params.length; i++)
+         keys[i] = ((Number) params[i]).longValue();
+      return matcher(keys);
+   }
+
+   static KeyMatcher matcher(long[] keys) {
+      if (keys.length == 0)
+         return new RangeTable(new long[0]);
+
+      long min = Long.MAX_VALUE;
+      long max = Long.MIN_VALUE;
+      boolean ints = true;
+      for (long key : keys) {
+         min = Math.min(min, key);
+         max = Math.max(max, key);
+         ints &= key == (int) key;
+      }
+
+      // Use a bitmap if it takes no more memory than a hash set would
+      long setBytes = (long) IntHashSet.capacityFor(keys.length) * (ints ? 4 : 8);
+      long span = max - min + 1;
+      if (span > 0 && span / 8 <= setBytes)
+         return new Bitmap(keys, min, span);
+
+      return ints ? new IntHashSet(keys) : new LongHashSet(keys);
+   }
+
+   static class KeySetFilter implements CacheEventFilter<Object, Object> {
+      private final KeyMatcher matcher;
+
+      KeySetFilter(KeyMatcher matcher) {
+         this.matcher = matcher;
+      }
+
+      @Override
+      public boolean accept(Object key, Object oldValue, Metadata oldMetadata,
+            Object newValue, Metadata newMetadata, EventType eventType) {
+         // Only integer keys can be in the set
+         if (key instanceof Integer || key instanceof Long || key instanceof Short || key instanceof Byte)
+            return matcher.matches(((Number) key).longValue());
+
+         return false;
+      }
+   }
+
+   interface KeyMatcher {
+      boolean matches(long key);
+   }
+
+   static final class Bitmap implements KeyMatcher {
+      private final long offset;
+      private final long span;
+      private final long[] words;
+
+      Bitmap(long[] keys, long offset, long span) {
+         this.offset = offset;
+         this.span = span;
+         this.words = new long[(int) ((span + 63) >>> 6)];
+         for (long key : keys) {
+            long bit = key - offset;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+         }
+      }
+
+      @Override
+      public boolean matches(long key) {
+         long bit = key - offset;
+         // Differences that overflow end up out of bounds too
+         if (bit < 0 || bit >= span)
+            return false;
+         return (words[(int) (bit >>> 6)] & (1L << bit)) != 0;
+      }
+   }
+
+   static final class IntHashSet implements KeyMatcher {
+      // Zero marks free slots, so whether zero is in the set is kept apart
+      private final int[] table;
+      private final int mask;
+      private final boolean containsZero;
+
+      IntHashSet(long[] keys) {
+         table = new int[capacityFor(keys.length)];
+         mask = table.length - 1;
+         boolean zero = false;
+         for (long key : keys) {
+            int k = (int) key;
+            if (k == 0) {
+               zero = true;
+               continue;
+            }
+            int slot = mix(k) & mask;
+            while (table[slot] != 0 && table[slot] != k)
+               slot = (slot + 1) & mask;
+            table[slot] = k;
+         }
+         containsZero = zero;
+      }
+
+      /**
+       * Power of two table size keeping the load factor at or below a half.
+       */
+      static int capacityFor(int size) {
+         int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+         return Math.max(capacity, 2);
+      }
+
+      @Override
+      public boolean matches(long key) {
+         if (key != (int) key)
+            return false;
+
+         int k = (int) key;
+         if (k == 0)
+            return containsZero;
+
+         int slot = mix(k) & mask;
+         int candidate;
+         while ((candidate = table[slot]) != 0) {
+            if (candidate == k)
+               return true;
+            slot = (slot + 1) & mask;
+         }
+         return false;
+      }
+   }
+
+   static final class LongHashSet implements KeyMatcher {
+      // Zero marks free slots, so whether zero is in the set is kept apart
+      private final long[] table;
+      private final int mask;
+      private final boolean containsZero;
+
+      LongHashSet(long[] keys) {
+         table = new long[IntHashSet.capacityFor(keys.length)];
+         mask = table.length - 1;
+         boolean zero = false;
+         for (long key : keys) {
+            if (key == 0) {
+               zero = true;
+               continue;
+            }
+            int slot = mix(key) & mask;
+            while (table[slot] != 0 && table[slot] != key)
+               slot = (slot + 1) & mask;
+            table[slot] = key;
+         }
+         containsZero = zero;
+      }
+
+      @Override
+      public boolean matches(long key) {
+         if (key == 0)
+            return containsZero;
+
+         int slot = mix(key) & mask;
+         long candidate;
+         while ((candidate = table[slot]) != 0) {
+            if (candidate == key)
+               return true;
+            slot = (slot + 1) & mask;
+         }
+         return false;
+      }
+   }
+
+   static final class RangeTable implements KeyMatcher {
+      // Lower bounds sorted, with the upper bound of each range at the same index
+      private final long[] lows;
+      private final long[] highs;
+
+      RangeTable(long[] bounds) {
+         int count = bounds.length / 2;
+         Range[] ranges = new Range[count];
+         for (int i = 0; i < count; i++)
+            ranges[i] = new Range(bounds[2 * i], bounds[2 * i + 1]);
+         Arrays.sort(ranges);
+
+         // Merge overlapping ranges so that at most one range can contain a key
+         long[] l = new long[count];
+         long[] h = new long[count];
+         int n = 0;
+         for (Range range : ranges) {
+            if (n > 0 && (h[n - 1] == Long.MAX_VALUE || range.low <= h[n - 1] + 1)) {
+               h[n - 1] = Math.max(h[n - 1], range.high);
+            } else {
+               l[n] = range.low;
+               h[n] = range.high;
+               n++;
+            }
+         }
+         lows = Arrays.copyOf(l, n);
+         highs = Arrays.copyOf(h, n);
+      }
+
+      @Override
+      public boolean matches(long key) {
+         // Find the last range starting at or before the key
+         int index = Arrays.binarySearch(lows, key);
+         if (index < 0)
+            index = -index - 2;
+         return index >= 0 && key <= highs[index];
+      }
+   }
+
+   static final class Range implements Comparable<Range> {
+      final long low;
+      final long high;
+
+      Range(long low, long high) {
+         if (low > high)
+            throw new IllegalArgumentException("Invalid range: " + low + ".." + high);
+         this.low = low;
+         this.high = high;
+      }
+
+      @Override
+      public int compareTo(Range o) {
+         return Long.compare(low, o.low);
+      }
+   }
+
+   static int mix(long key) {
+      // Murmur3 finalizer, spreading sequential keys over the whole table
+      long h = key;
+      h ^= h >>> 33;
+      h *= 0xff51afd7ed558ccdL;
+      h ^= h >>> 33;
+      h *= 0xc4ceb9fe1a85ec53L;
+      h ^= h >>> 33;
+      return (int) h;
+   }
+
+}
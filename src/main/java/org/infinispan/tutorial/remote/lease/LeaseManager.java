@@ -0,0 +1,264 @@
+package org.infinispan.tutorial.remote.lease;
+
+import org.infinispan.client.hotrod.RemoteCache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps mortal entries of a remote cache alive by storing them again before
+ * their lifespan runs out, for as long as they are leased.
+ *
+ * Renewal deadlines of all leases are kept in a single {@link TimingWheel},
+ * so leasing a key is constant time, whatever the number of leases, and a
+ * single periodic task collects the leases due and renews them with one
+ * bulk write per batch instead of one write per key. Each lease is renewed
+ * at a random point within the margin before it would otherwise be renewed,
+ * so that keys leased at the same time do not all come due at once.
+ */
+public class LeaseManager<K, V> implements AutoCloseable {
+
+   private final RemoteCache<K, V> cache;
+   private final long lifespanNanos;
+   private final long marginNanos;
+   private final long tickNanos;
+   private final int batchSize;
+   private final long start = System.nanoTime();
+   private final ConcurrentMap<K, Lease<K, V>> leases = new ConcurrentHashMap<>();
+   private final TimingWheel<Lease<K, V>> wheel = new TimingWheel<>();
+   private final ScheduledFuture<?> renewer;
+
+   private final AtomicLong renewals = new AtomicLong();
+   private final AtomicLong batches = new AtomicLong();
+   private final AtomicLong failures = new AtomicLong();
+
+   /**
+    * Creates a manager storing leased entries with the given lifespan, and
+    * renewing them between two margins and one margin before they expire.
+    * The margin must leave room for the renewal round trip, and be less
+    * than half the lifespan.
+    */
+   public LeaseManager(RemoteCache<K, V> cache, long lifespan, long margin, TimeUnit unit, int batchSize,
+         ScheduledExecutorService scheduler) {
+      if (margin <= 0 || 2 * margin >= lifespan)
+         throw new IllegalArgumentException("Margin must be positive and less than half the lifespan");
+      if (batchSize < 1)
+         throw new IllegalArgumentException("Batch size must be at least one: " + batchSize);
+
+      this.cache = cache;
+      this.lifespanNanos = unit.toNanos(lifespan);
+      this.marginNanos = unit.toNanos(margin);
+      // Deadlines only need to be as precise as a fraction of the margin
+      this.tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), marginNanos / 16);
+      this.batchSize = batchSize;
+
+      renewer = scheduler.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               renewDue();
+            } catch (Exception e) {
+               // Keep renewing, failed leases are retried
+               failures.incrementAndGet();
+            }
+         }
+      }, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+   }
+
+   /**
+    * Stores an entry with the lease lifespan and keeps it alive until released.
+    * Storing a leased key again updates the value renewals write.
+    */
+   public void put(K key, V value) {
+      // Lease first, so a renewal racing with this write sees the new value
+      track(key, value);
+      cache.put(key, value, lifespanNanos, TimeUnit.NANOSECONDS);
+   }
+
+   /**
+    * Keeps alive an entry which has just been stored with the lease lifespan.
+    */
+   public void track(K key, V value) {
+      Lease<K, V> lease = leases.get(key);
+      if (lease != null) {
+         // Already leased, renewals pick up the new value
+         lease.update(value);
+         return;
+      }
+
+      lease = new Lease<>(key, value);
+      Lease<K, V> existing = leases.putIfAbsent(key, lease);
+      if (existing != null) {
+         existing.update(value);
+         return;
+      }
+
+      synchronized (wheel) {
+         schedule(lease, renewalDelay());
+      }
+   }
+
+   /**
+    * Stops renewing an entry, which then expires at the end of its lifespan.
+    * Returns false if the key was not leased.
+    */
+   public boolean release(K key) {
+      Lease<K, V> lease = leases.remove(key);
+      if (lease == null)
+         return false;
+
+      synchronized (wheel) {
+         if (lease.timer != null)
+            wheel.cancel(lease.timer);
+      }
+      return true;
+   }
+
+   public boolean isLeased(K key) {
+      return leases.containsKey(key);
+   }
+
+   public int size() {
+      return leases.size();
+   }
+
+   /**
+    * Number of entries stored again to keep them alive.
+    */
+   public long renewals() {
+      return renewals.get();
+   }
+
+   /**
+    * Number of bulk writes used for renewals.
+    */
+   public long batches() {
+      return batches.get();
+   }
+
+   /**
+    * Number of bulk writes that failed, whose leases were retried.
+    */
+   public long failures() {
+      return failures.get();
+   }
+
+   @Override
+   public void close() {
+      // Leased entries are left to expire
+      renewer.cancel(false);
+      leases.clear();
+   }
+
+   void renewDue() {
+      List<Lease<K, V>> due = new ArrayList<>();
+      synchronized (wheel) {
+         wheel.advance(currentTick(), due);
+         for (Lease<K, V> lease : due)
+            lease.timer = null;
+      }
+
+      // Leases released right after being taken might have been scheduled anyway
+      for (Iterator<Lease<K, V>> it = due.iterator(); it.hasNext(); ) {
+         Lease<K, V> lease = it.next();
+         if (leases.get(lease.key) != lease)
+            it.remove();
+      }
+
+      for (int from = 0; from < due.size(); from += batchSize)
+         renew(due.subList(from, Math.min(due.size(), from + batchSize)));
+   }
+
+   private void renew(List<Lease<K, V>> batch) {
+      // Remember which version of each value is written, as it might be updated meanwhile
+      Map<K, V> entries = new LinkedHashMap<>();
+      long[] versions = new long[batch.size()];
+      for (int i = 0; i < batch.size(); i++) {
+         Lease<K, V> lease = batch.get(i);
+         synchronized (lease) {
+            versions[i] = lease.version;
+            entries.put(lease.key, lease.value);
+         }
+      }
+
+      long delay;
+      try {
+         cache.putAll(entries, lifespanNanos, TimeUnit.NANOSECONDS);
+         batches.incrementAndGet();
+         renewals.addAndGet(entries.size());
+         delay = renewalDelay();
+      } catch (Exception e) {
+         // Try again shortly, there is at least a margin left before entries expire
+         failures.incrementAndGet();
+         delay = ticks(marginNanos / 4);
+      }
+
+      for (int i = 0; i < batch.size(); i++) {
+         Lease<K, V> lease = batch.get(i);
+         // Values updated while renewing could have been overwritten with older ones
+         V latest = null;
+         synchronized (lease) {
+            if (lease.version != versions[i])
+               latest = lease.value;
+         }
+         if (latest != null) {
+            try {
+               cache.put(lease.key, latest, lifespanNanos, TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+               failures.incrementAndGet();
+            }
+         }
+
+         synchronized (wheel) {
+            // Released leases are not renewed again
+            if (leases.get(lease.key) == lease)
+               schedule(lease, delay);
+         }
+      }
+   }
+
+   private void schedule(Lease<K, V> lease, long ticks) {
+      lease.timer = wheel.schedule(lease, currentTick() + ticks - wheel.currentTick());
+   }
+
+   private long renewalDelay() {
+      long jitter = ThreadLocalRandom.current().nextLong(marginNanos);
+      return ticks(lifespanNanos - marginNanos - jitter);
+   }
+
+   private long currentTick() {
+      return ticks(System.nanoTime() - start);
+   }
+
+   private long ticks(long nanos) {
+      return nanos / tickNanos;
+   }
+
+   static final class Lease<K, V> {
+      final K key;
+      V value;
+      long version;
+      TimingWheel.Timer<Lease<K, V>> timer;
+
+      Lease(K key, V value) {
+         this.key = key;
+         this.value = value;
+      }
+
+      synchronized void update(V value) {
+         this.value = value;
+         this.version++;
+      }
+   }
+
+}
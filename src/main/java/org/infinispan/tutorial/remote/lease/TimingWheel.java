@@ -0,0 +1,149 @@
+package org.infinispan.tutorial.remote.lease;
+
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel: timers are kept in slots of a wheel of 64
+ * ticks, or of coarser wheels whose slots span 64 slots of the wheel below
+ * for timers further away. Scheduling and cancelling are constant time, and
+ * advancing the clock only visits the slots of elapsed ticks, moving timers
+ * of a coarser slot down a level once its time range is reached.
+ *
+ * Not thread safe, callers are expected to synchronize access.
+ */
+public class TimingWheel<T> {
+
+   static final int WHEEL_BITS = 6;
+   static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+   static final int WHEEL_MASK = WHEEL_SIZE - 1;
+   static final int LEVELS = 8;
+   static final long MAX_DELAY = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+   private final Timer<T>[][] wheels;
+   private long currentTick;
+   private int size;
+
+   @SuppressWarnings("unchecked")
+   public TimingWheel() {
+      wheels = new Timer[LEVELS][WHEEL_SIZE];
+      for (int level = 0; level < LEVELS; level++) {
+         for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+            // Each slot is a circular list with a sentinel, so timers unlink without searching
+            Timer<T> sentinel = new Timer<>(null);
+            sentinel.prev = sentinel.next = sentinel;
+            wheels[level][slot] = sentinel;
+         }
+      }
+   }
+
+   /**
+    * Schedules an item to expire after the given number of ticks, at least
+    * one, returning the timer that allows cancelling it.
+    */
+   public Timer<T> schedule(T item, long ticks) {
+      Timer<T> timer = new Timer<>(item);
+      timer.deadline = currentTick + Math.min(MAX_DELAY, Math.max(1, ticks));
+      insert(timer);
+      size++;
+      return timer;
+   }
+
+   /**
+    * Cancels a timer, returning false if it had already expired or been cancelled.
+    */
+   public boolean cancel(Timer<T> timer) {
+      if (timer.next == null)
+         return false;
+
+      unlink(timer);
+      size--;
+      return true;
+   }
+
+   /**
+    * Advances the clock up to the given tick, adding the items of all timers
+    * expired on the way to the given list. Returns the number of items added.
+    */
+   public int advance(long tick, List<? super T> expired) {
+      int count = 0;
+      // Nothing can expire on the way if there are no timers, so skip idle periods
+      if (size == 0 && tick > currentTick)
+         currentTick = tick;
+
+      while (currentTick < tick) {
+         currentTick++;
+         cascade(1);
+
+         Timer<T> sentinel = wheels[0][(int) (currentTick & WHEEL_MASK)];
+         while (sentinel.next != sentinel) {
+            Timer<T> timer = sentinel.next;
+            unlink(timer);
+            size--;
+            expired.add(timer.item);
+            count++;
+         }
+      }
+      return count;
+   }
+
+   public long currentTick() {
+      return currentTick;
+   }
+
+   public int size() {
+      return size;
+   }
+
+   private void cascade(int level) {
+      // A coarser slot is reached when all finer wheels wrap around at the same time
+      if (level >= LEVELS || (currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0)
+         return;
+
+      // Start with the coarsest wheel, so timers moving down are cascaded again if needed
+      cascade(level + 1);
+
+      Timer<T> sentinel = wheels[level][(int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+      Timer<T> timer = sentinel.next;
+      sentinel.prev = sentinel.next = sentinel;
+      while (timer != sentinel) {
+         Timer<T> next = timer.next;
+         insert(timer);
+         timer = next;
+      }
+   }
+
+   private void insert(Timer<T> timer) {
+      long delay = timer.deadline - currentTick;
+      int level = 0;
+      while (level < LEVELS - 1 && delay >= 1L << (WHEEL_BITS * (level + 1)))
+         level++;
+
+      Timer<T> sentinel = wheels[level][(int) ((timer.deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+      timer.prev = sentinel.prev;
+      timer.next = sentinel;
+      sentinel.prev.next = timer;
+      sentinel.prev = timer;
+   }
+
+   private void unlink(Timer<T> timer) {
+      timer.prev.next = timer.next;
+      timer.next.prev = timer.prev;
+      timer.prev = timer.next = null;
+   }
+
+   public static final class Timer<T> {
+      final T item;
+      long deadline;
+      Timer<T> prev;
+      Timer<T> next;
+
+      Timer(T item) {
+         this.item = item;
+      }
+
+      public long deadline() {
+         return deadline;
+      }
+   }
+
+}
@@ -0,0 +1,139 @@
+package org.infinispan.tutorial.remote.load;
+
+import java.util.Random;
+
+/**
+ * Chooses which of a fixed number of keys, numbered from zero, the next
+ * operation of a workload accesses.
+ */
+public abstract class KeyDistribution {
+
+   final long keys;
+
+   KeyDistribution(long keys) {
+      if (keys < 1)
+         throw new IllegalArgumentException("At least one key is required: " + keys);
+      this.keys = keys;
+   }
+
+   public abstract long next(Random random);
+
+   public long keys() {
+      return keys;
+   }
+
+   /**
+    * Every key is equally likely.
+    */
+   public static KeyDistribution uniform(long keys) {
+      return new KeyDistribution(keys) {
+         @Override
+         public long next(Random random) {
+            return nextLong(random, 0, this.keys);
+         }
+      };
+   }
+
+   /**
+    * Key {@code i} is accessed with a probability proportional to
+    * {@code 1 / (i + 1)^theta}, so a few keys get most accesses, as is common
+    * for popular items. A theta of 0.99 is typical, it must be below 1.
+    */
+   public static KeyDistribution zipfian(long keys, double theta) {
+      return new Zipfian(keys, theta);
+   }
+
+   /**
+    * A fraction of operations, {@code hotOperations}, goes to a fraction of
+    * keys, {@code hotKeys}, and the other operations to the other keys, each
+    * key within either set being equally likely.
+    */
+   public static KeyDistribution hotspot(long keys, final double hotKeys, final double hotOperations) {
+      if (hotKeys <= 0 || hotKeys >= 1 || hotOperations < 0 || hotOperations > 1)
+         throw new IllegalArgumentException("Hot key fraction must be between 0 and 1 exclusive, " +
+               "and hot operation fraction between 0 and 1: " + hotKeys + ", " + hotOperations);
+
+      return new KeyDistribution(keys) {
+         final long hot = Math.max(1, (long) (this.keys * hotKeys));
+
+         @Override
+         public long next(Random random) {
+            if (hot == this.keys || random.nextDouble() < hotOperations)
+               return nextLong(random, 0, hot);
+            return nextLong(random, hot, this.keys);
+         }
+      };
+   }
+
+   /**
+    * Parses a distribution as given on the command line: {@code uniform},
+    * {@code zipfian[:theta]} or {@code hotspot[:hotKeys:hotOperations]}.
+    */
+   public static KeyDistribution parse(String spec, long keys) {
+      String[] parts = spec.split(":");
+      switch (parts[0]) {
+         case "uniform":
+            return uniform(keys);
+         case "zipfian":
+            return zipfian(keys, parts.length > 1 ? Double.parseDouble(parts[1]) : 0.99);
+         case "hotspot":
+            return parts.length > 2
+                  ? hotspot(keys, Double.parseDouble(parts[1]), Double.parseDouble(parts[2]))
+                  : hotspot(keys, 0.2, 0.8);
+         default:
+            throw new IllegalArgumentException("Unknown key distribution: " + spec);
+      }
+   }
+
+   static long nextLong(Random random, long from, long to) {
+      long bound = to - from;
+      if (bound <= Integer.MAX_VALUE)
+         return from + random.nextInt((int) bound);
+      return from + (long) (random.nextDouble() * bound);
+   }
+
+   /**
+    * Zipfian generator from Gray et al. "Quickly Generating Billion-Record
+    * Synthetic Databases", as used by YCSB: constant time per key once the
+    * zeta constant has been computed.
+    */
+   static final class Zipfian extends KeyDistribution {
+
+      final double theta;
+      final double zetan;
+      final double alpha;
+      final double eta;
+      final double half;
+
+      Zipfian(long keys, double theta) {
+         super(keys);
+         if (theta <= 0 || theta >= 1)
+            throw new IllegalArgumentException("Zipfian theta must be between 0 and 1 exclusive: " + theta);
+
+         this.theta = theta;
+         this.zetan = zeta(keys, theta);
+         this.alpha = 1 / (1 - theta);
+         this.eta = (1 - Math.pow(2.0 / keys, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+         this.half = 1 + Math.pow(0.5, theta);
+      }
+
+      @Override
+      public long next(Random random) {
+         double u = random.nextDouble();
+         double uz = u * zetan;
+         if (uz < 1)
+            return 0;
+         if (uz < half && keys > 1)
+            return 1;
+         return Math.min(keys - 1, (long) (keys * Math.pow(eta * u - eta + 1, alpha)));
+      }
+
+      static double zeta(long n, double theta) {
+         double sum = 0;
+         for (long i = 1; i <= n; i++)
+            sum += 1 / Math.pow(i, theta);
+         return sum;
+      }
+   }
+
+}
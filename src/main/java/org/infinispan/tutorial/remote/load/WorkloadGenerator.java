@@ -0,0 +1,389 @@
+package org.infinispan.tutorial.remote.load;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.tutorial.remote.stats.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a configurable mix of reads, writes and compare-and-swap updates
+ * against a remote cache, and reports throughput and latency percentiles.
+ *
+ * With a target rate, operations are scheduled open loop: each thread has a
+ * fixed timetable of intended start times and latency is measured from the
+ * intended start, not from when the operation was actually sent. A slow
+ * response then delays the operations queued behind it, and their latency
+ * includes that wait, as it would for independent clients which keep
+ * sending requests regardless. Measuring from the actual send time instead
+ * hides those stalls, which is known as coordinated omission. Both response
+ * time, from the intended start, and service time, from the actual send,
+ * are reported.
+ *
+ * Throughput is measured over the wall time from the end of the warm up to
+ * the last completed operation, so a server falling behind the target rate
+ * shows as lower throughput. Operations still not sent once the drain
+ * period after the intended end has passed are dropped and reported, so
+ * that an overloaded run terminates.
+ */
+public class WorkloadGenerator {
+
+   public static final String USAGE = "Usage: RemoteTutorial load [-duration <seconds>] [-warmup <seconds>] " +
+         "[-rate <ops/sec>] [-threads <n>] [-keys <n>] [-distribution uniform|zipfian[:theta]|hotspot[:keys:ops]] " +
+         "[-mix <read>:<write>:<cas>] [-value-size <bytes>] [-ttl-ratio <fraction>] [-ttl <seconds>] " +
+         "[-drain <seconds>] " +
+         "[-no-preload] [cache]";
+
+   public enum Operation {
+      READ, WRITE, CAS
+   }
+
+   private long duration = 30;
+   private long warmup = 5;
+   private long drain = 10;
+   private long rate = 1000;
+   private int threads = 4;
+   private long keys = 10000;
+   private String distribution = "uniform";
+   private double[] mix = {80, 15, 5};
+   private int valueSize = 100;
+   private double ttlRatio;
+   private long ttl = 60;
+   private boolean preload = true;
+   private String cacheName;
+
+   /**
+    * Parses workload options from the command line, starting at the given
+    * argument. See {@link #USAGE} for the options.
+    */
+   public static WorkloadGenerator parse(String[] args, int from) {
+      WorkloadGenerator generator = new WorkloadGenerator();
+      for (int i = from; i < args.length; i++) {
+         switch (args[i]) {
+            case "-duration":
+               generator.duration = Long.parseLong(argument(args, ++i));
+               break;
+            case "-warmup":
+               generator.warmup = Long.parseLong(argument(args, ++i));
+               break;
+            case "-drain":
+               generator.drain = Long.parseLong(argument(args, ++i));
+               break;
+            case "-rate":
+               generator.rate = Long.parseLong(argument(args, ++i));
+               break;
+            case "-threads":
+               generator.threads = Integer.parseInt(argument(args, ++i));
+               break;
+            case "-keys":
+               generator.keys = Long.parseLong(argument(args, ++i));
+               break;
+            case "-distribution":
+               generator.distribution = argument(args, ++i);
+               break;
+            case "-mix":
+               String[] ratios = argument(args, ++i).split(":");
+               if (ratios.length != 3)
+                  throw new IllegalArgumentException(USAGE);
+               for (int r = 0; r < 3; r++)
+                  generator.mix[r] = Double.parseDouble(ratios[r]);
+               break;
+            case "-value-size":
+               generator.valueSize = Integer.parseInt(argument(args, ++i));
+               break;
+            case "-ttl-ratio":
+               generator.ttlRatio = Double.parseDouble(argument(args, ++i));
+               break;
+            case "-ttl":
+               generator.ttl = Long.parseLong(argument(args, ++i));
+               break;
+            case "-no-preload":
+               generator.preload = false;
+               break;
+            default:
+               if (args[i].startsWith("-") || generator.cacheName != null)
+                  throw new IllegalArgumentException(USAGE);
+               generator.cacheName = args[i];
+         }
+      }
+      generator.validate();
+      return generator;
+   }
+
+   private static String argument(String[] args, int i) {
+      if (i >= args.length)
+         throw new IllegalArgumentException(USAGE);
+      return args[i];
+   }
+
+   private void validate() {
+      if (duration < 1 || warmup < 0 || drain < 0 || rate < 0 || threads < 1 || valueSize < 0 || ttl < 1)
+         throw new IllegalArgumentException(USAGE);
+      if (mix[0] < 0 || mix[1] < 0 || mix[2] < 0 || mix[0] + mix[1] + mix[2] <= 0)
+         throw new IllegalArgumentException("Operation mix must have non negative ratios, not all zero");
+      if (ttlRatio < 0 || ttlRatio > 1)
+         throw new IllegalArgumentException("TTL ratio must be between 0 and 1: " + ttlRatio);
+      // Fail early on invalid distributions
+      KeyDistribution.parse(distribution, keys);
+   }
+
+   /**
+    * The cache name given on the command line, or null for the default cache.
+    */
+   public String cacheName() {
+      return cacheName;
+   }
+
+   /**
+    * Runs the workload against the given cache, blocking until the warm up
+    * and measurement periods have passed, and operations behind schedule
+    * have completed or the drain period has passed.
+    */
+   public Report run(final RemoteCache<String, byte[]> cache) throws InterruptedException {
+      final KeyDistribution keyDistribution = KeyDistribution.parse(distribution, keys);
+      if (preload)
+         preload(cache);
+
+      final Report report = new Report(rate, threads);
+      final long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+      final long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+      final long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+      final long drainDeadline = end + TimeUnit.SECONDS.toNanos(drain);
+      // Each thread gets an equal share of the rate, with start times spread evenly
+      final long interval = rate == 0 ? 0 : TimeUnit.SECONDS.toNanos(threads) / rate;
+      final CountDownLatch done = new CountDownLatch(threads);
+
+      for (int t = 0; t < threads; t++) {
+         final long offset = interval / threads * t;
+         Thread worker = new Thread("workload-" + t) {
+            @Override
+            public void run() {
+               try {
+                  Random random = ThreadLocalRandom.current();
+                  byte[] value = new byte[valueSize];
+                  random.nextBytes(value);
+
+                  for (long i = 0; ; i++) {
+                     long intended = interval == 0 ? System.nanoTime() : start + offset + i * interval;
+                     if (intended >= end)
+                        break;
+
+                     // Wait for the intended start time, unless already behind schedule
+                     long now;
+                     while ((now = System.nanoTime()) < intended)
+                        LockSupport.parkNanos(intended - now);
+
+                     // Give up on the rest of the timetable if too far behind to catch up
+                     if (now >= drainDeadline) {
+                        report.dropped.addAndGet((end - intended + interval - 1) / interval);
+                        break;
+                     }
+
+                     Operation operation = nextOperation(random);
+                     String key = "key-" + keyDistribution.next(random);
+                     try {
+                        execute(cache, operation, key, value, random, report);
+                     } catch (Exception e) {
+                        if (intended >= measureFrom)
+                           report.errors.incrementAndGet();
+                        continue;
+                     }
+                     long completed = System.nanoTime();
+
+                     if (intended >= measureFrom) {
+                        report.completed(completed);
+                        report.responseTime.get(operation).record(completed - intended);
+                        report.serviceTime.get(operation).record(completed - now);
+                        report.lag.record(now - intended);
+                     }
+                  }
+               } finally {
+                  done.countDown();
+               }
+            }
+         };
+         worker.setDaemon(true);
+         worker.start();
+      }
+
+      done.await();
+      report.measured(measureFrom);
+      return report;
+   }
+
+   private void preload(RemoteCache<String, byte[]> cache) {
+      Map<String, byte[]> batch = new HashMap<>();
+      byte[] value = new byte[valueSize];
+      for (long i = 0; i < keys; i++) {
+         batch.put("key-" + i, value);
+         if (batch.size() == 1000 || i == keys - 1) {
+            cache.putAll(batch);
+            batch.clear();
+         }
+      }
+   }
+
+   Operation nextOperation(Random random) {
+      double r = random.nextDouble() * (mix[0] + mix[1] + mix[2]);
+      if (r < mix[0])
+         return Operation.READ;
+      if (r < mix[0] + mix[1])
+         return Operation.WRITE;
+      return Operation.CAS;
+   }
+
+   private void execute(RemoteCache<String, byte[]> cache, Operation operation, String key, byte[] value,
+         Random random, Report report) {
+      switch (operation) {
+         case READ:
+            cache.get(key);
+            break;
+         case WRITE:
+            if (ttlRatio > 0 && random.nextDouble() < ttlRatio)
+               cache.put(key, value, ttl, TimeUnit.SECONDS);
+            else
+               cache.put(key, value);
+            break;
+         case CAS:
+            // Read the version and replace only if nobody changed the entry since,
+            // forcing putIfAbsent to return the existing value so lost races are seen
+            VersionedValue<byte[]> versioned = cache.getVersioned(key);
+            boolean replaced = versioned == null
+                  ? cache.withFlags(Flag.FORCE_RETURN_VALUE).putIfAbsent(key, value) == null
+                  : cache.replaceWithVersion(key, value, versioned.getVersion());
+            if (!replaced)
+               report.casFailures.incrementAndGet();
+            break;
+      }
+   }
+
+   /**
+    * Results of a workload run: latency histograms per operation, in
+    * nanoseconds, and counts of errors and failed compare-and-swap updates.
+    */
+   public static class Report {
+
+      final Map<Operation, LatencyHistogram> responseTime = new HashMap<>();
+      final Map<Operation, LatencyHistogram> serviceTime = new HashMap<>();
+      final LatencyHistogram lag = new LatencyHistogram();
+      final AtomicLong errors = new AtomicLong();
+      final AtomicLong casFailures = new AtomicLong();
+      final AtomicLong dropped = new AtomicLong();
+      final AtomicLong lastCompletion = new AtomicLong(Long.MIN_VALUE);
+      final long rate;
+      final int threads;
+      long elapsedNanos;
+
+      Report(long rate, int threads) {
+         this.rate = rate;
+         this.threads = threads;
+         for (Operation operation : Operation.values()) {
+            responseTime.put(operation, new LatencyHistogram());
+            serviceTime.put(operation, new LatencyHistogram());
+         }
+      }
+
+      void completed(long nanos) {
+         long last;
+         while ((last = lastCompletion.get()) < nanos && !lastCompletion.compareAndSet(last, nanos)) {
+            // Retry until this completion or a later one is recorded
+         }
+      }
+
+      void measured(long measureFrom) {
+         long last = lastCompletion.get();
+         elapsedNanos = last == Long.MIN_VALUE ? 0 : last - measureFrom;
+      }
+
+      /**
+       * Latency from intended start to completion, including time spent
+       * behind schedule.
+       */
+      public LatencyHistogram responseTime(Operation operation) {
+         return responseTime.get(operation);
+      }
+
+      /**
+       * Latency from actual send to completion.
+       */
+      public LatencyHistogram serviceTime(Operation operation) {
+         return serviceTime.get(operation);
+      }
+
+      public long operations() {
+         long total = 0;
+         for (LatencyHistogram histogram : responseTime.values())
+            total += histogram.count();
+         return total;
+      }
+
+      /**
+       * Seconds from the end of the warm up to the last completed operation.
+       */
+      public double elapsed() {
+         return elapsedNanos / 1e9;
+      }
+
+      public double throughput() {
+         return elapsedNanos == 0 ? 0 : operations() / elapsed();
+      }
+
+      public long errors() {
+         return errors.get();
+      }
+
+      public long casFailures() {
+         return casFailures.get();
+      }
+
+      /**
+       * Number of scheduled operations never sent, because the run was still
+       * behind schedule when the drain period ended.
+       */
+      public long dropped() {
+         return dropped.get();
+      }
+
+      public void print(PrintStream out) {
+         out.printf(Locale.ROOT, "Target rate: %s, threads: %d%n",
+               rate == 0 ? "unbounded (closed loop)" : rate + " ops/sec", threads);
+         out.printf(Locale.ROOT, "Throughput: %.1f ops/sec, %d operations in %.1f seconds, %d errors, " +
+               "%d failed compare-and-swap, %d dropped%n", throughput(), operations(), elapsed(), errors(),
+               casFailures(), dropped());
+         if (rate > 0)
+            out.printf(Locale.ROOT, "Behind schedule: p99 %.3f ms, max %.3f ms%n",
+                  millis(lag.percentile(99)), millis(lag.max()));
+
+         out.printf(Locale.ROOT, "%-10s %-9s %10s %10s %10s %10s %10s %10s%n",
+               "operation", "latency", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+         for (Operation operation : Operation.values()) {
+            print(out, operation, "response", responseTime.get(operation));
+            print(out, operation, "service", serviceTime.get(operation));
+         }
+      }
+
+      private static void print(PrintStream out, Operation operation, String kind, LatencyHistogram histogram) {
+         if (histogram.count() == 0)
+            return;
+         out.printf(Locale.ROOT, "%-10s %-9s %10d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+               operation.name().toLowerCase(Locale.ROOT), kind, histogram.count(),
+               millis(histogram.percentile(50)), millis(histogram.percentile(90)),
+               millis(histogram.percentile(99)), millis(histogram.percentile(99.9)), millis(histogram.max()));
+      }
+
+      private static double millis(long nanos) {
+         return nanos / 1e6;
+      }
+   }
+
+}
@@ -0,0 +1,110 @@
+package org.infinispan.tutorial.remote.marshall;
+
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.io.ByteBufferImpl;
+import org.infinispan.commons.marshall.AbstractMarshaller;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Marshaller that writes values of registered classes as a marker byte, a
+ * type id byte and the fields written by the class' {@link ValueCodec}.
+ * Anything else, such as keys, is handed to a delegate marshaller.
+ *
+ * In compatibility mode the server must be able to unmarshall what clients
+ * send, so the same marshaller, with the same codecs registered, has to be
+ * configured as the server's compatibility marshaller. Subclasses with a
+ * no-argument constructor that register their codecs can be named in the
+ * server configuration.
+ */
+public class CompactMarshaller extends AbstractMarshaller {
+
+   // Marker that cannot be the first byte of the delegate's output, which
+   // starts with the marshalling protocol version
+   static final byte MARKER = (byte) 0xCB;
+
+   static final int HEADER_SIZE = 2;
+
+   private final Marshaller delegate;
+   private final Map<Class<?>, Registration<?>> byClass = new HashMap<>();
+   private final Registration<?>[] byId = new Registration<?>[256];
+
+   public CompactMarshaller() {
+      this(new GenericJBossMarshaller());
+   }
+
+   public CompactMarshaller(Marshaller delegate) {
+      this.delegate = delegate;
+   }
+
+   /**
+    * Registers a codec for the given class. Registrations are not thread
+    * safe and should happen before the marshaller is handed to a cache
+    * manager, typically from a subclass constructor.
+    */
+   public <T> CompactMarshaller register(int id, Class<T> type, ValueCodec<T> codec) {
+      if (id < 0 || id > 255)
+         throw new IllegalArgumentException("Type id must be between 0 and 255: " + id);
+      if (byId[id] != null)
+         throw new IllegalStateException("Type id already registered: " + id);
+
+      Registration<T> registration = new Registration<>((byte) id, codec);
+      byId[id] = registration;
+      byClass.put(type, registration);
+      return this;
+   }
+
+   @Override
+   protected ByteBuffer objectToBuffer(Object o, int estimatedSize) throws IOException, InterruptedException {
+      Registration<?> registration = o == null ? null : byClass.get(o.getClass());
+      if (registration == null)
+         return delegate.objectToBuffer(o);
+
+      return registration.encode(o);
+   }
+
+   @Override
+   public Object objectFromByteBuffer(byte[] buf, int offset, int length) throws IOException, ClassNotFoundException {
+      if (length < HEADER_SIZE || buf[offset] != MARKER)
+         return delegate.objectFromByteBuffer(buf, offset, length);
+
+      Registration<?> registration = byId[buf[offset + 1] & 0xFF];
+      if (registration == null)
+         throw new IOException("Unknown type id: " + (buf[offset + 1] & 0xFF));
+
+      return registration.codec.decode(
+            java.nio.ByteBuffer.wrap(buf, offset + HEADER_SIZE, length - HEADER_SIZE));
+   }
+
+   @Override
+   public boolean isMarshallable(Object o) throws Exception {
+      // Nulls are left to the delegate, as when marshalling them
+      return o != null && byClass.containsKey(o.getClass()) || delegate.isMarshallable(o);
+   }
+
+   private static final class Registration<T> {
+      final byte id;
+      final ValueCodec<T> codec;
+
+      Registration(byte id, ValueCodec<T> codec) {
+         this.id = id;
+         this.codec = codec;
+      }
+
+      @SuppressWarnings("unchecked")
+      ByteBuffer encode(Object o) {
+         T value = (T) o;
+         // Size the array exactly, fixed width codecs never need to grow it
+         byte[] bytes = new byte[HEADER_SIZE + codec.size(value)];
+         bytes[0] = MARKER;
+         bytes[1] = id;
+         codec.encode(value, java.nio.ByteBuffer.wrap(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE));
+         return new ByteBufferImpl(bytes, 0, bytes.length);
+      }
+   }
+
+}
@@ -0,0 +1,148 @@
+package org.infinispan.tutorial.remote.marshall;
+
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.io.ByteBufferImpl;
+import org.infinispan.commons.marshall.AbstractMarshaller;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Marshaller that compresses with Deflate whatever its delegate writes
+ * above a size threshold. Compressed values are written as a marker byte,
+ * the uncompressed length and the compressed bytes, and values below the
+ * threshold, or which do not shrink, are left exactly as the delegate wrote
+ * them, so small values cost nothing to read or write.
+ *
+ * Compression is chosen per cache manager, and hence per set of caches
+ * sharing a Hot Rod client. In compatibility mode the server must be able
+ * to unmarshall what clients send, so the same compressing marshaller has to
+ * be configured as the server's compatibility marshaller, as with
+ * {@link CompactMarshaller}. Subclasses with a no-argument constructor can
+ * be named in the server configuration.
+ */
+public class CompressingMarshaller extends AbstractMarshaller {
+
+   // Marker that cannot be the first byte of the delegate's output, which
+   // starts with the marshalling protocol version or the compact marker
+   static final byte MARKER = (byte) 0xCD;
+
+   static final int HEADER_SIZE = 5;
+
+   public static final int DEFAULT_THRESHOLD = 1024;
+
+   private final Marshaller delegate;
+   private final int threshold;
+   private final int level;
+
+   // Deflate keeps native state which is costly to set up, so reuse it per thread
+   private final ThreadLocal<Deflater> deflater = new ThreadLocal<Deflater>() {
+      @Override
+      protected Deflater initialValue() {
+         return new Deflater(level, true);
+      }
+   };
+
+   private final ThreadLocal<Inflater> inflater = new ThreadLocal<Inflater>() {
+      @Override
+      protected Inflater initialValue() {
+         return new Inflater(true);
+      }
+   };
+
+   public CompressingMarshaller() {
+      this(new GenericJBossMarshaller());
+   }
+
+   public CompressingMarshaller(Marshaller delegate) {
+      this(delegate, DEFAULT_THRESHOLD, Deflater.BEST_SPEED);
+   }
+
+   /**
+    * Creates a marshaller compressing values of at least the given number of
+    * bytes, with a Deflate level between {@link Deflater#BEST_SPEED} and
+    * {@link Deflater#BEST_COMPRESSION}.
+    */
+   public CompressingMarshaller(Marshaller delegate, int threshold, int level) {
+      if (threshold < HEADER_SIZE)
+         throw new IllegalArgumentException("Threshold must be at least " + HEADER_SIZE + ": " + threshold);
+      if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)
+         throw new IllegalArgumentException("Invalid compression level: " + level);
+
+      this.delegate = delegate;
+      this.threshold = threshold;
+      this.level = level;
+   }
+
+   @Override
+   protected ByteBuffer objectToBuffer(Object o, int estimatedSize) throws IOException, InterruptedException {
+      ByteBuffer raw = delegate.objectToBuffer(o);
+      if (raw.getLength() < threshold)
+         return raw;
+
+      // Only keep the compressed form if it saves space, so give up once it does not
+      byte[] compressed = new byte[raw.getLength()];
+      Deflater deflater = this.deflater.get();
+      try {
+         deflater.setInput(raw.getBuf(), raw.getOffset(), raw.getLength());
+         deflater.finish();
+         int length = HEADER_SIZE;
+         while (!deflater.finished() && length < compressed.length)
+            length += deflater.deflate(compressed, length, compressed.length - length);
+         if (!deflater.finished())
+            return raw;
+
+         compressed[0] = MARKER;
+         writeInt(compressed, 1, raw.getLength());
+         return new ByteBufferImpl(compressed, 0, length);
+      } finally {
+         deflater.reset();
+      }
+   }
+
+   @Override
+   public Object objectFromByteBuffer(byte[] buf, int offset, int length) throws IOException, ClassNotFoundException {
+      if (length < HEADER_SIZE || buf[offset] != MARKER)
+         return delegate.objectFromByteBuffer(buf, offset, length);
+
+      byte[] raw = new byte[readInt(buf, offset + 1)];
+      Inflater inflater = this.inflater.get();
+      try {
+         inflater.setInput(buf, offset + HEADER_SIZE, length - HEADER_SIZE);
+         int inflated = 0;
+         while (inflated < raw.length) {
+            int read = inflater.inflate(raw, inflated, raw.length - inflated);
+            if (read == 0 && (inflater.finished() || inflater.needsInput()))
+               throw new IOException("Truncated compressed value");
+            inflated += read;
+         }
+      } catch (DataFormatException e) {
+         throw new IOException("Corrupt compressed value", e);
+      } finally {
+         inflater.reset();
+      }
+      return delegate.objectFromByteBuffer(raw, 0, raw.length);
+   }
+
+   @Override
+   public boolean isMarshallable(Object o) throws Exception {
+      return delegate.isMarshallable(o);
+   }
+
+   private static void writeInt(byte[] buf, int offset, int value) {
+      buf[offset] = (byte) (value >>> 24);
+      buf[offset + 1] = (byte) (value >>> 16);
+      buf[offset + 2] = (byte) (value >>> 8);
+      buf[offset + 3] = (byte) value;
+   }
+
+   private static int readInt(byte[] buf, int offset) {
+      return (buf[offset] & 0xFF) << 24 | (buf[offset + 1] & 0xFF) << 16
+            | (buf[offset + 2] & 0xFF) << 8 | buf[offset + 3] & 0xFF;
+   }
+
+}
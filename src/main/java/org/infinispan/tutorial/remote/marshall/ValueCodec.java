@@ -0,0 +1,21 @@
+package org.infinispan.tutorial.remote.marshall;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes values of a single class as raw fields, without any class metadata.
+ * Implementations must be stateless, since a codec is shared by all threads
+ * using the {@link CompactMarshaller} it is registered with.
+ */
+public interface ValueCodec<T> {
+
+   /**
+    * Number of bytes {@link #encode} writes for the given value.
+    */
+   int size(T value);
+
+   void encode(T value, ByteBuffer buffer);
+
+   T decode(ByteBuffer buffer);
+
+}
@@ -0,0 +1,225 @@
+package org.infinispan.tutorial.remote.nearcache;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryModified;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryRemoved;
+import org.infinispan.client.hotrod.annotation.ClientCacheFailover;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.event.ClientCacheEntryModifiedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryRemovedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheFailoverEvent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, client side, cache in front of a remote cache. Reads are served
+ * locally when possible, saving a network round trip.
+ *
+ * The near cache stays coherent with the server by registering a remote
+ * listener, as shown in {@code RemoteListenerIT}, and dropping local copies
+ * whenever entries are modified or removed on the server. When the total
+ * weight of cached entries goes over the limit, least recently used entries
+ * are evicted.
+ *
+ * Entries expiring on the server do not generate events, so mortal entries
+ * should not be read through a near cache.
+ */
+public class NearCache<K, V> implements AutoCloseable {
+
+   private final RemoteCache<K, V> remoteCache;
+   private final long maxWeight;
+   private final Weigher<? super K, ? super V> weigher;
+   private final InvalidationListener listener = new InvalidationListener();
+
+   // Access ordered map, guarded by its own monitor, used to find eviction candidates
+   private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+   private long weight;
+
+   // Reads in progress, used to detect invalidations that race with loading a value,
+   // only cleared under the entries monitor so that checking a read and storing its
+   // value cannot interleave with an invalidation
+   private final ConcurrentMap<K, Object> loading = new ConcurrentHashMap<>();
+
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+   private final AtomicLong invalidations = new AtomicLong();
+   private final AtomicLong evictions = new AtomicLong();
+
+   /**
+    * Creates a near cache holding at most the given number of entries.
+    */
+   public NearCache(RemoteCache<K, V> remoteCache, long maxEntries) {
+      this(remoteCache, maxEntries, Weigher.SINGLETON);
+   }
+
+   /**
+    * Creates a near cache whose entries weigh at most the given total.
+    */
+   public NearCache(RemoteCache<K, V> remoteCache, long maxWeight, Weigher<? super K, ? super V> weigher) {
+      this.remoteCache = remoteCache;
+      this.maxWeight = maxWeight;
+      this.weigher = weigher;
+      remoteCache.addClientListener(listener);
+   }
+
+   public V get(K key) {
+      synchronized (entries) {
+         V value = entries.get(key);
+         if (value != null) {
+            hits.incrementAndGet();
+            return value;
+         }
+      }
+
+      misses.incrementAndGet();
+
+      // Register the read before going remote, so that an invalidation
+      // arriving while the value is in flight prevents caching it
+      Object marker = new Object();
+      loading.put(key, marker);
+      V value = remoteCache.get(key);
+      load(key, marker, value);
+      return value;
+   }
+
+   public V put(K key, V value) {
+      // The server event would invalidate the entry anyway, but do it
+      // right away so that this client reads its own writes
+      invalidate(key);
+      return remoteCache.put(key, value);
+   }
+
+   public V remove(K key) {
+      invalidate(key);
+      return remoteCache.remove(key);
+   }
+
+   public RemoteCache<K, V> remoteCache() {
+      return remoteCache;
+   }
+
+   private void load(K key, Object marker, V value) {
+      long entryWeight = value == null ? 0 : weigher.weigh(key, value);
+      synchronized (entries) {
+         // Only cache the value if no invalidation arrived while it was in flight
+         if (!loading.remove(key, marker) || value == null || entryWeight > maxWeight)
+            return;
+
+         V previous = entries.put(key, value);
+         if (previous != null)
+            weight -= weigher.weigh(key, previous);
+         weight += entryWeight;
+
+         // Evict least recently used entries until back under the limit
+         Iterator<Map.Entry<K, V>> it = entries.entrySet().iterator();
+         while (weight > maxWeight && it.hasNext()) {
+            Map.Entry<K, V> eldest = it.next();
+            weight -= weigher.weigh(eldest.getKey(), eldest.getValue());
+            it.remove();
+            evictions.incrementAndGet();
+         }
+      }
+   }
+
+   void invalidate(K key) {
+      synchronized (entries) {
+         loading.remove(key);
+         V removed = entries.remove(key);
+         if (removed != null) {
+            weight -= weigher.weigh(key, removed);
+            invalidations.incrementAndGet();
+         }
+      }
+   }
+
+   public void clear() {
+      synchronized (entries) {
+         loading.clear();
+         entries.clear();
+         weight = 0;
+      }
+   }
+
+   public long hits() {
+      return hits.get();
+   }
+
+   public long misses() {
+      return misses.get();
+   }
+
+   public long invalidations() {
+      return invalidations.get();
+   }
+
+   public long evictions() {
+      return evictions.get();
+   }
+
+   public double hitRatio() {
+      long hits = this.hits.get();
+      long total = hits + misses.get();
+      return total == 0 ? 0 : (double) hits / total;
+   }
+
+   public int size() {
+      synchronized (entries) {
+         return entries.size();
+      }
+   }
+
+   /**
+    * Unregisters the remote listener and drops all local copies.
+    */
+   @Override
+   public void close() {
+      remoteCache.removeClientListener(listener);
+      clear();
+   }
+
+   @Override
+   public String toString() {
+      return "NearCache{" + "size=" + size() + ", hits=" + hits + ", misses=" + misses
+            + ", hitRatio=" + hitRatio() + ", invalidations=" + invalidations + ", evictions=" + evictions + '}';
+   }
+
+   /**
+    * Computes how much of the near cache capacity an entry takes.
+    */
+   public interface Weigher<K, V> {
+      Weigher<Object, Object> SINGLETON = new Weigher<Object, Object>() {
+         @Override
+         public long weigh(Object key, Object value) {
+            return 1;
+         }
+      };
+
+      long weigh(K key, V value);
+   }
+
+   // A remote listener that drops local copies of entries changed on the server
+   @ClientListener
+   public class InvalidationListener {
+      @ClientCacheEntryModified
+      public void modifiedEntry(ClientCacheEntryModifiedEvent<K> event) {
+         invalidate(event.getKey());
+      }
+
+      @ClientCacheEntryRemoved
+      public void removedEntry(ClientCacheEntryRemovedEvent<K> event) {
+         invalidate(event.getKey());
+      }
+
+      @ClientCacheFailover
+      public void failover(ClientCacheFailoverEvent event) {
+         // Events might have been missed while switching servers
+         clear();
+      }
+   }
+
+}
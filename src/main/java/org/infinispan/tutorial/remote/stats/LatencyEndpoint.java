@@ -0,0 +1,81 @@
+package org.infinispan.tutorial.remote.stats;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HTTP endpoint serving the latencies of a {@link LatencyRecorder} in the
+ * Prometheus text format, so that monitoring systems can pull them. Each
+ * cache and operation gets a summary with latency percentiles in seconds.
+ */
+public class LatencyEndpoint implements AutoCloseable {
+
+   static final String PATH = "/metrics";
+   static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+   private final LatencyRecorder recorder;
+   private final HttpServer server;
+
+   public LatencyEndpoint(LatencyRecorder recorder, InetSocketAddress address) throws IOException {
+      this.recorder = recorder;
+      this.server = HttpServer.create(address, 0);
+      server.createContext(PATH, new HttpHandler() {
+         @Override
+         public void handle(HttpExchange exchange) throws IOException {
+            byte[] body = render().getBytes(Charset.forName("UTF-8"));
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+               os.write(body);
+            }
+         }
+      });
+      server.start();
+   }
+
+   /**
+    * Port the endpoint listens on, useful when created on an ephemeral port.
+    */
+   public int port() {
+      return server.getAddress().getPort();
+   }
+
+   String render() {
+      StringBuilder sb = new StringBuilder();
+      sb.append("# HELP hotrod_client_latency_seconds Client perceived latency of remote cache operations\n");
+      sb.append("# TYPE hotrod_client_latency_seconds summary\n");
+      for (Map.Entry<String, Map<String, LatencyHistogram>> cache : recorder.histograms().entrySet()) {
+         for (Map.Entry<String, LatencyHistogram> operation : cache.getValue().entrySet()) {
+            String labels = String.format("cache=\"%s\",operation=\"%s\"",
+                  escape(cache.getKey()), escape(operation.getKey()));
+            LatencyHistogram histogram = operation.getValue();
+            for (double quantile : QUANTILES) {
+               sb.append(String.format(Locale.ENGLISH, "hotrod_client_latency_seconds{%s,quantile=\"%s\"} %.9f\n",
+                     labels, quantile, histogram.percentile(quantile * 100) / 1e9));
+            }
+            sb.append(String.format(Locale.ENGLISH, "hotrod_client_latency_seconds_sum{%s} %.9f\n", labels, histogram.sum() / 1e9));
+            sb.append(String.format(Locale.ENGLISH, "hotrod_client_latency_seconds_count{%s} %d\n", labels, histogram.count()));
+         }
+      }
+      return sb.toString();
+   }
+
+   static String escape(String labelValue) {
+      // Label values escape backslashes, double quotes and line feeds
+      return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+   }
+
+   @Override
+   public void close() {
+      server.stop(0);
+   }
+
+}
@@ -0,0 +1,150 @@
+package org.infinispan.tutorial.remote.stats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of latencies in nanoseconds, with log-linear buckets
+ * as in HdrHistogram: each power of two range is split into 32 linear
+ * buckets, so recorded values are within about 3% of their actual value,
+ * from nanoseconds to hours, in a fixed amount of memory.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+   static final int SUB_BUCKET_BITS = 5;
+   static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+   static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+   private final AtomicLong count = new AtomicLong();
+   private final AtomicLong sum = new AtomicLong();
+   private final AtomicLong max = new AtomicLong();
+
+   public void record(long nanos) {
+      long value = Math.max(0, nanos);
+      counts.incrementAndGet(indexOf(value));
+      count.incrementAndGet();
+      sum.addAndGet(value);
+
+      long current;
+      while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+         // Retry until the maximum is at least this value
+      }
+   }
+
+   public void record(long duration, TimeUnit unit) {
+      record(unit.toNanos(duration));
+   }
+
+   /**
+    * Returns the latency in nanoseconds at or below which the given
+    * percentage, between 0 and 100, of recorded values fall.
+    */
+   public long percentile(double percentile) {
+      long total = count.get();
+      if (total == 0)
+         return 0;
+
+      // Rank of the value sought, at least the first one
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         seen += counts.get(i);
+         if (seen >= rank)
+            return Math.min(highestValueAt(i), max.get());
+      }
+      return max.get();
+   }
+
+   public long count() {
+      return count.get();
+   }
+
+   public long sum() {
+      return sum.get();
+   }
+
+   public long max() {
+      return max.get();
+   }
+
+   public double mean() {
+      long c = count.get();
+      return c == 0 ? 0 : (double) sum.get() / c;
+   }
+
+   /**
+    * Clears recorded values. Values recorded concurrently might be partly lost.
+    */
+   @Override
+   public void reset() {
+      for (int i = 0; i < BUCKETS; i++)
+         counts.set(i, 0);
+      count.set(0);
+      sum.set(0);
+      max.set(0);
+   }
+
+   @Override
+   public long getCount() {
+      return count();
+   }
+
+   @Override
+   public double getMeanMicros() {
+      return mean() / 1000;
+   }
+
+   @Override
+   public double getP50Micros() {
+      return percentile(50) / 1000.0;
+   }
+
+   @Override
+   public double getP90Micros() {
+      return percentile(90) / 1000.0;
+   }
+
+   @Override
+   public double getP99Micros() {
+      return percentile(99) / 1000.0;
+   }
+
+   @Override
+   public double getP999Micros() {
+      return percentile(99.9) / 1000.0;
+   }
+
+   @Override
+   public double getMaxMicros() {
+      return max() / 1000.0;
+   }
+
+   @Override
+   public String toString() {
+      return String.format("count=%d, mean=%.1fus, p50=%.1fus, p90=%.1fus, p99=%.1fus, p99.9=%.1fus, max=%.1fus",
+            getCount(), getMeanMicros(), getP50Micros(), getP90Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+   }
+
+   static int indexOf(long value) {
+      if (value < SUB_BUCKETS)
+         return (int) value;
+
+      // Power of two range of the value, and linear bucket within it
+      int exponent = 63 - Long.numberOfLeadingZeros(value);
+      int shift = exponent - SUB_BUCKET_BITS;
+      int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+      return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+   }
+
+   static long highestValueAt(int index) {
+      if (index < SUB_BUCKETS)
+         return index;
+
+      int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+      long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+      return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+   }
+
+}
@@ -0,0 +1,24 @@
+package org.infinispan.tutorial.remote.stats;
+
+/**
+ * JMX view of a {@link LatencyHistogram}, with latencies in microseconds.
+ */
+public interface LatencyHistogramMBean {
+
+   long getCount();
+
+   double getMeanMicros();
+
+   double getP50Micros();
+
+   double getP90Micros();
+
+   double getP99Micros();
+
+   double getP999Micros();
+
+   double getMaxMicros();
+
+   void reset();
+
+}
@@ -0,0 +1,236 @@
+package org.infinispan.tutorial.remote.stats;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+
+/**
+ * Records client perceived latencies of remote cache operations, per cache
+ * and per operation. Caches returned by {@link #wrap(RemoteCache)} time each
+ * call made through them, including asynchronous operations, which are
+ * timed until their future completes.
+ *
+ * Wrapped caches are dynamic proxies, so each call also pays for reflective
+ * dispatch and the argument array the proxy allocates. What to do for each
+ * method, including which histogram to record into, is looked up once, so
+ * synchronous calls allocate nothing more.
+ *
+ * Histograms can be registered in JMX, under
+ * {@code org.infinispan.tutorial:type=ClientLatency,cache=<cache>,operation=<operation>},
+ * and pulled over HTTP with a {@link LatencyEndpoint}.
+ */
+public class LatencyRecorder implements AutoCloseable {
+
+   public static final String JMX_DOMAIN = "org.infinispan.tutorial";
+
+   // Methods that do not involve the server, which are not timed
+   private static final Set<String> LOCAL_METHODS = new HashSet<>(Arrays.asList(
+         "withFlags", "getRemoteCacheManager", "getName", "getVersion", "getProtocolVersion",
+         "start", "stop", "getStatus", "getListeners", "addClientListener", "removeClientListener",
+         "equals", "hashCode", "toString"));
+
+   private final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+   private final MBeanServer mBeanServer;
+   // Names registered by this recorder, which is the only one to unregister them
+   private final Set<ObjectName> registered = Collections.newSetFromMap(new ConcurrentHashMap<ObjectName, Boolean>());
+
+   /**
+    * Creates a recorder registering histograms in the platform MBean server.
+    */
+   public LatencyRecorder() {
+      this(ManagementFactory.getPlatformMBeanServer());
+   }
+
+   /**
+    * Creates a recorder registering histograms in the given MBean server,
+    * or not registering them at all if {@code null}.
+    */
+   public LatencyRecorder(MBeanServer mBeanServer) {
+      this.mBeanServer = mBeanServer;
+   }
+
+   /**
+    * Returns a cache recording the latency of every operation invoked on it
+    * before delegating to the given cache.
+    */
+   @SuppressWarnings("unchecked")
+   public <K, V> RemoteCache<K, V> wrap(RemoteCache<K, V> cache) {
+      return (RemoteCache<K, V>) Proxy.newProxyInstance(RemoteCache.class.getClassLoader(),
+            new Class<?>[]{RemoteCache.class}, new RecordingHandler(cache));
+   }
+
+   /**
+    * Returns the histogram of the given operation on the given cache, creating it if necessary.
+    */
+   public LatencyHistogram histogram(String cacheName, String operation) {
+      ConcurrentMap<String, LatencyHistogram> operations = histograms.get(cacheName);
+      if (operations == null) {
+         operations = new ConcurrentHashMap<>();
+         ConcurrentMap<String, LatencyHistogram> prev = histograms.putIfAbsent(cacheName, operations);
+         if (prev != null)
+            operations = prev;
+      }
+
+      LatencyHistogram histogram = operations.get(operation);
+      if (histogram == null) {
+         histogram = new LatencyHistogram();
+         LatencyHistogram prev = operations.putIfAbsent(operation, histogram);
+         if (prev != null)
+            histogram = prev;
+         else
+            register(cacheName, operation, histogram);
+      }
+      return histogram;
+   }
+
+   /**
+    * Returns all histograms sorted by cache and operation names.
+    */
+   public Map<String, Map<String, LatencyHistogram>> histograms() {
+      Map<String, Map<String, LatencyHistogram>> sorted = new TreeMap<>();
+      for (Map.Entry<String, ConcurrentMap<String, LatencyHistogram>> e : histograms.entrySet())
+         sorted.put(e.getKey(), Collections.unmodifiableMap(new TreeMap<>(e.getValue())));
+      return sorted;
+   }
+
+   /**
+    * Unregisters from JMX the histograms this recorder registered, leaving
+    * those of other recorders for the same caches and operations.
+    */
+   @Override
+   public void close() {
+      for (ObjectName name : registered) {
+         try {
+            mBeanServer.unregisterMBean(name);
+         } catch (InstanceNotFoundException e) {
+            // Already unregistered by someone else
+         } catch (Exception e) {
+            throw new IllegalStateException(e);
+         }
+         registered.remove(name);
+      }
+   }
+
+   private void register(String cacheName, String operation, LatencyHistogram histogram) {
+      if (mBeanServer == null)
+         return;
+
+      try {
+         ObjectName name = objectName(cacheName, operation);
+         mBeanServer.registerMBean(histogram, name);
+         registered.add(name);
+      } catch (InstanceAlreadyExistsException e) {
+         // Another recorder registered the same cache and operation already
+      } catch (Exception e) {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   static ObjectName objectName(String cacheName, String operation) throws Exception {
+      return new ObjectName(String.format("%s:type=ClientLatency,cache=%s,operation=%s",
+            JMX_DOMAIN, ObjectName.quote(cacheName), operation));
+   }
+
+   private final class RecordingHandler implements InvocationHandler {
+      private final RemoteCache<?, ?> cache;
+      private final String cacheName;
+
+      // Operation of each method, looked up once
+      private final ConcurrentMap<Method, Operation> operations = new ConcurrentHashMap<>();
+
+      RecordingHandler(RemoteCache<?, ?> cache) {
+         this.cache = cache;
+         // The default cache has no name on the client side
+         String name = cache.getName();
+         this.cacheName = name == null || name.isEmpty() ? "___defaultcache" : name;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+         Operation operation = operationOf(method);
+         if (operation.histogram == null) {
+            Object result = invokeCache(method, args);
+            // Keep recording on caches with flags
+            return operation.wrapsResult && result instanceof RemoteCache
+                  ? wrap((RemoteCache<?, ?>) result) : result;
+         }
+
+         final LatencyHistogram histogram = operation.histogram;
+         final long start = System.nanoTime();
+         Object result;
+         try {
+            result = invokeCache(method, args);
+         } catch (Throwable t) {
+            histogram.record(System.nanoTime() - start);
+            throw t;
+         }
+
+         if (result instanceof NotifyingFuture) {
+            // Asynchronous operations complete when their future does
+            ((NotifyingFuture<Object>) result).attachListener(new FutureListener<Object>() {
+               @Override
+               public void futureDone(Future<Object> future) {
+                  histogram.record(System.nanoTime() - start);
+               }
+            });
+         } else {
+            histogram.record(System.nanoTime() - start);
+         }
+         return result;
+      }
+
+      private Object invokeCache(Method method, Object[] args) throws Throwable {
+         try {
+            return method.invoke(cache, args);
+         } catch (InvocationTargetException e) {
+            throw e.getCause();
+         }
+      }
+
+      private Operation operationOf(Method method) {
+         Operation operation = operations.get(method);
+         if (operation == null) {
+            // Overloads of an operation share a histogram, local methods have none
+            String name = method.getName();
+            operation = LOCAL_METHODS.contains(name)
+                  ? new Operation(null, name.equals("withFlags"))
+                  : new Operation(histogram(cacheName, name), false);
+            operations.put(method, operation);
+         }
+         return operation;
+      }
+   }
+
+   private static final class Operation {
+      // Null for methods not involving the server, which are not timed
+      final LatencyHistogram histogram;
+      // Whether the result is a cache to wrap as well
+      final boolean wrapsResult;
+
+      Operation(LatencyHistogram histogram, boolean wrapsResult) {
+         this.histogram = histogram;
+         this.wrapsResult = wrapsResult;
+      }
+   }
+
+}
@@ -0,0 +1,229 @@
+package org.infinispan.tutorial.remote.stats;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.ServerStatistics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples server statistics of one or more remote caches at a fixed
+ * interval and prints rates computed over a sliding window of samples, in
+ * the style of {@code top}. Rates can also be appended to a CSV writer,
+ * one line per cache and sample.
+ *
+ * Hot Rod servers report counters since they started, so rates are derived
+ * from the differences between the oldest and newest samples in the window.
+ * Counters a server does not report, such as evictions on older servers,
+ * are shown as not available.
+ */
+public class StatsMonitor implements AutoCloseable {
+
+   static final String EVICTIONS = "evictions";
+
+   static final String CSV_HEADER = "timestamp,cache,entries,hits_per_sec,misses_per_sec,stores_per_sec," +
+         "removes_per_sec,evictions_per_sec,hit_ratio";
+
+   private final Map<String, RemoteCache<?, ?>> caches = new LinkedHashMap<>();
+   private final int windowSize;
+   private final PrintStream console;
+   private final Writer csv;
+   private final boolean clearScreen;
+   private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+   // Samples per cache, oldest first, only accessed from the scheduler thread
+   private final Map<String, ArrayDeque<Sample>> windows = new LinkedHashMap<>();
+
+   /**
+    * Creates a monitor keeping the given number of samples per cache. The
+    * console and CSV outputs are optional, and the console is redrawn on
+    * each sample if {@code clearScreen} is set.
+    */
+   public StatsMonitor(List<RemoteCache<?, ?>> caches, int windowSize, PrintStream console, Writer csv, boolean clearScreen) {
+      if (windowSize < 2)
+         throw new IllegalArgumentException("Rates need a window of at least two samples: " + windowSize);
+
+      for (RemoteCache<?, ?> cache : caches) {
+         String name = cache.getName() == null || cache.getName().isEmpty() ? "___defaultcache" : cache.getName();
+         this.caches.put(name, cache);
+         this.windows.put(name, new ArrayDeque<Sample>(windowSize));
+      }
+      this.windowSize = windowSize;
+      this.console = console;
+      this.csv = csv;
+      this.clearScreen = clearScreen;
+   }
+
+   /**
+    * Starts sampling at the given interval.
+    */
+   public void start(long interval, TimeUnit unit) throws IOException {
+      if (csv != null) {
+         csv.write(CSV_HEADER);
+         csv.write('\n');
+      }
+      scheduler.scheduleAtFixedRate(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               sample();
+            } catch (Exception e) {
+               // Keep monitoring, the server might be temporarily unavailable
+               if (console != null)
+                  console.printf("Unable to sample statistics: %s%n", e);
+            }
+         }
+      }, 0, interval, unit);
+   }
+
+   /**
+    * Takes a sample of every cache and reports rates over the current windows.
+    */
+   public Map<String, Rates> sample() throws IOException {
+      Map<String, Rates> rates = new LinkedHashMap<>();
+      for (Map.Entry<String, RemoteCache<?, ?>> e : caches.entrySet()) {
+         ArrayDeque<Sample> window = windows.get(e.getKey());
+         if (window.size() == windowSize)
+            window.pollFirst();
+         window.addLast(new Sample(System.nanoTime(), e.getValue().stats().getStatsMap()));
+         rates.put(e.getKey(), new Rates(window.peekFirst(), window.peekLast()));
+      }
+
+      long timestamp = System.currentTimeMillis();
+      if (console != null)
+         print(timestamp, rates);
+      if (csv != null)
+         write(timestamp, rates);
+      return rates;
+   }
+
+   private void print(long timestamp, Map<String, Rates> rates) {
+      if (clearScreen)
+         console.print("\u001B[H\u001B[2J");
+
+      console.printf(Locale.ENGLISH, "%tT - window of %d samples%n%n", timestamp, windowSize);
+      console.printf("%-24s %10s %10s %10s %10s %10s %10s %8s%n",
+            "CACHE", "ENTRIES", "HITS/s", "MISSES/s", "STORES/s", "REMOVES/s", "EVICT/s", "HIT%");
+      for (Map.Entry<String, Rates> e : rates.entrySet()) {
+         Rates r = e.getValue();
+         console.printf(Locale.ENGLISH, "%-24s %10s %10s %10s %10s %10s %10s %8s%n", e.getKey(),
+               format(r.entries, "%d"), format(r.hits, "%.1f"), format(r.misses, "%.1f"), format(r.stores, "%.1f"),
+               format(r.removes, "%.1f"), format(r.evictions, "%.1f"), format(r.hitRatio * 100, "%.1f"));
+      }
+      console.flush();
+   }
+
+   private void write(long timestamp, Map<String, Rates> rates) throws IOException {
+      for (Map.Entry<String, Rates> e : rates.entrySet()) {
+         Rates r = e.getValue();
+         csv.write(String.format(Locale.ENGLISH, "%d,%s,%s,%s,%s,%s,%s,%s,%s%n", timestamp, e.getKey(),
+               csv(r.entries, "%d"), csv(r.hits, "%.3f"), csv(r.misses, "%.3f"), csv(r.stores, "%.3f"),
+               csv(r.removes, "%.3f"), csv(r.evictions, "%.3f"), csv(r.hitRatio, "%.4f")));
+      }
+      csv.flush();
+   }
+
+   private static String format(double value, String format) {
+      return Double.isNaN(value) ? "n/a" : String.format(Locale.ENGLISH, format, value);
+   }
+
+   private static String format(long value, String format) {
+      return value < 0 ? "n/a" : String.format(Locale.ENGLISH, format, value);
+   }
+
+   private static String csv(double value, String format) {
+      return Double.isNaN(value) ? "" : String.format(Locale.ENGLISH, format, value);
+   }
+
+   private static String csv(long value, String format) {
+      return value < 0 ? "" : String.format(Locale.ENGLISH, format, value);
+   }
+
+   @Override
+   public void close() throws IOException {
+      // Let a sample in progress finish writing before closing the CSV writer
+      scheduler.shutdownNow();
+      try {
+         scheduler.awaitTermination(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      if (csv != null)
+         csv.close();
+   }
+
+   static final class Sample {
+      final long nanos;
+      final Map<String, String> stats;
+
+      Sample(long nanos, Map<String, String> stats) {
+         this.nanos = nanos;
+         this.stats = stats;
+      }
+
+      long counter(String name) {
+         String value = stats.get(name);
+         if (value == null)
+            return -1;
+         try {
+            return Long.parseLong(value.trim());
+         } catch (NumberFormatException e) {
+            return -1;
+         }
+      }
+   }
+
+   /**
+    * Rates per second over a window of samples, {@code NaN} when not
+    * available, either because a counter is not reported or because the
+    * window holds a single sample.
+    */
+   public static final class Rates {
+      public final long entries;
+      public final double hits;
+      public final double misses;
+      public final double stores;
+      public final double removes;
+      public final double evictions;
+      public final double hitRatio;
+
+      Rates(Sample first, Sample last) {
+         double seconds = (last.nanos - first.nanos) / 1e9;
+         entries = last.counter(ServerStatistics.CURRENT_NR_OF_ENTRIES);
+         hits = rate(first, last, seconds, ServerStatistics.HITS);
+         misses = rate(first, last, seconds, ServerStatistics.MISSES);
+         stores = rate(first, last, seconds, ServerStatistics.STORES);
+         removes = rate(first, last, seconds, ServerStatistics.REMOVE_HITS);
+         evictions = rate(first, last, seconds, EVICTIONS);
+
+         long hitDelta = delta(first, last, ServerStatistics.HITS);
+         long missDelta = delta(first, last, ServerStatistics.MISSES);
+         hitRatio = hitDelta < 0 || missDelta < 0 || hitDelta + missDelta == 0
+               ? Double.NaN : (double) hitDelta / (hitDelta + missDelta);
+      }
+
+      private static double rate(Sample first, Sample last, double seconds, String counter) {
+         long delta = delta(first, last, counter);
+         return delta < 0 || seconds <= 0 ? Double.NaN : delta / seconds;
+      }
+
+      private static long delta(Sample first, Sample last, String counter) {
+         long before = first.counter(counter);
+         long after = last.counter(counter);
+         // A counter going backwards means the server restarted, count from zero
+         if (before < 0 || after < 0)
+            return -1;
+         return after >= before ? after - before : after;
+      }
+   }
+
+}
@@ -0,0 +1,209 @@
+package org.infinispan.tutorial.remote.timeseries;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An immutable series of float samples ordered by time, stored as two
+ * packed columns of primitive timestamps and values rather than one object
+ * per sample, so that a whole history fits in a single cache entry with
+ * twelve bytes per sample and no per sample object headers.
+ *
+ * Appending returns a new series, which makes it usable from an
+ * {@link org.infinispan.tutorial.remote.concurrent.UpdateFunction}.
+ */
+public final class TimeSeries implements Serializable {
+
+   private static final long[] NO_TIMES = new long[0];
+   private static final float[] NO_VALUES = new float[0];
+
+   public static final TimeSeries EMPTY = new TimeSeries(NO_TIMES, NO_VALUES);
+
+   private final long[] times;
+   private final float[] values;
+
+   TimeSeries(long[] times, float[] values) {
+      this.times = times;
+      this.values = values;
+   }
+
+   /**
+    * Creates a series from the given columns, which are copied and sorted by time.
+    */
+   public static TimeSeries of(long[] times, float[] values) {
+      if (times.length != values.length)
+         throw new IllegalArgumentException("Columns must have the same length");
+      return EMPTY.append(times, values);
+   }
+
+   public int size() {
+      return times.length;
+   }
+
+   public boolean isEmpty() {
+      return times.length == 0;
+   }
+
+   public long time(int index) {
+      return times[index];
+   }
+
+   public float value(int index) {
+      return values[index];
+   }
+
+   public long firstTime() {
+      return times[0];
+   }
+
+   public long lastTime() {
+      return times[times.length - 1];
+   }
+
+   /**
+    * Returns a series with the given sample added. Samples are usually
+    * appended in time order, which only copies the columns; older samples
+    * are inserted in place, after any sample with the same time.
+    */
+   public TimeSeries append(long time, float value) {
+      int index = upperBound(time);
+      long[] newTimes = new long[times.length + 1];
+      float[] newValues = new float[values.length + 1];
+      System.arraycopy(times, 0, newTimes, 0, index);
+      System.arraycopy(values, 0, newValues, 0, index);
+      newTimes[index] = time;
+      newValues[index] = value;
+      System.arraycopy(times, index, newTimes, index + 1, times.length - index);
+      System.arraycopy(values, index, newValues, index + 1, values.length - index);
+      return new TimeSeries(newTimes, newValues);
+   }
+
+   /**
+    * Returns a series with the given samples added, copying the columns once.
+    */
+   public TimeSeries append(long[] times, float[] values) {
+      if (times.length != values.length)
+         throw new IllegalArgumentException("Columns must have the same length");
+      if (times.length == 0)
+         return this;
+
+      long[] newTimes = Arrays.copyOf(this.times, this.times.length + times.length);
+      float[] newValues = Arrays.copyOf(this.values, this.values.length + values.length);
+      System.arraycopy(times, 0, newTimes, this.times.length, times.length);
+      System.arraycopy(values, 0, newValues, this.values.length, values.length);
+
+      // Appending in order is the common case, otherwise merge the new samples in
+      boolean ordered = this.times.length == 0 || times[0] >= lastTime();
+      for (int i = 1; ordered && i < times.length; i++)
+         ordered = times[i] >= times[i - 1];
+      if (!ordered)
+         sort(newTimes, newValues);
+      return new TimeSeries(newTimes, newValues);
+   }
+
+   /**
+    * Returns the samples with times in the given range, from inclusive, to exclusive.
+    */
+   public TimeSeries window(long from, long to) {
+      int start = lowerBound(from);
+      int end = Math.max(start, lowerBound(to));
+      if (start == 0 && end == times.length)
+         return this;
+      if (start == end)
+         return EMPTY;
+
+      return new TimeSeries(Arrays.copyOfRange(times, start, end), Arrays.copyOfRange(values, start, end));
+   }
+
+   /**
+    * Concatenates series covering consecutive, non overlapping, time ranges.
+    */
+   public static TimeSeries concat(TimeSeries... series) {
+      int size = 0;
+      for (TimeSeries s : series)
+         size += s.size();
+
+      long[] times = new long[size];
+      float[] values = new float[size];
+      int offset = 0;
+      for (TimeSeries s : series) {
+         System.arraycopy(s.times, 0, times, offset, s.size());
+         System.arraycopy(s.values, 0, values, offset, s.size());
+         offset += s.size();
+      }
+      return new TimeSeries(times, values);
+   }
+
+   long[] times() {
+      return times;
+   }
+
+   float[] values() {
+      return values;
+   }
+
+   private int lowerBound(long time) {
+      // First index whose time is not before the given one
+      int low = 0;
+      int high = times.length;
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         if (times[mid] < time)
+            low = mid + 1;
+         else
+            high = mid;
+      }
+      return low;
+   }
+
+   private int upperBound(long time) {
+      // First index whose time is after the given one
+      int low = 0;
+      int high = times.length;
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         if (times[mid] <= time)
+            low = mid + 1;
+         else
+            high = mid;
+      }
+      return low;
+   }
+
+   private static void sort(long[] times, float[] values) {
+      // Stable insertion sort, samples are mostly ordered already
+      for (int i = 1; i < times.length; i++) {
+         long time = times[i];
+         float value = values[i];
+         int j = i - 1;
+         while (j >= 0 && times[j] > time) {
+            times[j + 1] = times[j];
+            values[j + 1] = values[j];
+            j--;
+         }
+         times[j + 1] = time;
+         values[j + 1] = value;
+      }
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      TimeSeries that = (TimeSeries) o;
+      return Arrays.equals(times, that.times) && Arrays.equals(values, that.values);
+   }
+
+   @Override
+   public int hashCode() {
+      return 31 * Arrays.hashCode(times) + Arrays.hashCode(values);
+   }
+
+   @Override
+   public String toString() {
+      return "TimeSeries{" + "size=" + times.length
+            + (times.length == 0 ? "" : ", from=" + firstTime() + ", to=" + lastTime()) + '}';
+   }
+
+}
@@ -0,0 +1,124 @@
+package org.infinispan.tutorial.remote.timeseries;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.tutorial.remote.concurrent.AtomicUpdater;
+import org.infinispan.tutorial.remote.concurrent.UpdateFunction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the history of named series in a remote cache as {@link TimeSeries}
+ * entries, one per series and fixed time bucket, e.g. one per symbol and
+ * day, instead of one entry per sample.
+ *
+ * Samples are appended with the versioned compare-and-swap updates of an
+ * {@link AtomicUpdater}, so concurrent appenders never lose samples, and
+ * bucketing bounds how much of the history each append rewrites. Windowed
+ * reads fetch only the buckets overlapping the window.
+ */
+public class TimeSeriesStore {
+
+   private final RemoteCache<String, TimeSeries> cache;
+   private final long bucketMillis;
+   private final AtomicUpdater updater;
+
+   public TimeSeriesStore(RemoteCache<String, TimeSeries> cache, long bucket, TimeUnit unit) {
+      this(cache, bucket, unit, new AtomicUpdater());
+   }
+
+   public TimeSeriesStore(RemoteCache<String, TimeSeries> cache, long bucket, TimeUnit unit, AtomicUpdater updater) {
+      if (unit.toMillis(bucket) < 1)
+         throw new IllegalArgumentException("Buckets must span at least a millisecond");
+
+      this.cache = cache;
+      this.bucketMillis = unit.toMillis(bucket);
+      this.updater = updater;
+   }
+
+   /**
+    * Appends a sample to the given series.
+    */
+   public void append(String series, final long time, final float value) {
+      updater.atomicUpdate(cache, key(series, bucket(time)), new UpdateFunction<TimeSeries>() {
+         @Override
+         public TimeSeries apply(TimeSeries current) {
+            return (current == null ? TimeSeries.EMPTY : current).append(time, value);
+         }
+      });
+   }
+
+   /**
+    * Appends several samples to the given series, with one update per bucket
+    * they fall in rather than one per sample.
+    */
+   public void append(String series, long[] times, float[] values) {
+      if (times.length != values.length)
+         throw new IllegalArgumentException("Columns must have the same length");
+
+      // Split the samples into runs of the same bucket
+      int start = 0;
+      while (start < times.length) {
+         long bucket = bucket(times[start]);
+         int end = start + 1;
+         while (end < times.length && bucket(times[end]) == bucket)
+            end++;
+
+         final long[] runTimes = Arrays.copyOfRange(times, start, end);
+         final float[] runValues = Arrays.copyOfRange(values, start, end);
+         updater.atomicUpdate(cache, key(series, bucket), new UpdateFunction<TimeSeries>() {
+            @Override
+            public TimeSeries apply(TimeSeries current) {
+               return (current == null ? TimeSeries.EMPTY : current).append(runTimes, runValues);
+            }
+         });
+         start = end;
+      }
+   }
+
+   /**
+    * Returns the samples of the given series with times in the given range,
+    * from inclusive, to exclusive.
+    */
+   public TimeSeries range(String series, long from, long to) {
+      if (from >= to)
+         return TimeSeries.EMPTY;
+
+      List<TimeSeries> parts = new ArrayList<>();
+      for (long bucket = bucket(from); bucket <= bucket(to - 1); bucket++) {
+         TimeSeries part = cache.get(key(series, bucket));
+         if (part != null)
+            parts.add(part.window(from, to));
+      }
+
+      // A window within a single bucket needs no further copying
+      if (parts.size() == 1)
+         return parts.get(0);
+      return TimeSeries.concat(parts.toArray(new TimeSeries[parts.size()]));
+   }
+
+   /**
+    * Removes the buckets of the given series overlapping the given range.
+    */
+   public void remove(String series, long from, long to) {
+      for (long bucket = bucket(from); bucket <= bucket(to - 1); bucket++)
+         cache.remove(key(series, bucket));
+   }
+
+   public long bucketMillis() {
+      return bucketMillis;
+   }
+
+   long bucket(long time) {
+      // Floor division, so that times before the epoch fall in their own buckets
+      long bucket = time / bucketMillis;
+      return time < 0 && time % bucketMillis != 0 ? bucket - 1 : bucket;
+   }
+
+   static String key(String series, long bucket) {
+      return series + "@" + bucket;
+   }
+
+}
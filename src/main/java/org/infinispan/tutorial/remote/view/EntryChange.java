@@ -0,0 +1,40 @@
+package org.infinispan.tutorial.remote.view;
+
+import java.io.Serializable;
+
+/**
+ * Custom event shipped to materialized view listeners, carrying the key of a
+ * modified entry together with its previous and new values, so that views
+ * can retract the previous value before applying the new one. The previous
+ * value is null for created entries, and the new value null for removed ones.
+ */
+public final class EntryChange implements Serializable {
+
+   private final Object key;
+   private final Object oldValue;
+   private final Object newValue;
+
+   public EntryChange(Object key, Object oldValue, Object newValue) {
+      this.key = key;
+      this.oldValue = oldValue;
+      this.newValue = newValue;
+   }
+
+   public Object key() {
+      return key;
+   }
+
+   public Object oldValue() {
+      return oldValue;
+   }
+
+   public Object newValue() {
+      return newValue;
+   }
+
+   @Override
+   public String toString() {
+      return "EntryChange{" + "key=" + key + ", oldValue=" + oldValue + ", newValue=" + newValue + '}';
+   }
+
+}
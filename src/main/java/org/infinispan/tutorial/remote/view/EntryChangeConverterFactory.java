@@ -0,0 +1,40 @@
+package org.infinispan.tutorial.remote.view;
+
+import org.infinispan.metadata.Metadata;
+import org.infinispan.notifications.cachelistener.filter.CacheEventConverter;
+import org.infinispan.notifications.cachelistener.filter.CacheEventConverterFactory;
+import org.infinispan.notifications.cachelistener.filter.EventType;
+import org.infinispan.notifications.cachelistener.filter.NamedFactory;
+
+/**
+ * Converter factory for materialized view listeners. The converter ships
+ * each modified entry as an {@link EntryChange}, with both its previous and
+ * new values, which is all a view needs to update itself incrementally.
+ */
+@NamedFactory(name = EntryChangeConverterFactory.NAME)
+public class EntryChangeConverterFactory implements CacheEventConverterFactory {
+
+   public static final String NAME = "entry-change-converter-factory";
+
+   @Override
+   public CacheEventConverter<Object, Object, EntryChange> getConverter(Object[] params) {
+      return new EntryChangeConverter();
+   }
+
+   static class EntryChangeConverter implements CacheEventConverter<Object, Object, EntryChange> {
+      @Override
+      public EntryChange convert(Object key, Object oldValue, Metadata oldMetadata,
+            Object newValue, Metadata newMetadata, EventType eventType) {
+         switch (eventType.getType()) {
+            case CACHE_ENTRY_CREATED:
+               // Existing entries replayed to the listener come as creations too
+               return new EntryChange(key, null, newValue);
+            case CACHE_ENTRY_REMOVED:
+               return new EntryChange(key, oldValue, null);
+            default:
+               return new EntryChange(key, oldValue, newValue);
+         }
+      }
+   }
+
+}
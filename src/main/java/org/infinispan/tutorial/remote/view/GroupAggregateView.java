@@ -0,0 +1,103 @@
+package org.infinispan.tutorial.remote.view;
+
+import org.infinispan.tutorial.remote.aggregate.Aggregates;
+import org.infinispan.tutorial.remote.aggregate.Measurable;
+import org.infinispan.tutorial.remote.aggregate.RunningAggregates;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * View keeping the {@link Aggregates} of the {@link Measurable} values of
+ * entries per group, e.g. the count, minimum, maximum and average stock
+ * value per exchange.
+ *
+ * Each group keeps its running aggregates, so a modification takes
+ * logarithmic time in the size of its group, and publishes an immutable
+ * snapshot of them once updated. Readers get the aggregates of a group in
+ * constant time, without locking and without waiting for updates.
+ */
+public class GroupAggregateView<K, V, G> implements View<K, V> {
+
+   /**
+    * Assigns an entry to a group, returning null for entries that should
+    * not be aggregated.
+    */
+   public interface Classifier<K, V, G> {
+      G group(K key, V value);
+   }
+
+   private static final Aggregates EMPTY = new RunningAggregates().snapshot();
+
+   private final Classifier<? super K, ? super V, ? extends G> classifier;
+   // Guarded by this
+   private final Map<G, RunningAggregates> running = new HashMap<>();
+   private final ConcurrentMap<G, Aggregates> published = new ConcurrentHashMap<>();
+
+   public GroupAggregateView(Classifier<? super K, ? super V, ? extends G> classifier) {
+      this.classifier = classifier;
+   }
+
+   @Override
+   public synchronized void update(K key, V oldValue, V newValue) {
+      // Values can move between groups, so retract from one and apply to the other
+      G oldGroup = oldValue == null ? null : classifier.group(key, oldValue);
+      G newGroup = newValue == null ? null : classifier.group(key, newValue);
+      boolean retracted = oldGroup != null && retract(oldGroup, oldValue);
+      boolean applied = newGroup != null && apply(newGroup, newValue);
+
+      // Publish each updated group once
+      if (retracted)
+         publish(oldGroup);
+      if (applied && !(retracted && newGroup.equals(oldGroup)))
+         publish(newGroup);
+   }
+
+   /**
+    * The aggregates of a group, which are empty if it has no values.
+    */
+   public Aggregates aggregates(G group) {
+      Aggregates aggregates = published.get(group);
+      return aggregates == null ? EMPTY : aggregates;
+   }
+
+   /**
+    * The aggregates of all groups with values. Each group's aggregates are
+    * consistent, though groups updated while copying might be older or
+    * newer than each other.
+    */
+   public Map<G, Aggregates> snapshot() {
+      return Collections.unmodifiableMap(new HashMap<>(published));
+   }
+
+   private boolean apply(G group, V value) {
+      RunningAggregates aggregates = running.get(group);
+      if (aggregates == null) {
+         if (!(value instanceof Measurable))
+            return false;
+         aggregates = new RunningAggregates();
+         running.put(group, aggregates);
+      }
+      return aggregates.add(value);
+   }
+
+   private boolean retract(G group, V value) {
+      RunningAggregates aggregates = running.get(group);
+      return aggregates != null && aggregates.remove(value);
+   }
+
+   private void publish(G group) {
+      // Forget groups left without values
+      RunningAggregates aggregates = running.get(group);
+      if (aggregates.count() == 0) {
+         running.remove(group);
+         published.remove(group);
+      } else {
+         published.put(group, aggregates.snapshot());
+      }
+   }
+
+}
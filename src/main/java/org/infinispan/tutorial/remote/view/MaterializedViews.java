@@ -0,0 +1,88 @@
+package org.infinispan.tutorial.remote.view;
+
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryCreated;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryModified;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryRemoved;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.event.ClientCacheEntryCustomEvent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains client side {@link View}s of a remote cache, such as a
+ * {@link TopNView} or a {@link GroupAggregateView}, incrementally from
+ * custom events, instead of rebuilding them by scanning the cache. The
+ * {@link EntryChangeConverterFactory} must be deployed on the server, so
+ * that each event carries both the previous and the new value of an entry.
+ *
+ * Entries present when the views are created are replayed to them as
+ * creations, after which every modification updates the views once, in the
+ * order the client receives them. Views can then be read from any thread
+ * without going to the server.
+ */
+public class MaterializedViews<K, V> implements AutoCloseable {
+
+   private final RemoteCache<K, V> cache;
+   private final List<View<? super K, ? super V>> views;
+   private final ViewListener listener = new ViewListener();
+   private final AtomicLong changes = new AtomicLong();
+
+   /**
+    * Starts maintaining the given views, replaying existing entries to them.
+    */
+   @SafeVarargs
+   public MaterializedViews(RemoteCache<K, V> cache, View<? super K, ? super V>... views) {
+      this.cache = cache;
+      this.views = Arrays.asList(views);
+      cache.addClientListener(listener);
+   }
+
+   /**
+    * Number of changes applied to the views so far.
+    */
+   public long changes() {
+      return changes.get();
+   }
+
+   /**
+    * Stops maintaining the views, which keep their last state.
+    */
+   @Override
+   public void close() {
+      cache.removeClientListener(listener);
+   }
+
+   @SuppressWarnings("unchecked")
+   private void apply(EntryChange change) {
+      K key = (K) change.key();
+      V oldValue = (V) change.oldValue();
+      V newValue = (V) change.newValue();
+      for (View<? super K, ? super V> view : views)
+         view.update(key, oldValue, newValue);
+      changes.incrementAndGet();
+   }
+
+   // Link up client listener with the converter factory, replaying existing entries
+   @ClientListener(converterFactoryName = EntryChangeConverterFactory.NAME, includeCurrentState = true)
+   public class ViewListener {
+
+      @ClientCacheEntryCreated
+      public void createdEntry(ClientCacheEntryCustomEvent<EntryChange> event) {
+         apply(event.getEventData());
+      }
+
+      @ClientCacheEntryModified
+      public void modifiedEntry(ClientCacheEntryCustomEvent<EntryChange> event) {
+         apply(event.getEventData());
+      }
+
+      @ClientCacheEntryRemoved
+      public void removedEntry(ClientCacheEntryCustomEvent<EntryChange> event) {
+         apply(event.getEventData());
+      }
+   }
+
+}
@@ -0,0 +1,142 @@
+package org.infinispan.tutorial.remote.view;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * View ranking entries by a score computed from each modification, e.g. the
+ * relative price change of a stock for a "top movers" board, and keeping the
+ * N entries with the highest scores.
+ *
+ * Every entry with a score is kept in a skip list ordered by score, indexed
+ * by key, so that rescoring an entry takes logarithmic time whatever the
+ * number of entries. After each modification affecting the top N, an
+ * immutable copy of them is published, so readers get a consistent ranking
+ * in constant time, without locking and without waiting for updates.
+ */
+public class TopNView<K, V> implements View<K, V> {
+
+   /**
+    * Computes the score of an entry from a modification of it, returning
+    * {@code NaN} for entries that should not be ranked, e.g. newly created
+    * ones when scoring changes of value.
+    */
+   public interface Scorer<K, V> {
+      double score(K key, V oldValue, V newValue);
+   }
+
+   private final int n;
+   private final Scorer<? super K, ? super V> scorer;
+   // Ranked entries in descending order of score, and their index by key
+   private final ConcurrentSkipListSet<Ranked<K>> ranking = new ConcurrentSkipListSet<>();
+   private final ConcurrentMap<K, Ranked<K>> index = new ConcurrentHashMap<>();
+
+   // Guarded by this
+   private long sequence;
+
+   private volatile List<Ranked<K>> top = Collections.emptyList();
+
+   public TopNView(int n, Scorer<? super K, ? super V> scorer) {
+      if (n <= 0)
+         throw new IllegalArgumentException("Expected a positive number of ranked entries, got " + n);
+      this.n = n;
+      this.scorer = scorer;
+   }
+
+   @Override
+   public synchronized void update(K key, V oldValue, V newValue) {
+      double score = newValue == null ? Double.NaN : scorer.score(key, oldValue, newValue);
+
+      // Take out the previous ranking of the entry, if any
+      Ranked<K> previous = index.remove(key);
+      boolean changed = previous != null && isTop(previous);
+      if (previous != null)
+         ranking.remove(previous);
+
+      if (!Double.isNaN(score)) {
+         // The sequence number tells apart entries with equal scores, ranking the oldest first
+         Ranked<K> ranked = new Ranked<>(key, score, sequence++);
+         ranking.add(ranked);
+         index.put(key, ranked);
+         changed |= isTop(ranked);
+      }
+
+      if (changed)
+         publish();
+   }
+
+   /**
+    * The N highest ranked entries, in descending order of score.
+    */
+   public List<Ranked<K>> top() {
+      return top;
+   }
+
+   /**
+    * The current ranking of an entry, or null if it is not ranked.
+    */
+   public Ranked<K> ranking(K key) {
+      return index.get(key);
+   }
+
+   /**
+    * Number of ranked entries, including those outside the top N.
+    */
+   public int size() {
+      return index.size();
+   }
+
+   private boolean isTop(Ranked<K> ranked) {
+      // Whatever is ranked above the last published entry, or anything while the top is not full
+      List<Ranked<K>> current = top;
+      return current.size() < n || ranked.compareTo(current.get(current.size() - 1)) <= 0;
+   }
+
+   private void publish() {
+      List<Ranked<K>> copy = new ArrayList<>(n);
+      Iterator<Ranked<K>> it = ranking.iterator();
+      while (copy.size() < n && it.hasNext())
+         copy.add(it.next());
+      top = Collections.unmodifiableList(copy);
+   }
+
+   /**
+    * An entry ranked by a {@link TopNView}, with its score.
+    */
+   public static final class Ranked<K> implements Comparable<Ranked<K>> {
+      private final K key;
+      private final double score;
+      private final long sequence;
+
+      Ranked(K key, double score, long sequence) {
+         this.key = key;
+         this.score = score;
+         this.sequence = sequence;
+      }
+
+      public K key() {
+         return key;
+      }
+
+      public double score() {
+         return score;
+      }
+
+      @Override
+      public int compareTo(Ranked<K> o) {
+         int c = Double.compare(o.score, score);
+         return c != 0 ? c : Long.compare(sequence, o.sequence);
+      }
+
+      @Override
+      public String toString() {
+         return key + "=" + score;
+      }
+   }
+
+}
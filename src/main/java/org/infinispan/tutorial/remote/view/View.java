@@ -0,0 +1,19 @@
+package org.infinispan.tutorial.remote.view;
+
+/**
+ * A materialized view over the entries of a remote cache, kept up to date by
+ * {@link MaterializedViews} as entries are created, modified and removed.
+ *
+ * Updates are applied from the client's event thread, one at a time, so they
+ * must be quick and should not block; reads may happen concurrently from any
+ * thread.
+ */
+public interface View<K, V> {
+
+   /**
+    * Applies a modification of an entry, whose previous value is null if it
+    * was created, and whose new value is null if it was removed.
+    */
+   void update(K key, V oldValue, V newValue);
+
+}
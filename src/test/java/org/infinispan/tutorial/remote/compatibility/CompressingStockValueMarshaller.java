@@ -0,0 +1,18 @@
+package org.infinispan.tutorial.remote.compatibility;
+
+import org.infinispan.tutorial.remote.marshall.CompressingMarshaller;
+
+/**
+ * The {@link StockValueMarshaller} with values of 1KB or more compressed. It
+ * is installed in the server as the compatibility marshaller, so that Hot Rod
+ * clients sending compressed values and REST clients can share the data.
+ * Smaller values are written exactly as by the {@link StockValueMarshaller},
+ * so clients using that one keep working as long as their values are small.
+ */
+public class CompressingStockValueMarshaller extends CompressingMarshaller {
+
+   public CompressingStockValueMarshaller() {
+      super(new StockValueMarshaller());
+   }
+
+}
@@ -1,5 +1,11 @@
 package org.infinispan.tutorial.remote.compatibility;
 
+import org.infinispan.tutorial.remote.aggregate.Measurable;
+import org.infinispan.tutorial.remote.marshall.CompactMarshaller;
+import org.infinispan.tutorial.remote.marshall.CompressingMarshaller;
+import org.infinispan.tutorial.remote.marshall.ValueCodec;
+import org.infinispan.tutorial.remote.timeseries.TimeSeries;
+import org.infinispan.tutorial.remote.timeseries.TimeSeriesCodec;
 import org.infinispan.tutorial.remote.util.Xml;
 import org.jboss.arquillian.container.spi.event.container.AfterStop;
 import org.jboss.arquillian.container.spi.event.container.BeforeStart;
@@ -38,6 +44,8 @@ public class InstallCompatibilityModule implements LoadableExtension {
 
    public static class CompatibilityModule {
 
+      static final String COMPATIBILITY_CONFIG = "/docs/examples/configs/standalone-compatibility-mode.xml";
+
       @SuppressWarnings("unused")
       public void install(@Observes BeforeStart event) throws IOException {
          // Module install phase before server starts, check this is a compatibility test
@@ -65,6 +73,9 @@ public class InstallCompatibilityModule implements LoadableExtension {
             // Finally, add the compatibility module as dependency for Infinispan
             // so that classes can be found by the classloading logic
             Xml.addInfinispanDependency(serverDir, "org.infinispan.tutorial");
+
+            // Make the server unmarshall values with the compact stock value marshaller, decompressing large ones
+            Xml.setCompatibilityMarshaller(serverDir, COMPATIBILITY_CONFIG, CompressingStockValueMarshaller.class.getName());
          }
       }
 
@@ -75,14 +86,20 @@ public class InstallCompatibilityModule implements LoadableExtension {
                "      <resource-root path=\"compatibility-stock-value.jar\"/>\n" +
                "   </resources>\n" +
                "   \n" +
-               "   <dependencies/>\n" +
+               "   <dependencies>\n" +
+               "      <module name=\"org.infinispan.commons\"/>\n" +
+               "   </dependencies>\n" +
                "</module>\n";
       }
 
       private static InputStream createStockValueJar() {
          // Use Shrinkwrap to create a jar file containing the desired classes
          return ShrinkWrap.create(JavaArchive.class, "compatibility-stock-value.jar")
-               .addClasses(StockValue.class).as(ZipExporter.class).exportAsInputStream();
+               .addClasses(StockValue.class, StockValueMarshaller.class, Measurable.class)
+               .addClasses(CompactMarshaller.class, ValueCodec.class)
+               .addClasses(CompressingMarshaller.class, CompressingStockValueMarshaller.class)
+               .addClasses(TimeSeries.class, TimeSeriesCodec.class)
+               .as(ZipExporter.class).exportAsInputStream();
       }
 
       @SuppressWarnings("unused")
@@ -96,6 +113,9 @@ public class InstallCompatibilityModule implements LoadableExtension {
             // Remove compatibility module dependency from main Infinispan module
             Xml.removeInfinispanDependency(serverDir);
 
+            // Restore the original compatibility mode configuration
+            Xml.restoreCompatibilityMarshaller(serverDir, COMPATIBILITY_CONFIG);
+
             // Delete all module files
             Path path = Paths.get(serverDir, "/modules/system/layers/base/org/infinispan/tutorial/main/");
             try {
@@ -11,6 +11,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Set;
 
 import static org.infinispan.tutorial.remote.util.JdkHttpClient.*;
@@ -84,6 +85,90 @@ public class RemoteCompatibilityIT {
       }
    }
 
+   @Test
+   public void remoteCompatibilityCompactMarshaller() {
+      Params params;
+
+      // Configure the Hot Rod client to marshall stock values compactly,
+      // same as the server is configured to for compatibility mode
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+      configurationBuilder.marshaller(new StockValueMarshaller());
+
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      try {
+         RemoteCache<String, StockValue> remoteCache = remoteCacheManager.getCache();
+
+         // Insert a stock entry using remote cache API with compact marshalling
+         StockValue orclPrice = new StockValue(41.7f);
+         remoteCache.put("NYSE:ORCL", orclPrice);
+
+         // Read the stock using the REST HTTP API
+         params = Params.apply(Keys.ACCEPT, "application/x-java-serialized-object");
+         Assert.assertEquals(orclPrice, get(cacheKeyUri("NYSE:ORCL"), params.map()).get(Keys.BODY));
+
+         // Insert new value for stock using REST HTTP API
+         StockValue orclUpdate = new StockValue(42.3f);
+         params = Params.apply(Keys.BODY, orclUpdate).add(Keys.CONTENT_TYPE, "application/x-java-serialized-object");
+         Assert.assertEquals(200, put(cacheKeyUri("NYSE:ORCL"), params.map()).get(Keys.STATUS_CODE));
+
+         // Read the stock using remote cache API with compact marshalling
+         Assert.assertEquals(orclUpdate, remoteCache.get("NYSE:ORCL"));
+      } finally {
+         // Release connection
+         remoteCacheManager.stop();
+      }
+   }
+
+   @Test
+   public void remoteCompatibilityCompressedHotRod() throws Exception {
+      Params params;
+
+      // Configure the Hot Rod client to compress large values,
+      // same as the server is configured to for compatibility mode
+      CompressingStockValueMarshaller marshaller = new CompressingStockValueMarshaller();
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+      configurationBuilder.marshaller(marshaller);
+
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      try {
+         RemoteCache<String, Object> remoteCache = remoteCacheManager.getCache();
+
+         // A quote history large enough to be compressed on the wire
+         ArrayList<StockValue> history = new ArrayList<>();
+         for (int i = 0; i < 500; i++)
+            history.add(new StockValue(70 + i / 100f, i * 1000L));
+         int compressed = marshaller.objectToByteBuffer(history).length;
+         int uncompressed = new StockValueMarshaller().objectToByteBuffer(history).length;
+         System.out.printf("history ==> %d bytes compressed, %d uncompressed\n", compressed, uncompressed);
+         Assert.assertTrue(compressed < uncompressed);
+
+         // Insert it using remote cache API, sending compressed bytes which the server decompresses
+         remoteCache.put("NYSE:RHT:history", history);
+
+         // Read it using the REST HTTP API, which gets the server's unmarshalled value
+         params = Params.apply(Keys.ACCEPT, "application/x-java-serialized-object");
+         Assert.assertEquals(history, get(cacheKeyUri("NYSE:RHT:history"), params.map()).get(Keys.BODY));
+
+         // Replace it using the REST HTTP API, and read it using remote cache API,
+         // which the server answers with compressed bytes
+         history.add(new StockValue(75f, 500 * 1000L));
+         params = Params.apply(Keys.BODY, history).add(Keys.CONTENT_TYPE, "application/x-java-serialized-object");
+         Assert.assertEquals(200, put(cacheKeyUri("NYSE:RHT:history"), params.map()).get(Keys.STATUS_CODE));
+         Assert.assertEquals(history, remoteCache.get("NYSE:RHT:history"));
+      } finally {
+         // Release connection
+         remoteCacheManager.stop();
+      }
+   }
+
    URI cacheKeyUri(String key) {
       return uri(server1.getRESTEndpoint().getInetAddress().getHostName(), 8080,
             String.format("/rest/___defaultcache/%s", key));
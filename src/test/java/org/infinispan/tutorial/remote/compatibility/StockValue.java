@@ -1,14 +1,17 @@
 package org.infinispan.tutorial.remote.compatibility;
 
+import org.infinispan.tutorial.remote.aggregate.Measurable;
+
 import java.io.Serializable;
 import java.util.Date;
 
 /**
  * Stock value class. It must be Serializable, Externalizable, or somehow
  * marshallable in order to be transformed into different representations
- * depending on the endpoint used to access it.
+ * depending on the endpoint used to access it. Being {@link Measurable},
+ * stock values can be summarized by server side aggregations.
  */
-public final class StockValue implements Serializable {
+public final class StockValue implements Serializable, Measurable {
 
    private final float value;
    private final Date date;
@@ -18,6 +21,30 @@ public final class StockValue implements Serializable {
       this.date = new Date();
    }
 
+   public StockValue(float value, long time) {
+      this.value = value;
+      this.date = new Date(time);
+   }
+
+   public float value() {
+      return value;
+   }
+
+   public long time() {
+      return date.getTime();
+   }
+
+   @Override
+   public double measure() {
+      return value;
+   }
+
+   @Override
+   public double weight() {
+      // Quotes carry no volume, so each counts once
+      return 1;
+   }
+
    @Override
    public boolean equals(Object o) {
       if (this == o) return true;
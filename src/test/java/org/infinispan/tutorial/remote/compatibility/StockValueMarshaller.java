@@ -0,0 +1,45 @@
+package org.infinispan.tutorial.remote.compatibility;
+
+import org.infinispan.tutorial.remote.marshall.CompactMarshaller;
+import org.infinispan.tutorial.remote.marshall.ValueCodec;
+import org.infinispan.tutorial.remote.timeseries.TimeSeries;
+import org.infinispan.tutorial.remote.timeseries.TimeSeriesCodec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Marshaller writing {@link StockValue} instances as a fixed width float and
+ * epoch milliseconds, and quote histories as packed columns, instead of a
+ * Java serialization stream with class descriptors. It is installed in the
+ * server as the compatibility marshaller, wrapped by the
+ * {@link CompressingStockValueMarshaller}, so that Hot Rod clients using it
+ * and REST clients can share the data.
+ */
+public class StockValueMarshaller extends CompactMarshaller {
+
+   static final int STOCK_VALUE_ID = 1;
+   static final int TIME_SERIES_ID = 2;
+
+   public StockValueMarshaller() {
+      register(STOCK_VALUE_ID, StockValue.class, new StockValueCodec());
+      register(TIME_SERIES_ID, TimeSeries.class, new TimeSeriesCodec());
+   }
+
+   static final class StockValueCodec implements ValueCodec<StockValue> {
+      @Override
+      public int size(StockValue value) {
+         return 4 + 8;
+      }
+
+      @Override
+      public void encode(StockValue value, ByteBuffer buffer) {
+         buffer.putFloat(value.value()).putLong(value.time());
+      }
+
+      @Override
+      public StockValue decode(ByteBuffer buffer) {
+         return new StockValue(buffer.getFloat(), buffer.getLong());
+      }
+   }
+
+}
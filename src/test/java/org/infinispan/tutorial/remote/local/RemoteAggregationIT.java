@@ -0,0 +1,152 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.notifications.cachelistener.filter.CacheEventConverterFactory;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilterFactory;
+import org.infinispan.tutorial.remote.aggregate.AggregationConverterFactory;
+import org.infinispan.tutorial.remote.aggregate.AggregationFilterFactory;
+import org.infinispan.tutorial.remote.aggregate.Aggregates;
+import org.infinispan.tutorial.remote.aggregate.Measurable;
+import org.infinispan.tutorial.remote.aggregate.RemoteAggregation;
+import org.infinispan.tutorial.remote.compatibility.StockValue;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.container.test.api.OverProtocol;
+import org.jboss.arquillian.container.test.api.TargetsContainer;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.Serializable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(Arquillian.class)
+public class RemoteAggregationIT {
+
+   private static final String CONTAINER = "container-default";
+
+   static final int NUM_QUOTES = 1000;
+   static final double DELTA = 1e-3;
+
+   // Container defined in arquillian.xml
+   @InfinispanResource(CONTAINER)
+   RemoteInfinispanServer server1;
+
+   @Deployment(testable = false, name = "aggregation-cache-event-factories-1") // A deployment containing only factories, no tests
+   @TargetsContainer(CONTAINER) // Target container
+   @OverProtocol("jmx-as7") // Needs to be deployed over JMX (instead of Servlet)
+   public static Archive<?> deployAggregationFactories() {
+      // Create jar archive, with both factories, the aggregated value classes and their service provider definitions
+      return ShrinkWrap.create(JavaArchive.class, "aggregation-cache-event-factories.jar")
+            .addPackage(Aggregates.class.getPackage())
+            .addClasses(StockValue.class, Trade.class)
+            .addAsServiceProvider(CacheEventFilterFactory.class, AggregationFilterFactory.class)
+            .addAsServiceProvider(CacheEventConverterFactory.class, AggregationConverterFactory.class);
+   }
+
+   @Test
+   public void remoteCacheAggregation() throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      try {
+         // Obtain the default cache, and store quotes from 1.0 to 100.0 before aggregating
+         RemoteCache<String, Object> remoteCache = remoteCacheManager.getCache();
+         remoteCache.clear();
+
+         // Requests for aggregates go to another cache, leaving only stock values in the default one
+         RemoteCache<String, Object> controlCache = remoteCacheManager.getCache("namedCache");
+         for (int i = 1; i <= NUM_QUOTES; i++)
+            remoteCache.put("quote-" + i, new StockValue(i / 10f, i));
+
+         // Aggregate on the server, pushing updates at most once a second
+         try (RemoteAggregation aggregation = new RemoteAggregation(remoteCache, controlCache, 1, TimeUnit.SECONDS)) {
+            // Existing entries are aggregated, with no entry sent to the client
+            Aggregates aggregates = aggregation.snapshot(10, TimeUnit.SECONDS);
+            System.out.printf("quotes ==> %s\n", aggregates);
+            Assert.assertEquals(NUM_QUOTES, aggregates.count());
+            Assert.assertEquals(0.1, aggregates.min(), DELTA);
+            Assert.assertEquals(100.0, aggregates.max(), DELTA);
+            Assert.assertEquals(50.05, aggregates.average(), DELTA);
+
+            // Modifications and removals are folded into the aggregates
+            remoteCache.put("quote-" + NUM_QUOTES, new StockValue(500f, NUM_QUOTES));
+            remoteCache.remove("quote-1");
+            aggregates = aggregation.snapshot(10, TimeUnit.SECONDS);
+            System.out.printf("quotes ==> %s\n", aggregates);
+            Assert.assertEquals(NUM_QUOTES - 1, aggregates.count());
+            Assert.assertEquals(0.2, aggregates.min(), DELTA);
+            Assert.assertEquals(500.0, aggregates.max(), DELTA);
+
+            // Replace quotes with trades, removing them one by one since clearing a cache sends no events
+            for (int i = 2; i <= NUM_QUOTES; i++)
+               remoteCache.remove("quote-" + i);
+            remoteCache.put("trade-1", new Trade(10, 100));
+            remoteCache.put("trade-2", new Trade(20, 300));
+            aggregates = aggregation.snapshot(10, TimeUnit.SECONDS);
+            System.out.printf("trades ==> %s\n", aggregates);
+            Assert.assertEquals(2, aggregates.count());
+            Assert.assertEquals(2, remoteCache.size());
+            Assert.assertEquals(15.0, aggregates.average(), DELTA);
+
+            // The volume weighted average price weighs each price by its traded volume
+            Assert.assertEquals(17.5, aggregates.weightedAverage(), DELTA);
+         }
+
+         // Without modifications after them, trades made within an interval are only pushed when refreshed
+         ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+         try (RemoteAggregation aggregation = new RemoteAggregation(remoteCache, controlCache, 200, TimeUnit.MILLISECONDS,
+               scheduler)) {
+            Assert.assertEquals(2, aggregation.snapshot(10, TimeUnit.SECONDS).count());
+            remoteCache.put("trade-3", new Trade(30, 100));
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (aggregation.latest().count() < 3 && System.currentTimeMillis() < deadline)
+               Thread.sleep(10);
+            System.out.printf("refreshed trades ==> %s\n", aggregation.latest());
+            Assert.assertEquals(3, aggregation.latest().count());
+            Assert.assertEquals(30.0, aggregation.latest().max(), DELTA);
+         } finally {
+            scheduler.shutdownNow();
+         }
+      } finally {
+         // Release connection
+         remoteCacheManager.stop();
+      }
+   }
+
+   public static class Trade implements Measurable, Serializable {
+      final double price;
+      final long volume;
+
+      public Trade(double price, long volume) {
+         this.price = price;
+         this.volume = volume;
+      }
+
+      @Override
+      public double measure() {
+         return price;
+      }
+
+      @Override
+      public double weight() {
+         return volume;
+      }
+   }
+
+}
@@ -0,0 +1,98 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+import org.infinispan.tutorial.remote.concurrent.AsyncRemoteCache;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(Arquillian.class)
+public class RemoteAsyncIT {
+
+   static final int NUM_OPS = 1000;
+   static final int TIMEOUT_MINUTES = 2;
+
+   // Container defined in arquillian.xml
+   @InfinispanResource("container-default")
+   RemoteInfinispanServer server1;
+
+   @Test
+   public void remoteCacheAsyncReadingWriting() throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      // Operations without a native asynchronous variant use a virtual thread each
+      // if the JVM supports it, otherwise a thread pool that grows on demand
+      ExecutorService executor = AsyncRemoteCache.isVirtualThreadSupported()
+            ? AsyncRemoteCache.virtualThreadExecutor() : Executors.newCachedThreadPool();
+
+      try {
+         // Obtain the default cache and wrap it with the asynchronous facade
+         RemoteCache<String, Integer> remoteCache = remoteCacheManager.getCache();
+         AsyncRemoteCache<String, Integer> asyncCache = new AsyncRemoteCache<>(remoteCache, executor);
+
+         // Fire all writes without waiting, counting completions via listeners
+         final CountDownLatch written = new CountDownLatch(NUM_OPS);
+         final AtomicInteger failed = new AtomicInteger();
+         for (int i = 0; i < NUM_OPS; i++) {
+            asyncCache.put("async-" + i, i).attachListener(new FutureListener<Integer>() {
+               @Override
+               public void futureDone(Future<Integer> future) {
+                  try {
+                     future.get();
+                  } catch (Exception e) {
+                     failed.incrementAndGet();
+                  }
+                  written.countDown();
+               }
+            });
+         }
+         Assert.assertTrue(written.await(TIMEOUT_MINUTES, TimeUnit.MINUTES));
+         Assert.assertEquals(0, failed.get());
+
+         // Fire all reads, then collect the results
+         List<NotifyingFuture<Integer>> reads = new ArrayList<>(NUM_OPS);
+         for (int i = 0; i < NUM_OPS; i++)
+            reads.add(asyncCache.get("async-" + i));
+
+         for (int i = 0; i < NUM_OPS; i++)
+            Assert.assertEquals(Integer.valueOf(i), reads.get(i).get(TIMEOUT_MINUTES, TimeUnit.MINUTES));
+
+         // Versioned reads run on the executor, replacing with the version read succeeds
+         VersionedValue<Integer> versioned = asyncCache.getVersioned("async-0").get(TIMEOUT_MINUTES, TimeUnit.MINUTES);
+         Assert.assertEquals(Integer.valueOf(0), versioned.getValue());
+         Assert.assertTrue(asyncCache.replaceWithVersion("async-0", -1, versioned.getVersion())
+               .get(TIMEOUT_MINUTES, TimeUnit.MINUTES));
+
+         System.out.printf("async operations completed ==> %s\n", NUM_OPS * 2);
+      } finally {
+         // Release connection and stop executor
+         remoteCacheManager.stop();
+         executor.shutdown();
+      }
+   }
+
+}
@@ -0,0 +1,90 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.tutorial.remote.batch.BatchingWriter;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(Arquillian.class)
+public class RemoteBatchingWriterIT {
+
+   static final int NUM_KEYS = 500;
+   static final int BATCH_SIZE = 100;
+   static final int TIMEOUT_MINUTES = 2;
+
+   // Container defined in arquillian.xml
+   @InfinispanResource("container-default")
+   RemoteInfinispanServer server1;
+
+   @Test
+   public void remoteCacheBatchedWriting() throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      // Set up a scheduler that sends partially filled batches
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+      try {
+         // Obtain the default cache
+         RemoteCache<String, String> remoteCache = remoteCacheManager.getCache();
+
+         // Send writes in batches of up to 100 entries, or every 50 milliseconds
+         BatchingWriter<String, String> writer = new BatchingWriter<>(remoteCache, BATCH_SIZE,
+               scheduler, 50, TimeUnit.MILLISECONDS);
+
+         // Write every key twice, the second write for each key wins
+         List<Future<Void>> results = new ArrayList<>(NUM_KEYS * 2);
+         for (int i = 0; i < NUM_KEYS; i++) {
+            results.add(writer.put("batch-" + i, "first-" + i));
+            results.add(writer.put("batch-" + i, "second-" + i));
+         }
+
+         // Wait for all writes to be stored
+         for (Future<Void> f : results) f.get(TIMEOUT_MINUTES, TimeUnit.MINUTES);
+         writer.close();
+
+         // Read back all entries individually and assert the last write won
+         for (int i = 0; i < NUM_KEYS; i++)
+            Assert.assertEquals("second-" + i, remoteCache.get("batch-" + i));
+
+         // Print how many round trips it took to store all writes. A full batch, or the timer,
+         // can separate the two writes to a key, so only writes landing in the same batch merge
+         System.out.printf("writer ==> %s\n", writer);
+         Assert.assertEquals(2 * NUM_KEYS, writer.written() + writer.coalesced());
+         Assert.assertTrue(writer.written() >= NUM_KEYS);
+         Assert.assertTrue(writer.written() <= 2 * NUM_KEYS);
+
+         // Nothing would ever send writes queued after closing, so they are rejected
+         try {
+            writer.put("batch-closed", "closed");
+            Assert.fail("Expected writes after close to be rejected");
+         } catch (IllegalStateException e) {
+            Assert.assertNull(remoteCache.get("batch-closed"));
+         }
+      } finally {
+         // Release connection and stop scheduler
+         remoteCacheManager.stop();
+         scheduler.shutdown();
+      }
+   }
+
+}
@@ -0,0 +1,63 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.tutorial.remote.marshall.CompressingMarshaller;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(Arquillian.class)
+public class RemoteCompressionIT {
+
+   // Container defined in arquillian.xml
+   @InfinispanResource("container-default")
+   RemoteInfinispanServer server1;
+
+   @Test
+   public void remoteCacheCompressedValues() throws Exception {
+      // Construct configuration to connect to running server, compressing values of 1KB or more
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+      CompressingMarshaller marshaller = new CompressingMarshaller();
+      configurationBuilder.marshaller(marshaller);
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      try {
+         // Obtain the default cache
+         RemoteCache<String, String> remoteCache = remoteCacheManager.getCache();
+
+         // Build a large, repetitive value, and a small one
+         StringBuilder sb = new StringBuilder();
+         for (int i = 0; i < 1000; i++)
+            sb.append("INFN,72.1,").append(i).append('\n');
+         String large = sb.toString();
+         String small = "hello-world";
+
+         // Store both, only the large one is compressed on its way to the server
+         remoteCache.put("compressed", large);
+         remoteCache.put("uncompressed", small);
+
+         // Read them back, decompressed transparently
+         Assert.assertEquals(large, remoteCache.get("compressed"));
+         Assert.assertEquals(small, remoteCache.get("uncompressed"));
+
+         // Print out and assert how much the large value shrinks
+         int marshalled = marshaller.objectToByteBuffer(large).length;
+         System.out.printf("compressed ==> %d bytes for a %d characters value\n", marshalled, large.length());
+         Assert.assertTrue(marshalled < large.length() / 4);
+      } finally {
+         // Release connection
+         remoteCacheManager.stop();
+      }
+   }
+
+}
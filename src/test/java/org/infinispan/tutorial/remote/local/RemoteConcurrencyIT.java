@@ -7,6 +7,8 @@ import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.VersionedValue;
 import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.tutorial.remote.concurrent.AtomicUpdater;
+import org.infinispan.tutorial.remote.concurrent.UpdateFunction;
 import org.jboss.arquillian.junit.Arquillian;
 import org.junit.Assert;
 import org.junit.Test;
@@ -27,6 +29,7 @@ public class RemoteConcurrencyIT {
    static final int OPS_PER_THREAD = 200;
    static final int TIMEOUT_MINUTES = 2;
    static final String KEY = "Counter";
+   static final String ATOMIC_KEY = "AtomicCounter";
 
    // Container defined in arquillian.xml
    @InfinispanResource("container-default")
@@ -76,6 +79,56 @@ public class RemoteConcurrencyIT {
       }
    }
 
+   @Test
+   public void remoteCacheConcurrentAtomicUpdate() throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      // Set up an executor with the number of concurrent updater threads
+      ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+
+      try {
+         // Obtain the default cache
+         RemoteCache<String, Integer> remoteCache = remoteCacheManager.getCache();
+
+         // A single updater is shared so that contention statistics are aggregated
+         AtomicUpdater updater = new AtomicUpdater();
+
+         // Start counter updaters
+         List<Future<Integer>> results = new ArrayList<>(NUM_THREADS);
+         for (int i = 0; i < NUM_THREADS; i++)
+            results.add(executor.submit(new AtomicCounterUpdater(remoteCache, updater)));
+
+         // Count the number of times clients incremented the counter
+         int clientCounts = 0;
+         for (Future<Integer> f : results) clientCounts += f.get(TIMEOUT_MINUTES, TimeUnit.MINUTES);
+
+         // Retrieve server side counter value
+         int serverCounts = remoteCache.get(ATOMIC_KEY);
+
+         // Print both counters, along with how contended the key was,
+         // and assert that the client count and the server counter state are equals
+         System.out.printf("client side count ==> %s\n", clientCounts);
+         System.out.printf("server side count ==> %s\n", serverCounts);
+         System.out.printf("contention ==> %s\n", updater.stats(ATOMIC_KEY));
+         Assert.assertEquals(clientCounts, serverCounts);
+
+         // A single key was updated, so it accounts for all contention
+         Assert.assertEquals(clientCounts, updater.stats().updates());
+         Assert.assertEquals(updater.stats().conflicts(), updater.stats(ATOMIC_KEY).conflicts());
+      } finally {
+         // Release connection and stop executor
+         remoteCacheManager.stop();
+         executor.shutdown();
+      }
+   }
+
    static class CounterUpdater implements Callable<Integer> {
       final RemoteCache<String, Integer> cache;
 
@@ -124,4 +177,30 @@ public class RemoteConcurrencyIT {
       }
    }
 
+   static class AtomicCounterUpdater implements Callable<Integer> {
+      final RemoteCache<String, Integer> cache;
+      final AtomicUpdater updater;
+
+      AtomicCounterUpdater(RemoteCache<String, Integer> cache, AtomicUpdater updater) {
+         this.cache = cache;
+         this.updater = updater;
+      }
+
+      @Override
+      public Integer call() throws Exception {
+         // The compare-and-swap loop, along with backing off
+         // on concurrent modifications, is handled by the updater
+         for (int i = 0; i < OPS_PER_THREAD; i++) {
+            updater.atomicUpdate(cache, ATOMIC_KEY, new UpdateFunction<Integer>() {
+               @Override
+               public Integer apply(Integer current) {
+                  return current == null ? 1 : current + 1;
+               }
+            });
+         }
+
+         return OPS_PER_THREAD;
+      }
+   }
+
 }
\ No newline at end of file
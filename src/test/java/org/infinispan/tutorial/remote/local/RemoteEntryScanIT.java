@@ -0,0 +1,77 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.tutorial.remote.batch.EntryConsumer;
+import org.infinispan.tutorial.remote.batch.EntryScanner;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+
+@RunWith(Arquillian.class)
+public class RemoteEntryScanIT {
+
+   static final int NUM_ENTRIES = 1000;
+   static final int BATCH_SIZE = 100;
+   static final int PARALLELISM = 4;
+
+   // Container defined in arquillian.xml
+   @InfinispanResource("container-default")
+   RemoteInfinispanServer server1;
+
+   @Test
+   public void remoteCacheEntryScan() {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      // Set up a pool where batches of reads run in parallel
+      ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+
+      try {
+         // Obtain the default cache
+         RemoteCache<String, String> remoteCache = remoteCacheManager.getCache();
+
+         // Insert multiple entries in one go
+         Map<String, String> entries = new HashMap<>();
+         for (int i = 0; i < NUM_ENTRIES; i++)
+            entries.put("scan-" + i, "value-" + i);
+         remoteCache.putAll(entries);
+
+         // Scan all entries in the cache in batches, collecting the ones inserted above
+         final ConcurrentMap<String, String> scanned = new ConcurrentHashMap<>();
+         EntryScanner<String, String> scanner = new EntryScanner<>(remoteCache, BATCH_SIZE, pool);
+         long count = scanner.scan(new EntryConsumer<String, String>() {
+            @Override
+            public void accept(String key, String value) {
+               if (key.startsWith("scan-"))
+                  scanned.put(key, value);
+            }
+         });
+
+         // Print the number of entries scanned and assert all inserted entries were found
+         System.out.printf("scanned entries ==> %s\n", count);
+         Assert.assertEquals(entries, scanned);
+      } finally {
+         // Release connection and stop pool
+         remoteCacheManager.stop();
+         pool.shutdown();
+      }
+   }
+
+}
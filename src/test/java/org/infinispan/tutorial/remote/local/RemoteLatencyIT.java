@@ -0,0 +1,92 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.tutorial.remote.stats.LatencyEndpoint;
+import org.infinispan.tutorial.remote.stats.LatencyHistogram;
+import org.infinispan.tutorial.remote.stats.LatencyRecorder;
+import org.infinispan.tutorial.remote.util.JdkHttpClient.Keys;
+import org.infinispan.tutorial.remote.util.JdkHttpClient.Params;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+
+import static org.infinispan.tutorial.remote.util.JdkHttpClient.get;
+import static org.infinispan.tutorial.remote.util.JdkHttpClient.uri;
+
+@RunWith(Arquillian.class)
+public class RemoteLatencyIT {
+
+   static final int NUM_OPERATIONS = 100;
+
+   // Container defined in arquillian.xml
+   @InfinispanResource("container-default")
+   RemoteInfinispanServer server1;
+
+   @Test
+   public void remoteCacheLatency() throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      // Create a latency recorder, and an endpoint serving its latencies on an ephemeral port
+      LatencyRecorder recorder = new LatencyRecorder();
+      LatencyEndpoint endpoint = new LatencyEndpoint(recorder, new InetSocketAddress("127.0.0.1", 0));
+      try {
+         // Obtain the default cache, recording latencies of every operation on it
+         RemoteCache<String, String> remoteCache = recorder.wrap(remoteCacheManager.<String, String>getCache());
+
+         // Run a mix of operations
+         for (int i = 0; i < NUM_OPERATIONS; i++) {
+            String key = "latency-" + i;
+            remoteCache.put(key, "value");
+            remoteCache.get(key);
+            VersionedValue<String> versioned = remoteCache.getVersioned(key);
+            remoteCache.replaceWithVersion(key, "new-value", versioned.getVersion());
+            remoteCache.remove(key);
+         }
+
+         // Print latencies and assert every operation was recorded
+         Map<String, LatencyHistogram> latencies = recorder.histograms().get("___defaultcache");
+         for (Map.Entry<String, LatencyHistogram> e : latencies.entrySet())
+            System.out.printf("%s latency ==> %s\n", e.getKey(), e.getValue());
+         for (String operation : new String[]{"put", "get", "getVersioned", "replaceWithVersion", "remove"})
+            Assert.assertEquals(NUM_OPERATIONS, latencies.get(operation).count());
+
+         // Percentiles are exported via JMX
+         MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+         ObjectName name = new ObjectName("org.infinispan.tutorial:type=ClientLatency,cache=\"___defaultcache\",operation=get");
+         Assert.assertEquals((long) NUM_OPERATIONS, mBeanServer.getAttribute(name, "Count"));
+         Assert.assertTrue((Double) mBeanServer.getAttribute(name, "P99Micros") > 0);
+
+         // And can be pulled from the endpoint
+         Map<String, ?> rsp = get(uri("127.0.0.1", endpoint.port(), "/metrics"), Params.apply(Keys.ACCEPT, "text/plain").map());
+         List<?> lines = (List<?>) rsp.get(Keys.BODY);
+         Assert.assertTrue(lines.contains(
+               "hotrod_client_latency_seconds_count{cache=\"___defaultcache\",operation=\"get\"} " + NUM_OPERATIONS));
+      } finally {
+         // Stop endpoint, unregister histograms and release connection
+         endpoint.close();
+         recorder.close();
+         remoteCacheManager.stop();
+      }
+   }
+
+}
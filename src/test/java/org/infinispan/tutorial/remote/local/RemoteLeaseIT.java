@@ -0,0 +1,86 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.tutorial.remote.lease.LeaseManager;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(Arquillian.class)
+public class RemoteLeaseIT {
+
+   static final int NUM_KEYS = 1000;
+   static final int LIFESPAN_SECONDS = 2;
+   static final int MARGIN_MILLIS = 500;
+   static final int BATCH_SIZE = 100;
+
+   // Container defined in arquillian.xml
+   @InfinispanResource("container-default")
+   RemoteInfinispanServer server1;
+
+   @Test
+   public void remoteCacheLeaseRenewal() throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      // Set up a scheduler to renew leases in the background
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+      try {
+         // Obtain the default cache
+         RemoteCache<String, String> remoteCache = remoteCacheManager.getCache();
+
+         // Create a lease manager storing entries with a short lifespan
+         LeaseManager<String, String> leases = new LeaseManager<>(remoteCache,
+               TimeUnit.SECONDS.toMillis(LIFESPAN_SECONDS), MARGIN_MILLIS, TimeUnit.MILLISECONDS,
+               BATCH_SIZE, scheduler);
+
+         try {
+            // Lease a number of mortal entries
+            for (int i = 0; i < NUM_KEYS; i++)
+               leases.put("lease-" + i, "value-" + i);
+
+            // Stop renewing one of them
+            Assert.assertTrue(leases.release("lease-0"));
+
+            // Let's wait past the lifespan a couple of times
+            System.out.printf("Sleeping for %d seconds...\n", 3 * LIFESPAN_SECONDS);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(3 * LIFESPAN_SECONDS));
+
+            // Leased entries are still alive, the released one has died
+            for (int i = 1; i < NUM_KEYS; i++)
+               Assert.assertEquals("value-" + i, remoteCache.get("lease-" + i));
+            Assert.assertNull(remoteCache.get("lease-0"));
+
+            // Print out renewal stats and assert entries were renewed in bulk
+            System.out.printf("renewals ==> %d in %d batches, %d failures\n",
+                  leases.renewals(), leases.batches(), leases.failures());
+            Assert.assertTrue(leases.renewals() >= 2 * (NUM_KEYS - 1));
+            Assert.assertTrue(leases.batches() < leases.renewals());
+            Assert.assertEquals(0, leases.failures());
+         } finally {
+            leases.close();
+         }
+      } finally {
+         // Release connection
+         scheduler.shutdownNow();
+         remoteCacheManager.stop();
+      }
+   }
+
+}
@@ -0,0 +1,147 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryCreated;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryModified;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryRemoved;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.event.ClientCacheEntryCustomEvent;
+import org.infinispan.notifications.cachelistener.filter.CacheEventConverterFactory;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilterFactory;
+import org.infinispan.tutorial.remote.event.CoalescedEvents;
+import org.infinispan.tutorial.remote.event.CoalescingConverterFactory;
+import org.infinispan.tutorial.remote.event.CoalescingFilterFactory;
+import org.infinispan.tutorial.remote.event.CoalescingStats;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.container.test.api.OverProtocol;
+import org.jboss.arquillian.container.test.api.TargetsContainer;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(Arquillian.class)
+public class RemoteListenerCoalescingIT {
+
+   private static final String CONTAINER = "container-default";
+
+   static final int NUM_KEYS = 10;
+   static final int NUM_UPDATES = 100;
+
+   // Container defined in arquillian.xml
+   @InfinispanResource(CONTAINER)
+   RemoteInfinispanServer server1;
+
+   @Deployment(testable = false, name = "coalescing-cache-event-factories-1") // A deployment containing only factories, no tests
+   @TargetsContainer(CONTAINER) // Target container
+   @OverProtocol("jmx-as7") // Needs to be deployed over JMX (instead of Servlet)
+   public static Archive<?> deployEventFactories() {
+      // Create jar archive, with both filter and converter factories and their service provider definitions
+      return ShrinkWrap.create(JavaArchive.class, "coalescing-cache-event-factories.jar")
+            .addPackage(CoalescedEvents.class.getPackage())
+            .addAsServiceProvider(CacheEventFilterFactory.class, CoalescingFilterFactory.class)
+            .addAsServiceProvider(CacheEventConverterFactory.class, CoalescingConverterFactory.class);
+   }
+
+   @Test
+   public void remoteCacheCoalescedEvents() throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      // Obtain the default cache
+      RemoteCache<Integer, String> remoteCache = remoteCacheManager.getCache();
+
+      // Instantiate the listener
+      CoalescingListener listener = new CoalescingListener();
+      try {
+         // Add remote listener, coalescing events every 100 modifications, or every minute
+         // The same parameters must be passed to both filter and converter factories
+         Object[] params = CoalescedEvents.params(1, TimeUnit.MINUTES, NUM_KEYS * NUM_UPDATES / 10);
+         remoteCache.addClientListener(listener, params, params);
+
+         // Update a few keys many times, as with stock ticks
+         for (int i = 0; i < NUM_UPDATES; i++) {
+            for (int k = 0; k < NUM_KEYS; k++)
+               remoteCache.put(k, "value-" + i);
+         }
+
+         // Events are delivered asynchronously, so wait for all modifications to be received
+         long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+         while (listener.stats.events() < NUM_KEYS * NUM_UPDATES && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+         // Print statistics and assert that far fewer events than modifications were received,
+         // with the latest value for each key
+         System.out.printf("coalesced events ==> %s\n", listener.stats);
+         Assert.assertEquals(NUM_KEYS * NUM_UPDATES, listener.stats.events());
+         Assert.assertEquals(10, listener.stats.batches());
+         for (int k = 0; k < NUM_KEYS; k++)
+            Assert.assertEquals("value-" + (NUM_UPDATES - 1), listener.latest.get(k));
+
+         // A last tick is held on the server until a later modification closes its window
+         remoteCache.put(0, "closing");
+         Thread.sleep(100);
+         Assert.assertEquals("value-" + (NUM_UPDATES - 1), listener.latest.get(0));
+      } finally {
+         // Remove added listener
+         remoteCache.removeClientListener(listener);
+
+         // Release connection
+         remoteCacheManager.stop();
+      }
+   }
+
+   // Link up client listener with associated filter and converter factories
+   @ClientListener(filterFactoryName = CoalescingFilterFactory.NAME, converterFactoryName = CoalescingConverterFactory.NAME)
+   public static class CoalescingListener {
+      final CoalescingStats stats = new CoalescingStats();
+      final ConcurrentMap<Object, Object> latest = new ConcurrentHashMap<>();
+
+      // Whatever the type of event closing the window, the
+      // custom event contains the latest state of all keys
+
+      @ClientCacheEntryCreated
+      public void createdEntry(ClientCacheEntryCustomEvent<CoalescedEvents> event) {
+         apply(event.getEventData());
+      }
+
+      @ClientCacheEntryModified
+      public void modifiedEntry(ClientCacheEntryCustomEvent<CoalescedEvents> event) {
+         apply(event.getEventData());
+      }
+
+      @ClientCacheEntryRemoved
+      public void removedEntry(ClientCacheEntryCustomEvent<CoalescedEvents> event) {
+         apply(event.getEventData());
+      }
+
+      private void apply(CoalescedEvents batch) {
+         for (Map.Entry<Object, Object> e : batch.latest().entrySet()) {
+            if (e.getValue() == null)
+               latest.remove(e.getKey());
+            else
+               latest.put(e.getKey(), e.getValue());
+         }
+         stats.record(batch);
+      }
+   }
+
+}
@@ -0,0 +1,127 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryCreated;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.event.ClientCacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilterFactory;
+import org.infinispan.tutorial.remote.event.KeySetFilterFactory;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.container.test.api.OverProtocol;
+import org.jboss.arquillian.container.test.api.TargetsContainer;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(Arquillian.class)
+public class RemoteListenerKeySetFilterIT {
+
+   private static final String CONTAINER = "container-default";
+
+   static final int NUM_SUBSCRIBED = 100_000;
+
+   // Container defined in arquillian.xml
+   @InfinispanResource(CONTAINER)
+   RemoteInfinispanServer server1;
+
+   @Deployment(testable = false, name = "key-set-cache-event-filter-1") // A deployment containing only filter, no tests
+   @TargetsContainer(CONTAINER) // Target container
+   @OverProtocol("jmx-as7") // Needs to be deployed over JMX (instead of Servlet)
+   public static Archive<?> deployEventFilters() {
+      // Create jar archive, with filter factory and service provider definition
+      return ShrinkWrap.create(JavaArchive.class, "key-set-cache-event-filter.jar")
+            .addClasses(KeySetFilterFactory.class)
+            .addAsServiceProvider(CacheEventFilterFactory.class, KeySetFilterFactory.class);
+   }
+
+   @Test
+   public void remoteCacheKeySetFilterEvents() throws Exception {
+      // Subscribe to a hundred thousand keys: all even numbers below two hundred thousand
+      int[] keys = new int[NUM_SUBSCRIBED];
+      for (int i = 0; i < NUM_SUBSCRIBED; i++)
+         keys[i] = i * 2;
+
+      // Only even keys written should result in events
+      assertEvents(KeySetFilterFactory.keys(keys), new int[]{1, 2, 3, 4, 150_000, 150_001, 250_000}, 2, 4, 150_000);
+   }
+
+   @Test
+   public void remoteCacheKeyRangeFilterEvents() throws Exception {
+      // Subscribe to two ranges of keys
+      Object[] ranges = KeySetFilterFactory.ranges(1_000, 1_999, 5_000, 5_999);
+
+      // Only keys written within the ranges should result in events
+      assertEvents(ranges, new int[]{999, 1_000, 1_999, 2_000, 4_999, 5_500, 6_000}, 1_000, 1_999, 5_500);
+   }
+
+   private void assertEvents(Object[] filterParams, int[] written, Integer... expected) throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      // Obtain the default cache
+      RemoteCache<Integer, String> remoteCache = remoteCacheManager.getCache();
+
+      // Instantiate the listener
+      KeySetListener listener = new KeySetListener();
+      try {
+         // Add remote listener, passing the key set as parameters to the filter factory
+         remoteCache.addClientListener(listener, filterParams, null);
+
+         // Create entries, some of which are in the key set
+         for (int key : written)
+            remoteCache.put(key, "value-" + key);
+
+         // Events are delivered asynchronously, so wait for all expected keys to be received
+         Set<Integer> expectedKeys = new TreeSet<>();
+         for (Integer key : expected)
+            expectedKeys.add(key);
+         long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+         while (listener.created.size() < expectedKeys.size() && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+         // Wait a bit longer to catch any unexpected event, and assert only keys in the set were received
+         Thread.sleep(100);
+         System.out.printf("created keys ==> %s\n", listener.created);
+         Assert.assertEquals(expectedKeys, listener.created);
+      } finally {
+         // Remove added listener and the entries created
+         remoteCache.removeClientListener(listener);
+         for (int key : written)
+            remoteCache.remove(key);
+
+         // Release connection
+         remoteCacheManager.stop();
+      }
+   }
+
+   // Link up client listener with associated filter factory
+   @ClientListener(filterFactoryName = KeySetFilterFactory.NAME)
+   public static class KeySetListener {
+      final Set<Integer> created = new ConcurrentSkipListSet<>();
+
+      @ClientCacheEntryCreated
+      public void createdEntry(ClientCacheEntryCreatedEvent<Integer> event) {
+         created.add(event.getKey());
+      }
+   }
+
+}
@@ -0,0 +1,146 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.event.ClientCacheEntryCreatedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryModifiedEvent;
+import org.infinispan.client.hotrod.event.ClientEvent;
+import org.infinispan.tutorial.remote.event.EventPublisher;
+import org.infinispan.tutorial.remote.event.EventPublisher.OverflowPolicy;
+import org.infinispan.tutorial.remote.event.Flow;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(Arquillian.class)
+public class RemoteListenerPublisherIT {
+
+   static final int BUFFER_SIZE = 10;
+
+   // Container defined in arquillian.xml
+   @InfinispanResource("container-default")
+   RemoteInfinispanServer server1;
+
+   @Test
+   public void remoteCacheEventsDropOldest() throws Exception {
+      // Write 100 entries while the subscriber requests nothing,
+      // only events for the latest 10 writes are kept for it
+      List<ClientEvent> received = publishAndReceive(OverflowPolicy.DROP_OLDEST, 100, 1);
+      Assert.assertEquals(BUFFER_SIZE, received.size());
+      for (int i = 0; i < BUFFER_SIZE; i++)
+         Assert.assertEquals(90 + i, keyOf(received.get(i)));
+   }
+
+   @Test
+   public void remoteCacheEventsCoalesce() throws Exception {
+      // Update 10 entries 10 times each while the subscriber requests nothing,
+      // only the latest modification of each entry is kept for it
+      List<ClientEvent> received = publishAndReceive(OverflowPolicy.COALESCE, BUFFER_SIZE, 10);
+      Assert.assertEquals(BUFFER_SIZE, received.size());
+      for (ClientEvent event : received)
+         Assert.assertTrue(event instanceof ClientCacheEntryModifiedEvent);
+   }
+
+   private List<ClientEvent> publishAndReceive(OverflowPolicy policy, int numKeys, int numWrites) throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      // Events are delivered to subscribers by this executor, instead of the listener thread
+      ExecutorService executor = Executors.newCachedThreadPool();
+
+      // Obtain the default cache
+      RemoteCache<Integer, String> remoteCache = remoteCacheManager.getCache();
+
+      // Create publisher and a listener handing it events
+      EventPublisher<ClientEvent> publisher = EventPublisher.forClientEvents(BUFFER_SIZE, policy, executor);
+      EventPublisher.ClientEventListener listener = new EventPublisher.ClientEventListener(publisher);
+      CollectingSubscriber subscriber = new CollectingSubscriber();
+      publisher.subscribe(subscriber);
+      try {
+         // Add remote listener
+         remoteCache.addClientListener(listener);
+
+         // Write entries, none of which is requested by the subscriber yet
+         for (int i = 0; i < numWrites; i++) {
+            for (int k = 0; k < numKeys; k++)
+               remoteCache.put(k, "value-" + i);
+         }
+
+         // Events are received asynchronously, so wait for all of them to be published
+         long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+         while (publisher.published() < numKeys * numWrites && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+         // Print the publisher counters, and assert the buffer is full
+         System.out.printf("publisher ==> %s\n", publisher);
+         Assert.assertEquals(numKeys * numWrites, publisher.published());
+         Assert.assertEquals(BUFFER_SIZE, publisher.lag());
+
+         // Request all buffered events and wait for them to be delivered
+         subscriber.subscription.request(Long.MAX_VALUE);
+         publisher.close();
+         Assert.assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+         return subscriber.received;
+      } finally {
+         // Remove added listener and entries created
+         remoteCache.removeClientListener(listener);
+         for (int k = 0; k < numKeys; k++)
+            remoteCache.remove(k);
+
+         // Release connection and stop executor
+         remoteCacheManager.stop();
+         executor.shutdown();
+      }
+   }
+
+   static Object keyOf(ClientEvent event) {
+      if (event instanceof ClientCacheEntryCreatedEvent)
+         return ((ClientCacheEntryCreatedEvent<?>) event).getKey();
+      return ((ClientCacheEntryModifiedEvent<?>) event).getKey();
+   }
+
+   // A subscriber that requests nothing until told to, and collects the events delivered
+   static class CollectingSubscriber implements Flow.Subscriber<ClientEvent> {
+      final List<ClientEvent> received = new CopyOnWriteArrayList<>();
+      final CountDownLatch completed = new CountDownLatch(1);
+      volatile Flow.Subscription subscription;
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+         this.subscription = subscription;
+      }
+
+      @Override
+      public void onNext(ClientEvent item) {
+         received.add(item);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+         throwable.printStackTrace();
+      }
+
+      @Override
+      public void onComplete() {
+         completed.countDown();
+      }
+   }
+
+}
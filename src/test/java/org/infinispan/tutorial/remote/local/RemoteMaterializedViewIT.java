@@ -0,0 +1,160 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.notifications.cachelistener.filter.CacheEventConverterFactory;
+import org.infinispan.tutorial.remote.aggregate.Aggregates;
+import org.infinispan.tutorial.remote.aggregate.Measurable;
+import org.infinispan.tutorial.remote.compatibility.StockValue;
+import org.infinispan.tutorial.remote.view.EntryChange;
+import org.infinispan.tutorial.remote.view.EntryChangeConverterFactory;
+import org.infinispan.tutorial.remote.view.GroupAggregateView;
+import org.infinispan.tutorial.remote.view.MaterializedViews;
+import org.infinispan.tutorial.remote.view.TopNView;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.container.test.api.OverProtocol;
+import org.jboss.arquillian.container.test.api.TargetsContainer;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(Arquillian.class)
+public class RemoteMaterializedViewIT {
+
+   private static final String CONTAINER = "container-default";
+
+   static final String[] EXCHANGES = {"NYSE", "NASDAQ"};
+   static final int SYMBOLS_PER_EXCHANGE = 10;
+   static final int NUM_MOVERS = 3;
+   static final double DELTA = 1e-3;
+
+   // Container defined in arquillian.xml
+   @InfinispanResource(CONTAINER)
+   RemoteInfinispanServer server1;
+
+   @Deployment(testable = false, name = "view-cache-event-factories-1") // A deployment containing only factories, no tests
+   @TargetsContainer(CONTAINER) // Target container
+   @OverProtocol("jmx-as7") // Needs to be deployed over JMX (instead of Servlet)
+   public static Archive<?> deployViewFactories() {
+      // Create jar archive, with the converter factory, the event and value classes and the service provider definition
+      return ShrinkWrap.create(JavaArchive.class, "view-cache-event-factories.jar")
+            .addPackage(EntryChange.class.getPackage())
+            .addClasses(StockValue.class, Measurable.class)
+            .addAsServiceProvider(CacheEventConverterFactory.class, EntryChangeConverterFactory.class);
+   }
+
+   @Test
+   public void remoteCacheMaterializedViews() throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      try {
+         // Obtain the default cache, and quote every symbol at 100.0 before creating the views
+         RemoteCache<String, StockValue> remoteCache = remoteCacheManager.getCache();
+         remoteCache.clear();
+         for (String exchange : EXCHANGES) {
+            for (int i = 0; i < SYMBOLS_PER_EXCHANGE; i++)
+               remoteCache.put(symbol(exchange, i), new StockValue(100f, 0));
+         }
+         int numSymbols = EXCHANGES.length * SYMBOLS_PER_EXCHANGE;
+
+         // Rank symbols by relative change since their previous quote, and aggregate quotes per exchange
+         TopNView<String, StockValue> movers = new TopNView<>(NUM_MOVERS, new RelativeChange());
+         GroupAggregateView<String, StockValue, String> exchanges = new GroupAggregateView<>(new ByExchange());
+
+         try (MaterializedViews<String, StockValue> views = new MaterializedViews<>(remoteCache, movers, exchanges)) {
+            // Existing quotes are replayed to the views, with no previous quote to rank them by
+            awaitChanges(views, numSymbols);
+            System.out.printf("exchanges ==> %s\n", exchanges.snapshot());
+            Assert.assertTrue(movers.top().isEmpty());
+            Assert.assertEquals(SYMBOLS_PER_EXCHANGE, exchanges.aggregates("NYSE").count());
+            Assert.assertEquals(100.0, exchanges.aggregates("NASDAQ").average(), DELTA);
+
+            // NASDAQ symbols rise by 1% to 10%, NYSE ones fall by as much
+            for (int i = 0; i < SYMBOLS_PER_EXCHANGE; i++) {
+               remoteCache.put(symbol("NASDAQ", i), new StockValue(101f + i, 1));
+               remoteCache.put(symbol("NYSE", i), new StockValue(99f - i, 1));
+            }
+            awaitChanges(views, 2 * numSymbols);
+
+            // The biggest movers either way come first
+            List<TopNView.Ranked<String>> top = movers.top();
+            System.out.printf("movers ==> %s\n", top);
+            Assert.assertEquals(NUM_MOVERS, top.size());
+            Assert.assertEquals(numSymbols, movers.size());
+            Assert.assertEquals("NASDAQ:SYM9", top.get(0).key());
+            Assert.assertEquals("NYSE:SYM9", top.get(1).key());
+            Assert.assertEquals(0.1, top.get(0).score(), DELTA);
+
+            // Aggregates per exchange reflect the latest quotes only
+            Aggregates nasdaq = exchanges.aggregates("NASDAQ");
+            Aggregates nyse = exchanges.aggregates("NYSE");
+            System.out.printf("exchanges ==> %s\n", exchanges.snapshot());
+            Assert.assertEquals(SYMBOLS_PER_EXCHANGE, nasdaq.count());
+            Assert.assertEquals(101.0, nasdaq.min(), DELTA);
+            Assert.assertEquals(110.0, nasdaq.max(), DELTA);
+            Assert.assertEquals(105.5, nasdaq.average(), DELTA);
+            Assert.assertEquals(94.5, nyse.average(), DELTA);
+
+            // Removed symbols leave both views
+            remoteCache.remove(symbol("NASDAQ", 9));
+            awaitChanges(views, 2 * numSymbols + 1);
+            System.out.printf("movers ==> %s\n", movers.top());
+            Assert.assertEquals("NYSE:SYM9", movers.top().get(0).key());
+            Assert.assertNull(movers.ranking(symbol("NASDAQ", 9)));
+            Assert.assertEquals(SYMBOLS_PER_EXCHANGE - 1, exchanges.aggregates("NASDAQ").count());
+            Assert.assertEquals(109.0, exchanges.aggregates("NASDAQ").max(), DELTA);
+         }
+      } finally {
+         // Release connection
+         remoteCacheManager.stop();
+      }
+   }
+
+   static String symbol(String exchange, int i) {
+      return exchange + ":SYM" + i;
+   }
+
+   static void awaitChanges(MaterializedViews<?, ?> views, long expected) throws InterruptedException {
+      // Wait until events for all modifications have been applied to the views
+      long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+      while (views.changes() < expected && System.currentTimeMillis() < deadline)
+         Thread.sleep(10);
+      Assert.assertEquals(expected, views.changes());
+   }
+
+   static class RelativeChange implements TopNView.Scorer<String, StockValue> {
+      @Override
+      public double score(String key, StockValue oldValue, StockValue newValue) {
+         // Rank by size of the move, whether up or down
+         if (oldValue == null)
+            return Double.NaN;
+         return Math.abs(newValue.value() - oldValue.value()) / oldValue.value();
+      }
+   }
+
+   static class ByExchange implements GroupAggregateView.Classifier<String, StockValue, String> {
+      @Override
+      public String group(String key, StockValue value) {
+         // Keys are prefixed with the exchange the symbol is quoted on
+         return key.substring(0, key.indexOf(':'));
+      }
+   }
+
+}
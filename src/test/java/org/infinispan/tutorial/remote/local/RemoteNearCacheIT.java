@@ -0,0 +1,93 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.tutorial.remote.nearcache.NearCache;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(Arquillian.class)
+public class RemoteNearCacheIT {
+
+   static final long EVENT_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+   // Container defined in arquillian.xml
+   @InfinispanResource("container-default")
+   RemoteInfinispanServer server1;
+
+   @Test
+   public void remoteNearCacheReadingWriting() throws InterruptedException {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      // Obtain the default cache
+      RemoteCache<String, String> remoteCache = remoteCacheManager.getCache();
+
+      // Put a near cache holding up to 2 entries in front of the remote cache
+      NearCache<String, String> nearCache = new NearCache<>(remoteCache, 2);
+      try {
+         // Insert an entry into the cache bypassing the near cache
+         remoteCache.put("near-key", "value");
+
+         // First read goes remote, second is served locally
+         Assert.assertEquals("value", nearCache.get("near-key"));
+         Assert.assertEquals("value", nearCache.get("near-key"));
+         Assert.assertEquals(1, nearCache.hits());
+         Assert.assertEquals(1, nearCache.misses());
+
+         // Modify the entry bypassing the near cache, the remote
+         // event received by the near cache drops the local copy
+         remoteCache.put("near-key", "new-value");
+         Assert.assertEquals("new-value", awaitValue(nearCache, "near-key", "new-value"));
+
+         // Remove the entry bypassing the near cache
+         remoteCache.remove("near-key");
+         Assert.assertNull(awaitValue(nearCache, "near-key", null));
+
+         // Read more entries than the near cache can hold
+         for (int i = 0; i < 3; i++) {
+            remoteCache.put("near-key-" + i, "value-" + i);
+            nearCache.get("near-key-" + i);
+         }
+         Assert.assertEquals(2, nearCache.size());
+         Assert.assertEquals(1, nearCache.evictions());
+
+         // Print near cache statistics
+         System.out.printf("near cache ==> %s\n", nearCache);
+      } finally {
+         // Remove near cache listener and release connection
+         nearCache.close();
+         remoteCacheManager.stop();
+      }
+   }
+
+   private static String awaitValue(NearCache<String, String> nearCache, String key, String expected)
+         throws InterruptedException {
+      // Remote events are delivered asynchronously, so poll for a while
+      long deadline = System.currentTimeMillis() + EVENT_TIMEOUT_MILLIS;
+      String value = nearCache.get(key);
+      while (!equal(expected, value) && System.currentTimeMillis() < deadline) {
+         Thread.sleep(50);
+         value = nearCache.get(key);
+      }
+      return value;
+   }
+
+   private static boolean equal(Object a, Object b) {
+      return a == null ? b == null : a.equals(b);
+   }
+
+}
@@ -0,0 +1,173 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.tutorial.remote.concurrent.StripedCounter;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RunWith(Arquillian.class)
+public class RemoteStripedCounterIT {
+
+   static final int NUM_THREADS = 10;
+   static final int OPS_PER_THREAD = 200;
+   static final int NUM_STRIPES = 8;
+   static final int TIMEOUT_MINUTES = 2;
+   static final String NAME = "StripedCounter";
+
+   // Container defined in arquillian.xml
+   @InfinispanResource("container-default")
+   RemoteInfinispanServer server1;
+
+   @Test
+   public void remoteCacheStripedCounter() throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+
+      // Set up an executor with the number of concurrent updater threads,
+      // and a scheduler that pushes locally accumulated increments
+      ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+      try {
+         // Obtain the default cache
+         RemoteCache<String, Long> remoteCache = remoteCacheManager.getCache();
+
+         // Create a counter sharded across several keys, flushed every 10 milliseconds
+         StripedCounter counter = new StripedCounter(remoteCache, NAME, NUM_STRIPES,
+               scheduler, 10, TimeUnit.MILLISECONDS);
+
+         // Start counter updaters
+         List<Future<Integer>> results = new ArrayList<>(NUM_THREADS);
+         for (int i = 0; i < NUM_THREADS; i++)
+            results.add(executor.submit(new StripedCounterUpdater(counter)));
+
+         // Count the number of times clients incremented the counter
+         int clientCounts = 0;
+         for (Future<Integer> f : results) clientCounts += f.get(TIMEOUT_MINUTES, TimeUnit.MINUTES);
+
+         // Push any pending increments before reading the server side state
+         counter.close();
+         long serverCounts = counter.get();
+
+         // Print both client and server side counters, along with the
+         // number of remote updates it took, and assert they are equals
+         System.out.printf("client side count ==> %s\n", clientCounts);
+         System.out.printf("server side count ==> %s\n", serverCounts);
+         System.out.printf("flushes ==> %s, retries ==> %s\n", counter.flushes(), counter.retries());
+         Assert.assertEquals(clientCounts, serverCounts);
+      } finally {
+         // Release connection and stop executors
+         remoteCacheManager.stop();
+         executor.shutdown();
+         scheduler.shutdown();
+      }
+   }
+
+   @Test
+   public void remoteCacheStripedCounterFlushFailure() throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+      ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+      try {
+         // Obtain the default cache, through a cache failing its first read as a transient error would
+         RemoteCache<String, Long> remoteCache = remoteCacheManager.getCache();
+         String name = NAME + "-failure";
+         for (int i = 0; i < NUM_STRIPES; i++)
+            remoteCache.remove(name + "#" + i);
+         StripedCounter counter = new StripedCounter(failFirstRead(remoteCache), name, NUM_STRIPES,
+               scheduler, 10, TimeUnit.MILLISECONDS);
+
+         // The first background flush fails, the next one still pushes the delta
+         counter.add(OPS_PER_THREAD);
+         long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+         while (counter.flushes() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+         long serverCounts = 0;
+         for (int i = 0; i < NUM_STRIPES; i++) {
+            Long stripe = remoteCache.get(name + "#" + i);
+            serverCounts += stripe == null ? 0 : stripe;
+         }
+         System.out.printf("failures ==> %s, flushes ==> %s\n", counter.failures(), counter.flushes());
+         Assert.assertEquals(1, counter.failures());
+         Assert.assertEquals(1, counter.flushes());
+         Assert.assertEquals(OPS_PER_THREAD, serverCounts);
+         counter.close();
+      } finally {
+         // Release connection and stop scheduler
+         remoteCacheManager.stop();
+         scheduler.shutdown();
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   static RemoteCache<String, Long> failFirstRead(final RemoteCache<String, Long> cache) {
+      final AtomicBoolean failed = new AtomicBoolean();
+      return (RemoteCache<String, Long>) Proxy.newProxyInstance(RemoteCache.class.getClassLoader(),
+            new Class<?>[]{RemoteCache.class}, new InvocationHandler() {
+               @Override
+               public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                  if (method.getName().equals("getVersioned") && failed.compareAndSet(false, true))
+                     throw new HotRodClientException("Injected transient failure");
+                  try {
+                     return method.invoke(cache, args);
+                  } catch (InvocationTargetException e) {
+                     throw e.getCause();
+                  }
+               }
+            });
+   }
+
+   static class StripedCounterUpdater implements Callable<Integer> {
+      final StripedCounter counter;
+
+      StripedCounterUpdater(StripedCounter counter) {
+         this.counter = counter;
+      }
+
+      @Override
+      public Integer call() throws Exception {
+         // No loop required here, increments are applied locally
+         // and pushed to the server in batches
+         for (int i = 0; i < OPS_PER_THREAD; i++)
+            counter.increment();
+
+         return OPS_PER_THREAD;
+      }
+   }
+
+}
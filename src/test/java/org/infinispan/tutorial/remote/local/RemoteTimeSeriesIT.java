@@ -0,0 +1,107 @@
+package org.infinispan.tutorial.remote.local;
+
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.configuration.ConfigurationBuilder;
+import org.infinispan.tutorial.remote.timeseries.TimeSeries;
+import org.infinispan.tutorial.remote.timeseries.TimeSeriesStore;
+import org.jboss.arquillian.junit.Arquillian;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(Arquillian.class)
+public class RemoteTimeSeriesIT {
+
+   static final int NUM_THREADS = 4;
+   static final int TICKS_PER_THREAD = 250;
+   static final int TIMEOUT_MINUTES = 2;
+   static final String SYMBOL = "INFN";
+   static final long START = 1414000000000L;
+
+   // Container defined in arquillian.xml
+   @InfinispanResource("container-default")
+   RemoteInfinispanServer server1;
+
+   @Test
+   public void remoteCacheTimeSeries() throws Exception {
+      // Construct configuration to connect to running server
+      ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
+      configurationBuilder.addServer()
+            .host(server1.getHotrodEndpoint().getInetAddress().getHostName())
+            .port(server1.getHotrodEndpoint().getPort());
+
+      // Create a remote cache manager with built configuration
+      RemoteCacheManager remoteCacheManager = new RemoteCacheManager(configurationBuilder.build());
+      ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+
+      try {
+         // Obtain the default cache, and keep quotes in one entry per minute
+         RemoteCache<String, TimeSeries> remoteCache = remoteCacheManager.getCache();
+         TimeSeriesStore store = new TimeSeriesStore(remoteCache, 1, TimeUnit.MINUTES);
+
+         // Each thread appends a tick per second, interleaved with the other threads'
+         List<Future<Integer>> results = new ArrayList<>(NUM_THREADS);
+         for (int i = 0; i < NUM_THREADS; i++)
+            results.add(executor.submit(new TickAppender(store, i)));
+         for (Future<Integer> f : results)
+            f.get(TIMEOUT_MINUTES, TimeUnit.MINUTES);
+
+         // Read the whole history back, no tick was lost to a concurrent append
+         int numTicks = NUM_THREADS * TICKS_PER_THREAD;
+         TimeSeries history = store.range(SYMBOL, START, START + numTicks * 1000L);
+         System.out.printf("history ==> %s\n", history);
+         Assert.assertEquals(numTicks, history.size());
+         for (int i = 0; i < numTicks; i++) {
+            Assert.assertEquals(START + i * 1000L, history.time(i));
+            Assert.assertEquals(i, history.value(i), 0f);
+         }
+
+         // Read a window spanning two minutes, only its ticks are returned
+         TimeSeries window = store.range(SYMBOL, START + 90 * 1000L, START + 150 * 1000L);
+         System.out.printf("window ==> %s\n", window);
+         Assert.assertEquals(60, window.size());
+         Assert.assertEquals(START + 90 * 1000L, window.firstTime());
+         Assert.assertEquals(START + 149 * 1000L, window.lastTime());
+
+         // Clean up the history
+         store.remove(SYMBOL, START, START + numTicks * 1000L);
+         Assert.assertTrue(store.range(SYMBOL, START, START + numTicks * 1000L).isEmpty());
+      } finally {
+         // Release connection and stop executor
+         remoteCacheManager.stop();
+         executor.shutdown();
+      }
+   }
+
+   static class TickAppender implements Callable<Integer> {
+      final TimeSeriesStore store;
+      final int thread;
+
+      TickAppender(TimeSeriesStore store, int thread) {
+         this.store = store;
+         this.thread = thread;
+      }
+
+      @Override
+      public Integer call() throws Exception {
+         // Concurrent appends to the same minute are retried until applied
+         for (int i = 0; i < TICKS_PER_THREAD; i++) {
+            int tick = i * NUM_THREADS + thread;
+            store.append(SYMBOL, START + tick * 1000L, tick);
+         }
+         return TICKS_PER_THREAD;
+      }
+   }
+
+}
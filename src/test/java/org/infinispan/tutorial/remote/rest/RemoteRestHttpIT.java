@@ -2,15 +2,24 @@ package org.infinispan.tutorial.remote.rest;
 
 import org.infinispan.arquillian.core.InfinispanResource;
 import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.infinispan.tutorial.remote.util.KeyIterator;
+import org.infinispan.tutorial.remote.util.RestResponseCache;
 import org.jboss.arquillian.junit.Arquillian;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.IOException;
 import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 import static org.infinispan.tutorial.remote.util.JdkHttpClient.*;
@@ -18,6 +27,8 @@ import static org.infinispan.tutorial.remote.util.JdkHttpClient.*;
 @RunWith(Arquillian.class)
 public class RemoteRestHttpIT {
 
+   static final int NUM_ITERATE_KEYS = 5000;
+
    // Container defined in arquillian.xml
    @InfinispanResource("container-rest")
    RemoteInfinispanServer server1;
@@ -48,7 +59,7 @@ public class RemoteRestHttpIT {
       Assert.assertEquals(200, put(keyUri, params.map()).get(Keys.STATUS_CODE));
 
       // Retrieve binary content
-      params = Params.apply(Keys.ACCEPT, "application/octet-stream").add(Keys.LENGTH, 3);
+      params = Params.apply(Keys.ACCEPT, "application/octet-stream");
       Assert.assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) get(keyUri, params.map()).get(Keys.BODY));
 
       // Delete binary content
@@ -110,6 +121,53 @@ public class RemoteRestHttpIT {
       Assert.assertTrue(json, json.contains("keys=["));
    }
 
+   @Test
+   public void remoteHttpRestCacheIterateKeySet() {
+      Params params; List<String> expected = new ArrayList<>();
+
+      // Store enough entries for the listing to span many reads of the parser's buffer
+      for (int i = 0; i < NUM_ITERATE_KEYS; i++) {
+         String key = "key-iterate-" + i;
+         params = Params.apply(Keys.BODY, "hello-" + i).add(Keys.CONTENT_TYPE, "text/plain");
+         Assert.assertEquals(200, put(cacheKeyUri(key), params.map()).get(Keys.STATUS_CODE));
+         expected.add(key);
+      }
+
+      try {
+         // Iterate over all keys in each format as they are parsed, other tests' keys might be present too
+         long listingBytes = 0;
+         for (String type : Arrays.asList("text/plain", "application/xml", "application/json")) {
+            List<String> keys = new ArrayList<>();
+            try (KeyIterator it = keys(cacheUri(), Params.apply(Keys.ACCEPT, type).map())) {
+               while (it.hasNext())
+                  keys.add(it.next());
+
+               System.out.printf("%s keys ==> %d, %d bytes, %.0f keys/sec\n",
+                     type, it.count(), it.bytesRead(), it.keysPerSecond());
+               if (type.equals("text/plain"))
+                  listingBytes = it.bytesRead();
+            }
+            Assert.assertTrue(type, keys.containsAll(expected));
+         }
+
+         // Stop iterating after the first few keys, the rest is not read
+         try (KeyIterator it = keys(cacheUri(), Params.apply(Keys.ACCEPT, "text/plain").map())) {
+            for (int i = 0; i < 10; i++)
+               Assert.assertNotNull(it.next());
+            Assert.assertEquals(10, it.count());
+
+            // No more than the parser's first buffer fill was consumed
+            System.out.printf("stopped after ==> %d of %d bytes\n", it.bytesRead(), listingBytes);
+            Assert.assertTrue(it.bytesRead() <= 8192);
+            Assert.assertTrue(it.bytesRead() < listingBytes / 10);
+         }
+      } finally {
+         // Delete all entries
+         for (String key : expected)
+            Assert.assertEquals(200, delete(cacheKeyUri(key), Params.empty()).get(Keys.STATUS_CODE));
+      }
+   }
+
    @Test
    public void remoteHttpRestCacheConditionalPutIfMatch() {
       URI keyUri; Params params; Map<String, ?> rsp;
@@ -138,6 +196,45 @@ public class RemoteRestHttpIT {
       Assert.assertEquals(200, delete(keyUri, Params.empty()).get(Keys.STATUS_CODE));
    }
 
+   @Test
+   public void remoteHttpRestCacheConditionalGetIfNoneMatch() {
+      URI keyUri; Params params; Map<String, ?> rsp;
+
+      // Keep up to 16 responses, of at most 1MB in total
+      RestResponseCache cache = new RestResponseCache(16, 1024 * 1024);
+
+      // Store entry
+      keyUri = cacheKeyUri("key-get-if-none-match");
+      params = Params.apply(Keys.BODY, "hello-world").add(Keys.CONTENT_TYPE, "text/plain");
+      Assert.assertEquals(200, put(keyUri, params.map()).get(Keys.STATUS_CODE));
+
+      // Retrieve entry, downloading it the first time
+      params = Params.apply(Keys.ACCEPT, "text/plain");
+      rsp = get(keyUri, params.map(), cache);
+      Assert.assertEquals("hello-world", rsp.get(Keys.BODY));
+      Assert.assertNull(rsp.get(Keys.REVALIDATED));
+
+      // Retrieve entry again, the server answers it has not been modified
+      rsp = get(keyUri, params.map(), cache);
+      Assert.assertEquals("hello-world", rsp.get(Keys.BODY));
+      Assert.assertEquals(true, rsp.get(Keys.REVALIDATED));
+      Assert.assertEquals(1, cache.hits());
+
+      // Modify entry, its new value is downloaded
+      params = Params.apply(Keys.BODY, "bye-world").add(Keys.CONTENT_TYPE, "text/plain");
+      Assert.assertEquals(200, put(keyUri, params.map()).get(Keys.STATUS_CODE));
+      params = Params.apply(Keys.ACCEPT, "text/plain");
+      rsp = get(keyUri, params.map(), cache);
+      Assert.assertEquals("bye-world", rsp.get(Keys.BODY));
+      Assert.assertNull(rsp.get(Keys.REVALIDATED));
+      Assert.assertEquals(2, cache.misses());
+
+      // Delete entry, which is no longer served from the cache
+      Assert.assertEquals(200, delete(keyUri, Params.empty()).get(Keys.STATUS_CODE));
+      Assert.assertEquals(404, get(keyUri, params.map(), cache).get(Keys.STATUS_CODE));
+      Assert.assertEquals(0, cache.size());
+   }
+
    @Test
    public void remoteHttpRestCacheReadWriteEphemeral() throws InterruptedException {
       URI keyUri; Params params; Map<String, ?> rsp;
@@ -162,6 +259,42 @@ public class RemoteRestHttpIT {
       Assert.assertEquals(404, get(keyUri, params.map()).get(Keys.STATUS_CODE));
    }
 
+   @Test
+   public void remoteHttpRestCacheStreaming() throws IOException {
+      URI keyUri; Params params; Map<String, ?> rsp;
+
+      // Create a file with a large value, bigger than a single transfer chunk
+      byte[] value = new byte[4 * 1024 * 1024 + 17];
+      new Random(42).nextBytes(value);
+      Path upload = Files.createTempFile("upload", ".bin");
+      Path download = Files.createTempFile("download", ".bin");
+      Files.write(upload, value);
+
+      try {
+         // Stream the file contents into the cache
+         keyUri = cacheKeyUri("key-stream");
+         try (FileChannel source = FileChannel.open(upload, StandardOpenOption.READ)) {
+            params = Params.apply(Keys.BODY, source).add(Keys.CONTENT_TYPE, "application/octet-stream");
+            Assert.assertEquals(200, put(keyUri, params.map()).get(Keys.STATUS_CODE));
+         }
+
+         // Stream the stored value into another file, no length needs to be known up front
+         try (FileChannel target = FileChannel.open(download, StandardOpenOption.WRITE)) {
+            params = Params.apply(Keys.ACCEPT, "application/octet-stream");
+            rsp = get(keyUri, params.map(), target);
+            Assert.assertEquals(200, rsp.get(Keys.STATUS_CODE));
+            Assert.assertEquals((long) value.length, rsp.get(Keys.LENGTH));
+         }
+         Assert.assertArrayEquals(value, Files.readAllBytes(download));
+
+         // Delete streamed content
+         Assert.assertEquals(200, delete(keyUri, Params.empty()).get(Keys.STATUS_CODE));
+      } finally {
+         Files.delete(upload);
+         Files.delete(download);
+      }
+   }
+
    URI cacheKeyUri(String key) {
       return uri(server1.getRESTEndpoint().getInetAddress().getHostName(), 8080,
          String.format("/rest/___defaultcache/%s", key));
@@ -0,0 +1,136 @@
+package org.infinispan.tutorial.remote.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of heap byte buffers with power of two capacities. Buffers larger than
+ * the maximum pooled capacity are allocated on demand with the exact capacity
+ * asked for and left to the garbage collector, and each capacity keeps at
+ * most a fixed number of idle buffers.
+ */
+public class BufferPool {
+
+   static final int MIN_CAPACITY = 1024;
+   // Largest power of two capacity, and largest array most VMs can allocate
+   static final int MAX_POOLED_CAPACITY = 1 << 30;
+   static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+   private final int maxPooledCapacity;
+   private final int maxIdlePerCapacity;
+   private final Queue<ByteBuffer>[] idle;
+   private final AtomicInteger[] idleCounts;
+   private final AtomicLong allocations = new AtomicLong();
+   private final AtomicLong reuses = new AtomicLong();
+
+   @SuppressWarnings("unchecked")
+   public BufferPool(int maxPooledCapacity, int maxIdlePerCapacity) {
+      if (maxPooledCapacity < 0 || maxPooledCapacity > MAX_POOLED_CAPACITY)
+         throw new IllegalArgumentException("Maximum pooled capacity must be between 0 and " + MAX_POOLED_CAPACITY);
+      this.maxPooledCapacity = capacityFor(maxPooledCapacity);
+      this.maxIdlePerCapacity = maxIdlePerCapacity;
+      int classes = indexOf(this.maxPooledCapacity) + 1;
+      this.idle = new Queue[classes];
+      this.idleCounts = new AtomicInteger[classes];
+      for (int i = 0; i < classes; i++) {
+         idle[i] = new ConcurrentLinkedQueue<>();
+         idleCounts[i] = new AtomicInteger();
+      }
+   }
+
+   /**
+    * Returns a cleared buffer with at least the given capacity.
+    */
+   public ByteBuffer acquire(int minCapacity) {
+      if (minCapacity < 0 || minCapacity > MAX_CAPACITY)
+         throw new IllegalArgumentException("Invalid buffer capacity: " + minCapacity);
+
+      if (minCapacity > maxPooledCapacity) {
+         // Never pooled, so rounding up would only waste memory
+         allocations.incrementAndGet();
+         return ByteBuffer.allocate(minCapacity);
+      }
+
+      int capacity = capacityFor(minCapacity);
+      int index = indexOf(capacity);
+      ByteBuffer buffer = idle[index].poll();
+      if (buffer != null) {
+         idleCounts[index].decrementAndGet();
+         reuses.incrementAndGet();
+         buffer.clear();
+         return buffer;
+      }
+
+      allocations.incrementAndGet();
+      return ByteBuffer.allocate(capacity);
+   }
+
+   /**
+    * Returns a buffer with about twice the capacity of the given buffer,
+    * holding its contents up to its position, and releases the given buffer.
+    */
+   public ByteBuffer grow(ByteBuffer buffer) {
+      return grow(buffer, buffer.capacity() + 1);
+   }
+
+   /**
+    * Returns a buffer with at least the given capacity holding the contents
+    * of the given buffer up to its position, and releases the given buffer.
+    * Capacity at least doubles, so that growing in small steps stays cheap,
+    * up to the largest capacity that can be allocated.
+    */
+   public ByteBuffer grow(ByteBuffer buffer, int minCapacity) {
+      // A negative capacity is what computing one beyond the largest int gives
+      if (minCapacity < 0 || minCapacity > MAX_CAPACITY)
+         throw new IllegalStateException("Buffer cannot grow beyond " + MAX_CAPACITY + " bytes");
+
+      int doubled = buffer.capacity() > MAX_CAPACITY / 2 ? MAX_CAPACITY : buffer.capacity() * 2;
+      ByteBuffer grown = acquire(Math.max(minCapacity, doubled));
+      buffer.flip();
+      grown.put(buffer);
+      release(buffer);
+      return grown;
+   }
+
+   /**
+    * Hands a buffer obtained from this pool back. The caller must not use
+    * the buffer, or anything still referencing its contents, afterwards.
+    */
+   public void release(ByteBuffer buffer) {
+      int capacity = buffer.capacity();
+      if (capacity > maxPooledCapacity || capacity != capacityFor(capacity))
+         return;
+
+      int index = indexOf(capacity);
+      if (idleCounts[index].incrementAndGet() <= maxIdlePerCapacity)
+         idle[index].offer(buffer);
+      else
+         idleCounts[index].decrementAndGet();
+   }
+
+   public long allocations() {
+      return allocations.get();
+   }
+
+   public long reuses() {
+      return reuses.get();
+   }
+
+   static int capacityFor(int minCapacity) {
+      if (minCapacity <= MIN_CAPACITY)
+         return MIN_CAPACITY;
+      int highest = Integer.highestOneBit(minCapacity);
+      if (highest == minCapacity)
+         return minCapacity;
+      // Saturate rather than overflow past the largest power of two
+      return highest >= MAX_POOLED_CAPACITY ? Integer.MAX_VALUE : highest << 1;
+   }
+
+   static int indexOf(int capacity) {
+      return Integer.numberOfTrailingZeros(capacity) - Integer.numberOfTrailingZeros(MIN_CAPACITY);
+   }
+
+}
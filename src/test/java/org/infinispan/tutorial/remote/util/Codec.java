@@ -0,0 +1,25 @@
+package org.infinispan.tutorial.remote.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts REST request and response bodies of a given media type from and
+ * to bytes held in pooled buffers. Codecs are registered in {@link Codecs}.
+ */
+public interface Codec {
+
+   /**
+    * Encodes the value into a buffer acquired from the pool, growing it
+    * through the pool as needed. The returned buffer is ready to be read and
+    * is released to the pool by the caller once written.
+    */
+   ByteBuffer encode(Object value, BufferPool pool) throws IOException;
+
+   /**
+    * Decodes the remaining bytes of the buffer. The buffer is released to
+    * the pool afterwards, so the result must not reference it.
+    */
+   Object decode(ByteBuffer buffer) throws IOException, ClassNotFoundException;
+
+}
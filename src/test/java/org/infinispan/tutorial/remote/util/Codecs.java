@@ -0,0 +1,219 @@
+package org.infinispan.tutorial.remote.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the codecs used by {@link JdkHttpClient}, keyed by media type.
+ * Text types, binary data and serialized Java objects are registered by
+ * default. Other formats can be added, or the defaults replaced, with
+ * {@link #register(String, Codec)}.
+ */
+public final class Codecs {
+
+   static final Charset UTF_8 = Charset.forName("UTF-8");
+
+   public static final Codec TEXT = new TextCodec();
+   public static final Codec BYTES = new BytesCodec();
+   public static final Codec SERIALIZED = new SerializedCodec();
+
+   private static final ConcurrentMap<String, Codec> CODECS = new ConcurrentHashMap<>();
+
+   static {
+      register("text/plain", TEXT);
+      register("text/html", TEXT);
+      register("application/xml", TEXT);
+      register("application/json", TEXT);
+      register("application/octet-stream", BYTES);
+      register("application/x-java-serialized-object", SERIALIZED);
+   }
+
+   private Codecs() {
+      // Use static methods
+   }
+
+   public static void register(String mediaType, Codec codec) {
+      CODECS.put(normalize(mediaType), codec);
+   }
+
+   /**
+    * Returns the codec for the given media type, ignoring any parameters such
+    * as the charset.
+    */
+   public static Codec codec(Object mediaType) {
+      Codec codec = mediaType == null ? null : CODECS.get(normalize(mediaType.toString()));
+      if (codec == null)
+         throw new IllegalStateException("Unsupported content type: " + mediaType);
+
+      return codec;
+   }
+
+   static String normalize(String mediaType) {
+      int semicolon = mediaType.indexOf(';');
+      String type = semicolon < 0 ? mediaType : mediaType.substring(0, semicolon);
+      return type.trim().toLowerCase(Locale.ENGLISH);
+   }
+
+   /**
+    * UTF-8 text. Single line bodies are decoded as a string, multi line
+    * bodies as a list of strings, one per line.
+    */
+   static final class TextCodec implements Codec {
+      @Override
+      public ByteBuffer encode(Object value, BufferPool pool) throws CharacterCodingException {
+         CharBuffer chars = CharBuffer.wrap(value.toString());
+         CharsetEncoder encoder = UTF_8.newEncoder();
+         ByteBuffer buffer = pool.acquire((int) (chars.remaining() * encoder.averageBytesPerChar()));
+         CoderResult result = encoder.encode(chars, buffer, true);
+         while (result.isOverflow()) {
+            buffer = pool.grow(buffer);
+            result = encoder.encode(chars, buffer, true);
+         }
+         if (result.isError()) {
+            pool.release(buffer);
+            result.throwException();
+         }
+         // UTF-8 keeps no state between characters, so there is nothing to flush
+         buffer.flip();
+         return buffer;
+      }
+
+      @Override
+      public Object decode(ByteBuffer buffer) throws CharacterCodingException {
+         CharBuffer chars = UTF_8.newDecoder().decode(buffer);
+
+         // Split lines straight from the decoded characters
+         List<String> lines = new ArrayList<>();
+         int start = 0;
+         int length = chars.length();
+         for (int i = 0; i < length; i++) {
+            if (chars.charAt(i) == '\n') {
+               int end = i > start && chars.charAt(i - 1) == '\r' ? i - 1 : i;
+               lines.add(chars.subSequence(start, end).toString());
+               start = i + 1;
+            }
+         }
+         if (start < length)
+            lines.add(chars.subSequence(start, length).toString());
+
+         if (lines.isEmpty())
+            return "";
+         return lines.size() > 1 ? lines : lines.get(0);
+      }
+   }
+
+   /**
+    * Raw binary data, decoded as a byte array. Byte arrays and byte buffers
+    * can be encoded.
+    */
+   static final class BytesCodec implements Codec {
+      @Override
+      public ByteBuffer encode(Object value, BufferPool pool) {
+         ByteBuffer source = value instanceof byte[]
+               ? ByteBuffer.wrap((byte[]) value) : ((ByteBuffer) value).duplicate();
+         ByteBuffer buffer = pool.acquire(source.remaining());
+         buffer.put(source);
+         buffer.flip();
+         return buffer;
+      }
+
+      @Override
+      public Object decode(ByteBuffer buffer) {
+         byte[] bytes = new byte[buffer.remaining()];
+         buffer.get(bytes);
+         return bytes;
+      }
+   }
+
+   /**
+    * Java serialization, for values shared with compatibility mode.
+    */
+   static final class SerializedCodec implements Codec {
+      @Override
+      public ByteBuffer encode(Object value, BufferPool pool) throws IOException {
+         ByteBufferOutputStream out = new ByteBufferOutputStream(pool);
+         try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(value);
+         }
+         out.buffer.flip();
+         return out.buffer;
+      }
+
+      @Override
+      public Object decode(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+         try (ObjectInputStream ois = new ObjectInputStream(new ByteBufferInputStream(buffer))) {
+            return ois.readObject();
+         }
+      }
+   }
+
+   static final class ByteBufferOutputStream extends OutputStream {
+      final BufferPool pool;
+      ByteBuffer buffer;
+
+      ByteBufferOutputStream(BufferPool pool) {
+         this.pool = pool;
+         this.buffer = pool.acquire(BufferPool.MIN_CAPACITY);
+      }
+
+      @Override
+      public void write(int b) {
+         ensureRemaining(1);
+         buffer.put((byte) b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+         ensureRemaining(len);
+         buffer.put(b, off, len);
+      }
+
+      private void ensureRemaining(int length) {
+         if (buffer.remaining() < length)
+            buffer = pool.grow(buffer, buffer.position() + length);
+      }
+   }
+
+   static final class ByteBufferInputStream extends InputStream {
+      final ByteBuffer buffer;
+
+      ByteBufferInputStream(ByteBuffer buffer) {
+         this.buffer = buffer;
+      }
+
+      @Override
+      public int read() {
+         return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+         if (!buffer.hasRemaining())
+            return -1;
+
+         int read = Math.min(len, buffer.remaining());
+         buffer.get(b, off, read);
+         return read;
+      }
+
+      @Override
+      public int available() {
+         return buffer.remaining();
+      }
+   }
+
+}
@@ -0,0 +1,463 @@
+package org.infinispan.tutorial.remote.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.infinispan.Cache;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.notifications.cachelistener.filter.CacheEventConverterFactory;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilterFactory;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.server.hotrod.configuration.HotRodServerConfigurationBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An Infinispan server running inside the test JVM. It exposes a local
+ * cache manager via a Hot Rod endpoint, the real one from the server
+ * distribution, and a REST endpoint built on the JDK's own HTTP server which
+ * understands the subset of the REST API used in the tutorial. Both
+ * endpoints share the same caches, so with compatibility mode enabled data
+ * stored via one can be read via the other.
+ *
+ * The REST endpoint is a hand-written stand-in, not the Infinispan REST
+ * server: its status codes, headers, ETags and timings only approximate
+ * those of a server distribution, so REST results of tests and benchmarks
+ * against it say nothing about the real endpoint. It is the only such
+ * stand-in, and benchmarks reuse it rather than keeping their own.
+ *
+ * It starts in a fraction of a second and needs no server download, so it
+ * can stand in for a managed server in tests and benchmarks.
+ */
+public class EmbeddedServer implements AutoCloseable {
+
+   public static final String HOST = "127.0.0.1";
+   public static final String DEFAULT_CACHE = "___defaultcache";
+   public static final String NAMED_CACHE = "namedCache";
+
+   static final Charset UTF8 = Charset.forName("UTF-8");
+   static final String SERIALIZED = "application/x-java-serialized-object";
+   static final int COMPRESS_ABOVE = 1024;
+
+   private final EmbeddedCacheManager cacheManager;
+   private final HotRodServer hotRodServer;
+   private final HttpServer restServer;
+   private final RestHandler restHandler = new RestHandler();
+   private final ExecutorService restExecutor;
+   private final boolean compatibility;
+
+   /**
+    * Starts a server with both endpoints on free local ports, without
+    * compatibility mode.
+    */
+   public EmbeddedServer() {
+      this(HOST, 0, 0, null);
+   }
+
+   /**
+    * Starts a server with endpoints on the given ports, or free ones if 0.
+    * If a marshaller is given, caches run in compatibility mode, using it
+    * to unmarshall data stored via Hot Rod.
+    */
+   public EmbeddedServer(String host, int hotRodPort, int restPort, Marshaller compatibilityMarshaller) {
+      // Start a local, non-clustered, cache manager whose default cache is the one exposed
+      GlobalConfigurationBuilder global = new GlobalConfigurationBuilder();
+      global.globalJmxStatistics().allowDuplicateDomains(true);
+      ConfigurationBuilder cache = new ConfigurationBuilder();
+      cache.jmxStatistics().enable();
+      if (compatibilityMarshaller != null)
+         cache.compatibility().enable().marshaller(compatibilityMarshaller);
+      cacheManager = new DefaultCacheManager(global.build(), cache.build());
+      // Same named cache as the server distribution, for tests needing a second cache
+      cacheManager.defineConfiguration(NAMED_CACHE, cache.build());
+      compatibility = compatibilityMarshaller != null;
+
+      // Expose the cache manager over Hot Rod
+      hotRodServer = new HotRodServer();
+      hotRodServer.start(new HotRodServerConfigurationBuilder()
+            .host(host).port(hotRodPort == 0 ? freePort() : hotRodPort).build(), cacheManager);
+
+      // And over REST, under the same /rest context as the server distribution
+      try {
+         restServer = HttpServer.create(new InetSocketAddress(host, restPort), 0);
+      } catch (IOException e) {
+         hotRodServer.stop();
+         cacheManager.stop();
+         throw new AssertionError(e);
+      }
+      restExecutor = Executors.newCachedThreadPool();
+      restServer.setExecutor(restExecutor);
+      restServer.createContext("/rest/", restHandler);
+      restServer.start();
+   }
+
+   public EmbeddedCacheManager cacheManager() {
+      return cacheManager;
+   }
+
+   public HotRodServer hotRodServer() {
+      return hotRodServer;
+   }
+
+   public String hotRodHost() {
+      return hotRodServer.getHost();
+   }
+
+   public int hotRodPort() {
+      return hotRodServer.getPort();
+   }
+
+   public String restHost() {
+      return restServer.getAddress().getHostString();
+   }
+
+   public int restPort() {
+      return restServer.getAddress().getPort();
+   }
+
+   /**
+    * Location of the default cache in the REST endpoint.
+    */
+   public URI cacheUri() {
+      return URI.create(String.format("http://%s:%d/rest/%s", restHost(), restPort(), DEFAULT_CACHE));
+   }
+
+   /**
+    * Location of an entry of the default cache in the REST endpoint.
+    */
+   public URI cacheKeyUri(String key) {
+      return URI.create(cacheUri() + "/" + key);
+   }
+
+   /**
+    * Stores an entry in the default cache as a REST request with the given
+    * body and content type would, without going through HTTP, to quickly
+    * prepare large data sets.
+    */
+   public void restPut(String key, byte[] data, String contentType) {
+      try {
+         cacheManager.getCache().put(key, restHandler.decode(data, contentType));
+      } catch (IOException e) {
+         throw new AssertionError(e);
+      }
+   }
+
+   /**
+    * Plugs a remote event filter factory under the given name, as deploying
+    * it to a server distribution would.
+    */
+   public void addFilterFactory(String name, CacheEventFilterFactory factory) {
+      hotRodServer.addCacheEventFilterFactory(name, factory);
+   }
+
+   public void removeFilterFactory(String name) {
+      hotRodServer.removeCacheEventFilterFactory(name);
+   }
+
+   /**
+    * Plugs a remote event converter factory under the given name, as
+    * deploying it to a server distribution would.
+    */
+   public void addConverterFactory(String name, CacheEventConverterFactory factory) {
+      hotRodServer.addCacheEventConverterFactory(name, factory);
+   }
+
+   public void removeConverterFactory(String name) {
+      hotRodServer.removeCacheEventConverterFactory(name);
+   }
+
+   @Override
+   public void close() {
+      // Stop endpoints first so that no requests reach a stopped cache manager
+      restServer.stop(0);
+      restExecutor.shutdown();
+      hotRodServer.stop();
+      cacheManager.stop();
+   }
+
+   static int freePort() {
+      try (ServerSocket socket = new ServerSocket(0)) {
+         return socket.getLocalPort();
+      } catch (IOException e) {
+         throw new AssertionError(e);
+      }
+   }
+
+   /**
+    * Value stored via REST outside compatibility mode, keeping the content
+    * type it was stored with, as the REST server does.
+    */
+   static final class RestEntry implements Serializable {
+      final byte[] data;
+      final String contentType;
+
+      RestEntry(byte[] data, String contentType) {
+         this.data = data;
+         this.contentType = contentType;
+      }
+
+      @Override
+      public int hashCode() {
+         return 31 * Arrays.hashCode(data) + contentType.hashCode();
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (!(obj instanceof RestEntry))
+            return false;
+         RestEntry other = (RestEntry) obj;
+         return contentType.equals(other.contentType) && Arrays.equals(data, other.data);
+      }
+   }
+
+   final class RestHandler implements HttpHandler {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+         try {
+            // Always consume the request body, or the JDK server drops the connection instead of keeping it alive
+            byte[] body = readFully(exchange.getRequestBody());
+            if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding")))
+               body = readFully(new GZIPInputStream(new ByteArrayInputStream(body)));
+
+            // Paths look like /rest/<cache> or /rest/<cache>/<key>, with no cache named ""
+            String[] path = exchange.getRequestURI().getPath().split("/", 4);
+            if (path.length < 3 || path[2].isEmpty()) {
+               respond(exchange, 404, null);
+               return;
+            }
+            Cache<Object, Object> cache = DEFAULT_CACHE.equals(path[2])
+                  ? cacheManager.getCache() : cacheManager.getCache(path[2]);
+            if (path.length < 4 || path[3].isEmpty())
+               keys(exchange, cache);
+            else
+               entry(exchange, cache, path[3], body);
+         } catch (Exception e) {
+            respond(exchange, 500, String.valueOf(e).getBytes(UTF8));
+         } finally {
+            exchange.close();
+         }
+      }
+
+      private void entry(HttpExchange exchange, Cache<Object, Object> cache, String key, byte[] body) throws IOException {
+         Object stored = cache.get(key);
+         String etag = stored == null ? null : etag(stored);
+         switch (exchange.getRequestMethod()) {
+            case "GET":
+            case "HEAD":
+               if (stored == null) {
+                  respond(exchange, 404, null);
+               } else if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                  exchange.getResponseHeaders().set("ETag", etag);
+                  respond(exchange, 304, null);
+               } else {
+                  String accept = exchange.getRequestHeaders().getFirst("Accept");
+                  String contentType = contentType(stored, accept);
+                  byte[] data = isHead(exchange) ? null : encode(stored, contentType);
+                  exchange.getResponseHeaders().set("Content-Type", contentType);
+                  exchange.getResponseHeaders().set("ETag", etag);
+                  respond(exchange, 200, compress(exchange, data));
+               }
+               break;
+            case "PUT":
+            case "POST":
+               String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+               if (ifMatch != null && !ifMatch.equals(etag)) {
+                  respond(exchange, 412, null);
+                  break;
+               }
+               String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+               Object value = decode(body, contentType == null ? "application/octet-stream" : contentType);
+               long lifespan = seconds(exchange, "timeToLiveSeconds");
+               long maxIdle = seconds(exchange, "maxIdleTimeSeconds");
+               cache.put(key, value, lifespan, TimeUnit.SECONDS, maxIdle, TimeUnit.SECONDS);
+               respond(exchange, 200, null);
+               break;
+            case "DELETE":
+               respond(exchange, cache.remove(key) == null ? 404 : 200, null);
+               break;
+            default:
+               respond(exchange, 405, null);
+         }
+      }
+
+      private void keys(HttpExchange exchange, Cache<Object, Object> cache) throws IOException {
+         String accept = exchange.getRequestHeaders().getFirst("Accept");
+         String type = accept == null ? "text/plain" : accept;
+         StringBuilder sb = new StringBuilder();
+         switch (type) {
+            case "application/xml":
+               sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<keys>");
+               break;
+            case "application/json":
+               sb.append("keys=[");
+               break;
+         }
+
+         boolean first = true;
+         for (Object key : cache.keySet()) {
+            // Keys stored via Hot Rod outside compatibility mode are not readable over REST
+            if (!(key instanceof String))
+               continue;
+
+            switch (type) {
+               case "application/xml":
+                  sb.append("<key>").append(key).append("</key>");
+                  break;
+               case "application/json":
+                  sb.append(first ? "" : ",").append('"').append(key).append('"');
+                  break;
+               case "text/html":
+                  sb.append("<a href=\"").append(key).append("\">").append(key).append("</a><br/>");
+                  break;
+               default:
+                  sb.append(key).append('\n');
+            }
+            first = false;
+         }
+
+         switch (type) {
+            case "application/xml":
+               sb.append("</keys>");
+               break;
+            case "application/json":
+               sb.append("]");
+               break;
+         }
+
+         exchange.getResponseHeaders().set("Content-Type", type);
+         respond(exchange, 200, sb.toString().getBytes(UTF8));
+      }
+
+      private Object decode(byte[] body, String contentType) throws IOException {
+         // Outside compatibility mode values are kept as they came
+         if (!compatibility)
+            return new RestEntry(body, contentType);
+
+         // Otherwise store them as objects, so that Hot Rod clients can read them
+         if (contentType.startsWith("text/"))
+            return new String(body, UTF8);
+         if (contentType.startsWith(SERIALIZED)) {
+            try (ObjectInputStream ois = new ClassLoaderObjectInputStream(new ByteArrayInputStream(body))) {
+               return ois.readObject();
+            } catch (ClassNotFoundException e) {
+               throw new IOException(e);
+            }
+         }
+         return body;
+      }
+
+      private String contentType(Object stored, String accept) {
+         if (stored instanceof RestEntry)
+            return ((RestEntry) stored).contentType;
+         if (stored instanceof String && (accept == null || !accept.startsWith(SERIALIZED)))
+            return "text/plain";
+         if (stored instanceof byte[] && (accept == null || !accept.startsWith(SERIALIZED)))
+            return "application/octet-stream";
+         return SERIALIZED;
+      }
+
+      private byte[] encode(Object stored, String contentType) throws IOException {
+         if (stored instanceof RestEntry)
+            return ((RestEntry) stored).data;
+         if (!contentType.equals(SERIALIZED))
+            return stored instanceof String ? ((String) stored).getBytes(UTF8) : (byte[]) stored;
+
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(stored);
+         }
+         return out.toByteArray();
+      }
+
+      private String etag(Object stored) {
+         // Content based, so it changes whenever the value does
+         int hash = stored instanceof byte[] ? Arrays.hashCode((byte[]) stored) : stored.hashCode();
+         return Integer.toHexString(hash);
+      }
+
+      private byte[] compress(HttpExchange exchange, byte[] data) throws IOException {
+         // Only worth it for large values, and for clients that accept it
+         String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+         if (data == null || data.length < COMPRESS_ABOVE || accept == null || !accept.contains("gzip"))
+            return data;
+
+         ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+         try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+         }
+         exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+         return out.toByteArray();
+      }
+
+      private long seconds(HttpExchange exchange, String header) {
+         String value = exchange.getRequestHeaders().getFirst(header);
+         return value == null ? -1 : Long.parseLong(value);
+      }
+
+      private boolean isHead(HttpExchange exchange) {
+         return "HEAD".equals(exchange.getRequestMethod());
+      }
+
+      private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+         if (body == null || body.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+         } else {
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+               os.write(body);
+            }
+         }
+      }
+
+      private byte[] readFully(InputStream is) throws IOException {
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         byte[] buffer = new byte[8192];
+         int read;
+         while ((read = is.read(buffer)) != -1)
+            out.write(buffer, 0, read);
+         return out.toByteArray();
+      }
+   }
+
+   /**
+    * Resolves classes of deserialized values with the test class loader,
+    * rather than the one of the JDK's HTTP server threads.
+    */
+   static final class ClassLoaderObjectInputStream extends ObjectInputStream {
+      ClassLoaderObjectInputStream(InputStream in) throws IOException {
+         super(in);
+      }
+
+      @Override
+      protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+         try {
+            return Class.forName(desc.getName(), false, EmbeddedServer.class.getClassLoader());
+         } catch (ClassNotFoundException e) {
+            return super.resolveClass(desc);
+         }
+      }
+   }
+
+}
@@ -0,0 +1,60 @@
+package org.infinispan.tutorial.remote.util;
+
+import org.jboss.arquillian.container.spi.ConfigurationException;
+import org.jboss.arquillian.container.spi.client.container.ContainerConfiguration;
+
+/**
+ * Configuration of an {@link EmbeddedServerContainer}, set from container
+ * properties in arquillian.xml. Endpoints default to the same ports as the
+ * server distribution, so tests find them where they expect them.
+ */
+public class EmbeddedServerConfiguration implements ContainerConfiguration {
+
+   private String host = EmbeddedServer.HOST;
+   private int hotRodPort = 11222;
+   private int restPort = 8080;
+   private String compatibilityMarshaller;
+
+   public String getHost() {
+      return host;
+   }
+
+   public void setHost(String host) {
+      this.host = host;
+   }
+
+   public int getHotRodPort() {
+      return hotRodPort;
+   }
+
+   public void setHotRodPort(int hotRodPort) {
+      this.hotRodPort = hotRodPort;
+   }
+
+   public int getRestPort() {
+      return restPort;
+   }
+
+   public void setRestPort(int restPort) {
+      this.restPort = restPort;
+   }
+
+   /**
+    * Class name of the marshaller caches use in compatibility mode, or null
+    * for compatibility mode to be disabled.
+    */
+   public String getCompatibilityMarshaller() {
+      return compatibilityMarshaller;
+   }
+
+   public void setCompatibilityMarshaller(String compatibilityMarshaller) {
+      this.compatibilityMarshaller = compatibilityMarshaller;
+   }
+
+   @Override
+   public void validate() throws ConfigurationException {
+      if (hotRodPort < 0 || hotRodPort > 65535 || restPort < 0 || restPort > 65535)
+         throw new ConfigurationException(String.format("Invalid ports, Hot Rod: %d, REST: %d", hotRodPort, restPort));
+   }
+
+}
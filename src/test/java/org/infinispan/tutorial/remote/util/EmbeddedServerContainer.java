@@ -0,0 +1,140 @@
+package org.infinispan.tutorial.remote.util;
+
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.notifications.cachelistener.filter.CacheEventConverterFactory;
+import org.infinispan.notifications.cachelistener.filter.CacheEventFilterFactory;
+import org.infinispan.notifications.cachelistener.filter.NamedFactory;
+import org.jboss.arquillian.container.spi.client.container.DeployableContainer;
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.arquillian.container.spi.client.container.LifecycleException;
+import org.jboss.arquillian.container.spi.client.protocol.ProtocolDescription;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.descriptor.api.Descriptor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An Arquillian container which runs an {@link EmbeddedServer} instead of
+ * booting a server distribution.
+ *
+ * Deploying an archive plugs the remote event filter and converter factories
+ * it declares as service providers, the same archives tests deploy to a
+ * server distribution. Their classes are loaded from the test class path.
+ */
+public class EmbeddedServerContainer implements DeployableContainer<EmbeddedServerConfiguration> {
+
+   static final String FILTER_FACTORIES = "META-INF/services/" + CacheEventFilterFactory.class.getName();
+   static final String CONVERTER_FACTORIES = "META-INF/services/" + CacheEventConverterFactory.class.getName();
+
+   private EmbeddedServerConfiguration configuration;
+   private volatile EmbeddedServer server;
+
+   @Override
+   public Class<EmbeddedServerConfiguration> getConfigurationClass() {
+      return EmbeddedServerConfiguration.class;
+   }
+
+   @Override
+   public void setup(EmbeddedServerConfiguration configuration) {
+      this.configuration = configuration;
+   }
+
+   @Override
+   public void start() throws LifecycleException {
+      try {
+         Marshaller marshaller = null;
+         if (configuration.getCompatibilityMarshaller() != null)
+            marshaller = (Marshaller) Class.forName(configuration.getCompatibilityMarshaller()).newInstance();
+
+         server = new EmbeddedServer(configuration.getHost(), configuration.getHotRodPort(),
+               configuration.getRestPort(), marshaller);
+      } catch (Exception | AssertionError e) {
+         throw new LifecycleException("Unable to start embedded server", e);
+      }
+   }
+
+   @Override
+   public void stop() throws LifecycleException {
+      if (server != null) {
+         server.close();
+         server = null;
+      }
+   }
+
+   /**
+    * The running server, or null if the container is not started.
+    */
+   public EmbeddedServer server() {
+      return server;
+   }
+
+   @Override
+   public ProtocolDescription getDefaultProtocol() {
+      return new ProtocolDescription("Local");
+   }
+
+   @Override
+   public ProtocolMetaData deploy(Archive<?> archive) throws DeploymentException {
+      for (Object factory : factories(archive, FILTER_FACTORIES))
+         server.addFilterFactory(name(factory), (CacheEventFilterFactory) factory);
+      for (Object factory : factories(archive, CONVERTER_FACTORIES))
+         server.addConverterFactory(name(factory), (CacheEventConverterFactory) factory);
+      return new ProtocolMetaData();
+   }
+
+   @Override
+   public void undeploy(Archive<?> archive) throws DeploymentException {
+      if (server == null)
+         return;
+
+      for (Object factory : factories(archive, FILTER_FACTORIES))
+         server.removeFilterFactory(name(factory));
+      for (Object factory : factories(archive, CONVERTER_FACTORIES))
+         server.removeConverterFactory(name(factory));
+   }
+
+   @Override
+   public void deploy(Descriptor descriptor) throws DeploymentException {
+      throw new UnsupportedOperationException("Descriptors cannot be deployed to an embedded server");
+   }
+
+   @Override
+   public void undeploy(Descriptor descriptor) throws DeploymentException {
+      throw new UnsupportedOperationException("Descriptors cannot be deployed to an embedded server");
+   }
+
+   private List<Object> factories(Archive<?> archive, String serviceFile) throws DeploymentException {
+      List<Object> factories = new ArrayList<>();
+      Node node = archive.get(serviceFile);
+      if (node == null || node.getAsset() == null)
+         return factories;
+
+      // Service provider files list one class name per line, with optional comments
+      try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(node.getAsset().openStream(), EmbeddedServer.UTF8))) {
+         String line;
+         while ((line = reader.readLine()) != null) {
+            String className = line.replaceAll("#.*", "").trim();
+            if (!className.isEmpty())
+               factories.add(Class.forName(className).newInstance());
+         }
+      } catch (IOException | ReflectiveOperationException e) {
+         throw new DeploymentException("Unable to deploy " + archive.getName(), e);
+      }
+      return factories;
+   }
+
+   private String name(Object factory) throws DeploymentException {
+      NamedFactory named = factory.getClass().getAnnotation(NamedFactory.class);
+      if (named == null)
+         throw new DeploymentException(factory.getClass().getName() + " is not annotated with @NamedFactory");
+      return named.name();
+   }
+
+}
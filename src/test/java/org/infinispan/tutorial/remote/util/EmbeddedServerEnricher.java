@@ -0,0 +1,102 @@
+package org.infinispan.tutorial.remote.util;
+
+import org.infinispan.arquillian.core.HotRodEndpoint;
+import org.infinispan.arquillian.core.InfinispanResource;
+import org.infinispan.arquillian.core.RESTEndpoint;
+import org.infinispan.arquillian.core.RemoteInfinispanServer;
+import org.jboss.arquillian.container.spi.Container;
+import org.jboss.arquillian.container.spi.ContainerRegistry;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.test.spi.TestEnricher;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+
+/**
+ * Injects {@link InfinispanResource} fields of tests running against an
+ * {@link EmbeddedServerContainer}, so that tests find the embedded server's
+ * endpoints through the same {@link RemoteInfinispanServer} they use with a
+ * server distribution. Only endpoint addresses are available.
+ */
+public class EmbeddedServerEnricher implements TestEnricher {
+
+   @Inject
+   Instance<ContainerRegistry> containerRegistry;
+
+   @Override
+   public void enrich(Object testCase) {
+      for (Class<?> type = testCase.getClass(); type != Object.class; type = type.getSuperclass()) {
+         for (Field field : type.getDeclaredFields()) {
+            InfinispanResource resource = field.getAnnotation(InfinispanResource.class);
+            if (resource == null || field.getType() != RemoteInfinispanServer.class)
+               continue;
+
+            // Leave containers other than embedded ones to the Infinispan enricher
+            Container container = containerRegistry.get().getContainer(resource.value());
+            if (container == null || !(container.getDeployableContainer() instanceof EmbeddedServerContainer))
+               continue;
+
+            EmbeddedServer server = ((EmbeddedServerContainer) container.getDeployableContainer()).server();
+            try {
+               field.setAccessible(true);
+               field.set(testCase, remoteServer(server));
+            } catch (IllegalAccessException e) {
+               throw new IllegalStateException(e);
+            }
+         }
+      }
+   }
+
+   @Override
+   public Object[] resolve(Method method) {
+      return new Object[method.getParameterTypes().length];
+   }
+
+   static RemoteInfinispanServer remoteServer(final EmbeddedServer server) {
+      return proxy(RemoteInfinispanServer.class, new InvocationHandler() {
+         @Override
+         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+               case "getHotrodEndpoint":
+                  return endpoint(HotRodEndpoint.class, server.hotRodHost(), server.hotRodPort());
+               case "getRESTEndpoint":
+                  return endpoint(RESTEndpoint.class, server.restHost(), server.restPort());
+               case "toString":
+                  return "EmbeddedServer[" + server.hotRodHost() + ":" + server.hotRodPort() + "]";
+               default:
+                  throw new UnsupportedOperationException(method.getName() + " is not available on embedded servers");
+            }
+         }
+      });
+   }
+
+   static <T> T endpoint(Class<T> type, final String host, final int port) {
+      return proxy(type, new InvocationHandler() {
+         @Override
+         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+               case "getInetAddress":
+                  return InetAddress.getByName(host);
+               case "getPort":
+                  return port;
+               case "getContextPath":
+                  return "/rest";
+               case "toString":
+                  return host + ":" + port;
+               default:
+                  throw new UnsupportedOperationException(method.getName() + " is not available on embedded servers");
+            }
+         }
+      });
+   }
+
+   static <T> T proxy(Class<T> type, InvocationHandler handler) {
+      return type.cast(Proxy.newProxyInstance(EmbeddedServerEnricher.class.getClassLoader(),
+            new Class<?>[]{type}, handler));
+   }
+
+}
@@ -0,0 +1,26 @@
+package org.infinispan.tutorial.remote.util;
+
+import org.jboss.arquillian.container.spi.client.container.DeployableContainer;
+import org.jboss.arquillian.core.spi.LoadableExtension;
+import org.jboss.arquillian.test.spi.TestEnricher;
+
+/**
+ * An Arquillian extension that allows tests to run against an in-process
+ * {@link EmbeddedServer} instead of a server distribution, when launched
+ * with one of the embedded groups in arquillian.xml.
+ */
+public class EmbeddedServerExtension implements LoadableExtension {
+
+   static final String LAUNCH_PREFIX = "embedded-";
+
+   @Override
+   public void register(ExtensionBuilder extensionBuilder) {
+      // Only take part in embedded runs, leaving the managed server set up untouched
+      String launch = System.getProperty("arquillian.launch", "");
+      if (launch.startsWith(LAUNCH_PREFIX)) {
+         extensionBuilder.service(DeployableContainer.class, EmbeddedServerContainer.class);
+         extensionBuilder.service(TestEnricher.class, EmbeddedServerEnricher.class);
+      }
+   }
+
+}
@@ -1,23 +1,43 @@
 package org.infinispan.tutorial.remote.util;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 public class JdkHttpClient {
 
+   private static final Logger log = Logger.getLogger(JdkHttpClient.class.getName());
+
+   static final String GZIP = "gzip";
+
+   // Buffers of up to 1MB in which bodies are encoded and decoded
+   private static final BufferPool BUFFER_POOL = new BufferPool(1024 * 1024, 16);
+
+   // Per thread buffer used to stream values in chunks
+   private static final ThreadLocal<byte[]> TRANSFER_BUFFER = new ThreadLocal<byte[]>() {
+      @Override
+      protected byte[] initialValue() {
+         return new byte[64 * 1024];
+      }
+   };
+
    public static URI uri(String hostname, int port, String query) {
       try {
          URL url = new URL("http", hostname, port, query);
@@ -56,7 +76,7 @@ public class JdkHttpClient {
    }
 
    public static Map<String, ?> get(final URI uri, final Map<String, ?> params) {
-      return withHttp(uri, "GET", params, new HttpCallable<Map<String, ?>>() {
+      return withHttp(uri, "GET", params, null, new HttpCallable<Map<String, ?>>() {
          @Override
          public Map<String, ?> call(HttpURLConnection httpcon) throws Exception {
             // 4xx: client error, 5xx: server error. See: http://www.w3.org/Protocols/rfc2616/rfc2616-sec10.html.
@@ -66,66 +86,169 @@ public class JdkHttpClient {
             if (isError) {
                return getRsp(uri, httpcon, httpcon.getResponseMessage());
             } else {
-               Object type = params.get(Keys.CONTENT_TYPE);
-               if (type == null)
-                  type = params.get(Keys.ACCEPT);
-
-               switch (type.toString()) {
-                  case "text/plain":
-                  case "text/html":
-                  case "application/xml":
-                  case "application/json":
-                     List<String> lines = new ArrayList<>();
-                     String line;
-                     try (BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
-                        while ((line = reader.readLine()) != null)
-                           lines.add(line);
-
-                        return getRsp(uri, httpcon, lines.size() > 1 ? lines : lines.get(0));
-                     }
-                  case "application/octet-stream":
-                     int length = (Integer) params.get(Keys.LENGTH);
-                     byte[] bytes = new byte[length];
-                     is.read(bytes);
-                     return getRsp(uri, httpcon, bytes);
-                  case "application/x-java-serialized-object":
-                     ObjectInputStream ois = new ObjectInputStream(is);
-                     return getRsp(uri, httpcon, ois.readObject());
-                  default:
-                     throw new IllegalStateException("Unsupported content type");
-               }
+               return decodeRsp(uri, httpcon, is, bodyType(params), null);
             }
          }
       });
    }
 
-   public static Map<String, ?> put(final URI uri, final Map<String, ?> params) {
-      return withHttp(uri, "PUT", params, new HttpCallable<Map<String, ?>>() {
+   /**
+    * Reads an entry like {@link #get(URI, Map)}, revalidating responses kept
+    * in the given cache with {@code If-None-Match} instead of downloading
+    * them again. Responses served from the cache are returned as they were
+    * first received, with {@link Keys#REVALIDATED} set.
+    */
+   public static Map<String, ?> get(final URI uri, final Map<String, ?> params, final RestResponseCache cache) {
+      final String key = RestResponseCache.key(uri.toString(), bodyType(params));
+      final RestResponseCache.Entry cached = cache.get(key);
+      Map<String, Object> conditional = new HashMap<>(params);
+      if (cached != null)
+         conditional.put(Keys.IF_NONE_MATCH, cached.etag);
+
+      return withHttp(uri, "GET", conditional, null, new HttpCallable<Map<String, ?>>() {
          @Override
-         public Map<String, ?> call(HttpURLConnection httpcon) throws IOException {
-            Object body = params.get(Keys.BODY);
-            if (body instanceof String) {
-               try (OutputStreamWriter writer = new OutputStreamWriter(httpcon.getOutputStream())) {
-                  writer.write(body.toString());
-                  writer.flush();
-                  return putRsp(uri, httpcon);
+         public Map<String, ?> call(HttpURLConnection httpcon) throws Exception {
+            int status = httpcon.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+               Map<String, ?> resp = cache.hit(cached);
+               if (log.isLoggable(Level.FINE))
+                  log.fine(String.format("<== GET(%s) %s", uri, resp));
+               return resp;
+            }
+
+            if (status >= 400) {
+               // Gone or failing resources are not served from the cache either
+               cache.invalidate(uri.toString());
+               return getRsp(uri, httpcon, httpcon.getResponseMessage());
+            }
+
+            long[] size = new long[1];
+            Map<String, ?> resp = decodeRsp(uri, httpcon, httpcon.getInputStream(), bodyType(params), size);
+            Object etag = status == HttpURLConnection.HTTP_OK ? resp.get(Keys.ETAG) : null;
+            cache.miss(key, uri.toString(), etag == null ? null : etag.toString(), resp, size[0]);
+            return resp;
+         }
+      });
+   }
+
+   /**
+    * Lists the keys of a cache incrementally, in the format given by the
+    * {@link Keys#ACCEPT} parameter: plain text, XML or JSON. The returned
+    * iterator must be closed if it is not iterated until the end.
+    */
+   public static KeyIterator keys(URI cacheUri, Map<String, ?> params) {
+      HttpURLConnection httpcon = null;
+      try {
+         httpcon = httpcon(cacheUri, "GET", params, null);
+         httpcon.connect();
+         if (httpcon.getResponseCode() >= 400)
+            throw new IllegalStateException(String.format("Unable to list keys: %d %s",
+                  httpcon.getResponseCode(), httpcon.getResponseMessage()));
+
+         return KeyIterator.of(httpcon, httpcon.getInputStream(), params.get(Keys.ACCEPT).toString());
+      } catch (IOException e) {
+         if (httpcon != null) httpcon.disconnect();
+         throw new AssertionError(e);
+      } catch (RuntimeException e) {
+         if (httpcon != null) httpcon.disconnect();
+         throw e;
+      }
+   }
+
+   /**
+    * Streams the response body into the given channel, e.g. a {@code FileChannel},
+    * without holding the whole value in memory. The number of bytes transferred
+    * is returned under {@link Keys#LENGTH}.
+    */
+   public static Map<String, ?> get(final URI uri, final Map<String, ?> params, final WritableByteChannel target) {
+      return withHttp(uri, "GET", params, null, new HttpCallable<Map<String, ?>>() {
+         @Override
+         public Map<String, ?> call(HttpURLConnection httpcon) throws Exception {
+            if (httpcon.getResponseCode() >= 400)
+               return getRsp(uri, httpcon, httpcon.getResponseMessage());
+
+            try (InputStream is = httpcon.getInputStream()) {
+               long transferred = transfer(is, target);
+               Map<String, Object> resp = buildRsp(httpcon);
+               resp.put(Keys.LENGTH, transferred);
+               if (log.isLoggable(Level.FINE))
+                  log.fine(String.format("<== GET(%s) %s", uri, resp));
+               return resp;
+            }
+         }
+      });
+   }
+
+   /**
+    * Stores the given parameters' body. Byte arrays are sent as they are.
+    * The body can also be a {@code ReadableByteChannel}, e.g. a
+    * {@code FileChannel}, which is streamed without holding the whole value
+    * in memory. Unless it is a file or {@link Keys#LENGTH} is given, the
+    * channel is sent using chunked transfer encoding. Any other body is
+    * encoded by the codec registered for the {@link Keys#CONTENT_TYPE}.
+    *
+    * With {@link Keys#COMPRESS_REQUESTS}, byte arrays and encoded bodies of
+    * at least {@link Keys#COMPRESS_ABOVE} bytes are sent compressed with
+    * gzip. Only use it with servers known to decompress request bodies, such
+    * as the embedded server: the Infinispan REST server stores the body as
+    * it is, so other readers would get the gzip bytes.
+    */
+   public static Map<String, ?> put(final URI uri, final Map<String, ?> params) {
+      final Object body = params.get(Keys.BODY);
+      if (body instanceof byte[] && compressAbove(params, true) <= ((byte[]) body).length)
+         return putEncoded(uri, params, ByteBuffer.wrap((byte[]) body));
+      if (body instanceof byte[] || body instanceof ReadableByteChannel)
+         return withHttp(uri, "PUT", params, body, new HttpCallable<Map<String, ?>>() {
+            @Override
+            public Map<String, ?> call(HttpURLConnection httpcon) throws IOException {
+               try (OutputStream os = httpcon.getOutputStream()) {
+                  if (body instanceof byte[])
+                     os.write((byte[]) body);
+                  else
+                     transfer((ReadableByteChannel) body, os);
                }
-            } else if (body instanceof byte[]) {
-               httpcon.getOutputStream().write((byte[]) body);
                return putRsp(uri, httpcon);
-            } else {
-               try (ObjectOutputStream oos = new ObjectOutputStream(httpcon.getOutputStream())) {
-                  oos.writeObject(body);
-                  oos.flush();
+            }
+         });
+
+      // Encode before connecting, so that the length of the body is known up front
+      ByteBuffer encoded = encode(body, params.get(Keys.CONTENT_TYPE));
+      try {
+         return putEncoded(uri, params, encoded);
+      } finally {
+         BUFFER_POOL.release(encoded);
+      }
+   }
+
+   private static Map<String, ?> putEncoded(final URI uri, Map<String, ?> params, ByteBuffer encoded) {
+      Map<String, ?> headers = params;
+      if (compressAbove(params, true) <= encoded.remaining()) {
+         encoded = compress(encoded);
+         Map<String, Object> compressed = new HashMap<>(params);
+         compressed.put(Keys.CONTENT_ENCODING, GZIP);
+         headers = compressed;
+      }
+
+      final ByteBuffer sent = encoded;
+      try {
+         return withHttp(uri, "PUT", headers, sent, new HttpCallable<Map<String, ?>>() {
+            @Override
+            public Map<String, ?> call(HttpURLConnection httpcon) throws IOException {
+               try (OutputStream os = httpcon.getOutputStream()) {
+                  os.write(sent.array(), sent.arrayOffset() + sent.position(), sent.remaining());
                }
                return putRsp(uri, httpcon);
             }
-         }
-      });
+         });
+      } finally {
+         // Compressed copies are ours to release, the caller releases what it passed
+         if (headers != params)
+            BUFFER_POOL.release(sent);
+      }
    }
 
    public static Map<String, ?> delete(final URI uri, Map<String, ?> params) {
-      return withHttp(uri, "DELETE", params, new HttpCallable<Map<String, ?>>() {
+      return withHttp(uri, "DELETE", params, null, new HttpCallable<Map<String, ?>>() {
          @Override
          public Map<String, ?> call(HttpURLConnection httpcon) throws IOException {
             return deleteRsp(uri, httpcon);
@@ -133,52 +256,260 @@ public class JdkHttpClient {
       });
    }
 
+   /**
+    * Sets the maximum number of idle connections kept alive per server.
+    * Connections are pooled by the JDK, which reads this setting once, so
+    * it must be called before the first request is sent.
+    */
+   public static void keepAlivePoolSize(int maxConnections) {
+      System.setProperty("http.keepAlive", "true");
+      System.setProperty("http.maxConnections", String.valueOf(maxConnections));
+   }
+
+   /**
+    * Returns the pool of buffers in which request and response bodies are
+    * encoded and decoded.
+    */
+   public static BufferPool bufferPool() {
+      return BUFFER_POOL;
+   }
+
    private static Map<String, ?> withHttp(URI uri, String method, Map<String, ?> params,
-         HttpCallable<Map<String, ?>> callable) {
+         Object body, HttpCallable<Map<String, ?>> callable) {
       HttpURLConnection httpcon = null;
       try {
-         httpcon = httpcon(uri, method, params);
+         httpcon = httpcon(uri, method, params, body);
          httpcon.connect();
          return callable.call(httpcon);
       } catch (Exception e) {
          throw new AssertionError(e);
       } finally {
-         if (httpcon != null) httpcon.disconnect();
+         // Instead of disconnecting, consume the rest of the response so
+         // that the underlying connection is kept alive and reused
+         if (httpcon != null) release(httpcon);
       }
    }
 
-   private static HttpURLConnection httpcon(URI uri, String method, Map<String, ?> params) throws IOException {
-      System.out.printf("==> %s(%s) \n", method, uri);
+   private static HttpURLConnection httpcon(URI uri, String method, Map<String, ?> params, Object body) throws IOException {
+      if (log.isLoggable(Level.FINE))
+         log.fine(String.format("==> %s(%s)", method, uri));
+
       HttpURLConnection httpcon = (HttpURLConnection) uri.toURL().openConnection();
       httpcon.setRequestMethod(method);
-      httpcon.setDoOutput(true);
-      for (Map.Entry<String, ?> e : params.entrySet())
-         httpcon.setRequestProperty(e.getKey(), e.getValue().toString());
+      if ("PUT".equals(method)) {
+         httpcon.setDoOutput(true);
+         streamingMode(httpcon, body, params.get(Keys.LENGTH));
+      }
+      for (Map.Entry<String, ?> e : params.entrySet()) {
+         // Body, length and compression settings are used by the client only, they are not headers
+         if (!Keys.BODY.equals(e.getKey()) && !Keys.LENGTH.equals(e.getKey())
+               && !Keys.COMPRESS_ABOVE.equals(e.getKey()) && !Keys.COMPRESS_REQUESTS.equals(e.getKey()))
+            httpcon.setRequestProperty(e.getKey(), e.getValue().toString());
+      }
+      // Let the server compress large responses for clients opting into compression,
+      // servers that do not support it answer uncompressed
+      if ("GET".equals(method) && params.containsKey(Keys.COMPRESS_ABOVE))
+         httpcon.setRequestProperty(Keys.ACCEPT_ENCODING, GZIP);
       return httpcon;
    }
 
+   private static void streamingMode(HttpURLConnection httpcon, Object body, Object length) throws IOException {
+      // Avoid the connection buffering the whole body in memory before sending it
+      if (body instanceof byte[]) {
+         httpcon.setFixedLengthStreamingMode((long) ((byte[]) body).length);
+      } else if (body instanceof ByteBuffer) {
+         httpcon.setFixedLengthStreamingMode((long) ((ByteBuffer) body).remaining());
+      } else if (body instanceof ReadableByteChannel) {
+         if (length instanceof Number)
+            httpcon.setFixedLengthStreamingMode(((Number) length).longValue());
+         else if (body instanceof FileChannel)
+            httpcon.setFixedLengthStreamingMode(((FileChannel) body).size() - ((FileChannel) body).position());
+         else
+            httpcon.setChunkedStreamingMode(0);
+      }
+   }
+
+   private static ByteBuffer encode(Object body, Object contentType) {
+      try {
+         return Codecs.codec(contentType).encode(body, BUFFER_POOL);
+      } catch (IOException e) {
+         throw new AssertionError(e);
+      }
+   }
+
+   private static ByteBuffer readBuffer(InputStream is, long contentLength) throws IOException {
+      // Size the buffer from the content length if known, otherwise grow it as needed
+      boolean knownLength = contentLength >= 0 && contentLength <= BufferPool.MAX_CAPACITY;
+      ByteBuffer buffer = BUFFER_POOL.acquire(knownLength ? (int) contentLength : 8 * 1024);
+      try {
+         int read;
+         while (true) {
+            if (!buffer.hasRemaining()) {
+               if (knownLength && buffer.position() >= contentLength)
+                  break;
+               buffer = BUFFER_POOL.grow(buffer);
+            }
+            read = is.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            if (read == -1)
+               break;
+            buffer.position(buffer.position() + read);
+         }
+         // A connection closed early must not pass for a complete, shorter body
+         if (knownLength && buffer.position() < contentLength)
+            throw new EOFException("Expected " + contentLength + " bytes, got " + buffer.position());
+      } catch (IOException | RuntimeException e) {
+         BUFFER_POOL.release(buffer);
+         throw e;
+      }
+      buffer.flip();
+      return buffer;
+   }
+
+   private static byte[] readBytes(InputStream is, int contentLength) throws IOException {
+      // A single read might return fewer bytes than available, so keep reading
+      byte[] bytes = new byte[contentLength];
+      int offset = 0;
+      while (offset < bytes.length) {
+         int read = is.read(bytes, offset, bytes.length - offset);
+         if (read == -1)
+            throw new EOFException("Expected " + contentLength + " bytes, got " + offset);
+         offset += read;
+      }
+      return bytes;
+   }
+
+   private static long transfer(InputStream is, WritableByteChannel target) throws IOException {
+      byte[] buffer = transferBuffer();
+      long transferred = 0;
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+         ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+         while (chunk.hasRemaining())
+            target.write(chunk);
+         transferred += read;
+      }
+      return transferred;
+   }
+
+   private static long transfer(ReadableByteChannel source, OutputStream os) throws IOException {
+      byte[] buffer = transferBuffer();
+      ByteBuffer chunk = ByteBuffer.wrap(buffer);
+      long transferred = 0;
+      int read;
+      while ((read = source.read(chunk)) != -1) {
+         os.write(buffer, 0, read);
+         transferred += read;
+         chunk.clear();
+      }
+      return transferred;
+   }
+
+   private static byte[] transferBuffer() {
+      return TRANSFER_BUFFER.get();
+   }
+
+   private static void release(HttpURLConnection httpcon) {
+      try {
+         InputStream is = httpcon.getResponseCode() >= 400 ? httpcon.getErrorStream() : httpcon.getInputStream();
+         if (is != null) {
+            try {
+               byte[] buffer = new byte[4096];
+               while (is.read(buffer) != -1) {
+                  // Discard whatever was not read by the callable
+               }
+            } finally {
+               is.close();
+            }
+         }
+      } catch (IOException e) {
+         // Already fully read and closed by the callable, or the connection
+         // is broken, in which case the JDK does not keep it alive anyway
+      }
+   }
+
+   private static Object bodyType(Map<String, ?> params) {
+      Object type = params.get(Keys.CONTENT_TYPE);
+      return type == null ? params.get(Keys.ACCEPT) : type;
+   }
+
+   private static Map<String, ?> decodeRsp(URI uri, HttpURLConnection httpcon, InputStream is, Object type,
+         long[] size) throws IOException, ClassNotFoundException {
+      Codec codec = Codecs.codec(type);
+      long contentLength = httpcon.getContentLengthLong();
+      boolean gzip = GZIP.equalsIgnoreCase(httpcon.getContentEncoding());
+      if (codec == Codecs.BYTES && !gzip && contentLength >= 0 && contentLength <= BufferPool.MAX_CAPACITY) {
+         // Binary values are returned as they are, so read them into an array of the exact size
+         byte[] body = readBytes(is, (int) contentLength);
+         if (size != null)
+            size[0] = body.length;
+         return getRsp(uri, httpcon, body);
+      }
+
+      // Read the whole body into a pooled buffer and let the codec decode it from there
+      ByteBuffer buffer = readBuffer(is, contentLength);
+      try {
+         if (size != null)
+            size[0] = buffer.remaining();
+         if (gzip) {
+            ByteBuffer compressed = buffer;
+            buffer = readBuffer(new GZIPInputStream(new Codecs.ByteBufferInputStream(compressed)), -1);
+            BUFFER_POOL.release(compressed);
+         }
+         return getRsp(uri, httpcon, codec.decode(buffer));
+      } finally {
+         BUFFER_POOL.release(buffer);
+      }
+   }
+
+   private static int compressAbove(Map<String, ?> params, boolean request) {
+      // Request bodies are only compressed for servers the caller knows to decompress them
+      if (request && !Boolean.TRUE.equals(params.get(Keys.COMPRESS_REQUESTS)))
+         return Integer.MAX_VALUE;
+      Object threshold = params.get(Keys.COMPRESS_ABOVE);
+      return threshold == null ? Integer.MAX_VALUE : ((Number) threshold).intValue();
+   }
+
+   private static ByteBuffer compress(ByteBuffer source) {
+      Codecs.ByteBufferOutputStream out = new Codecs.ByteBufferOutputStream(BUFFER_POOL);
+      try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8 * 1024)) {
+         gzip.write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+      } catch (IOException e) {
+         BUFFER_POOL.release(out.buffer);
+         throw new AssertionError(e);
+      }
+      out.buffer.flip();
+      return out.buffer;
+   }
+
    private static Map<String, ?> getRsp(URI uri, HttpURLConnection httpcon, Object response) throws IOException {
       Map<String, Object> resp = buildRsp(httpcon);
       resp.put(Keys.BODY, response);
-      System.out.printf("<== GET(%s) %s\n", uri, resp);
+      if (log.isLoggable(Level.FINE))
+         log.fine(String.format("<== GET(%s) %s", uri, resp));
       return resp;
    }
 
    private static Map<String, ?> putRsp(URI uri, HttpURLConnection httpcon) throws IOException {
       Map<String, Object> resp = buildRsp(httpcon);
-      System.out.printf("<== PUT(%s) %s\n", uri, resp);
+      if (log.isLoggable(Level.FINE))
+         log.fine(String.format("<== PUT(%s) %s", uri, resp));
       return resp;
    }
 
    private static Map<String, ?> deleteRsp(URI uri, HttpURLConnection httpcon) throws IOException {
       Map<String, Object> resp = buildRsp(httpcon);
-      System.out.printf("<== DELETE(%s) %s\n", uri, resp);
+      if (log.isLoggable(Level.FINE))
+         log.fine(String.format("<== DELETE(%s) %s", uri, resp));
       return resp;
    }
 
    private static Map<String, Object> buildRsp(HttpURLConnection httpcon) throws IOException {
-      Map<String, Object> resp = new HashMap<>();
+      // Header names are case insensitive, and servers differ in how they spell them
+      Map<String, Object> resp = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
       for (Map.Entry<String, List<String>> e : httpcon.getHeaderFields().entrySet()) {
+         // The status line has no name, its parts are added below
+         if (e.getKey() == null)
+            continue;
          if (e.getValue().size() > 1)
             resp.put(e.getKey(), e.getValue());
          else
@@ -196,12 +527,18 @@ public class JdkHttpClient {
 
    public static class Keys {
       public static final String ACCEPT = "Accept";
+      public static final String ACCEPT_ENCODING = "Accept-Encoding";
       public static final String BODY = "Body";
+      public static final String COMPRESS_ABOVE = "Compress-Above";
+      public static final String COMPRESS_REQUESTS = "Compress-Requests";
+      public static final String CONTENT_ENCODING = "Content-Encoding";
       public static final String CONTENT_TYPE = "Content-Type";
       public static final String ETAG = "ETag";
       public static final String IF_MATCH = "If-Match";
+      public static final String IF_NONE_MATCH = "If-None-Match";
       public static final String LENGTH = "Length";
       public static final String MESSAGE = "Message";
+      public static final String REVALIDATED = "Revalidated";
       public static final String STATUS_CODE = "Status-Code";
    }
 
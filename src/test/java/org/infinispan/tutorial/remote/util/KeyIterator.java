@@ -0,0 +1,296 @@
+package org.infinispan.tutorial.remote.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the keys of a REST key set listing as they are received,
+ * parsing the response incrementally so that memory use does not depend on
+ * the number of keys, and the first key is available as soon as it arrives.
+ *
+ * Iteration can be stopped at any time by closing the iterator, in which
+ * case the rest of the response is not downloaded.
+ */
+public abstract class KeyIterator implements Iterator<String>, Closeable {
+
+   static final Charset UTF8 = Charset.forName("UTF-8");
+
+   private final HttpURLConnection httpcon;
+   // Response body, counting the bytes parsed so far
+   final CountingInputStream in;
+   private final long startNanos = System.nanoTime();
+   private String next;
+   private boolean exhausted;
+   private boolean closed;
+   private long count;
+
+   KeyIterator(HttpURLConnection httpcon, InputStream is) {
+      this.httpcon = httpcon;
+      this.in = new CountingInputStream(is);
+   }
+
+   static KeyIterator of(HttpURLConnection httpcon, InputStream is, String type) {
+      switch (type) {
+         case "text/plain":
+            return new TextKeyIterator(httpcon, is);
+         case "application/xml":
+            return new XmlKeyIterator(httpcon, is);
+         case "application/json":
+            return new JsonKeyIterator(httpcon, is);
+         default:
+            throw new IllegalStateException("Unsupported content type");
+      }
+   }
+
+   /**
+    * Reads the next key from the response.
+    *
+    * @return the key, or null if there are no more keys
+    */
+   abstract String readKey() throws IOException;
+
+   abstract void closeInput() throws IOException;
+
+   @Override
+   public boolean hasNext() {
+      if (next == null && !exhausted && !closed) {
+         try {
+            next = readKey();
+         } catch (IOException e) {
+            close();
+            throw new IllegalStateException(e);
+         }
+         if (next == null) {
+            exhausted = true;
+            close();
+         }
+      }
+      return next != null;
+   }
+
+   @Override
+   public String next() {
+      if (!hasNext())
+         throw new NoSuchElementException();
+
+      String key = next;
+      next = null;
+      count++;
+      return key;
+   }
+
+   @Override
+   public void remove() {
+      throw new UnsupportedOperationException();
+   }
+
+   /**
+    * Number of keys returned so far.
+    */
+   public long count() {
+      return count;
+   }
+
+   /**
+    * Bytes of the response read so far, including those buffered by the
+    * parser but not yet returned as keys.
+    */
+   public long bytesRead() {
+      return in.count;
+   }
+
+   /**
+    * Keys returned per second since the listing was requested.
+    */
+   public double keysPerSecond() {
+      long elapsed = System.nanoTime() - startNanos;
+      return elapsed == 0 ? 0 : count * 1e9 / elapsed;
+   }
+
+   @Override
+   public void close() {
+      if (closed)
+         return;
+
+      closed = true;
+      try {
+         closeInput();
+      } catch (IOException e) {
+         // Nothing else to release
+      }
+
+      // Stopping early would otherwise mean downloading the rest
+      // of the listing just to be able to reuse the connection
+      if (!exhausted)
+         httpcon.disconnect();
+   }
+
+   static final class CountingInputStream extends FilterInputStream {
+      long count;
+
+      CountingInputStream(InputStream in) {
+         super(in);
+      }
+
+      @Override
+      public int read() throws IOException {
+         int b = super.read();
+         if (b != -1)
+            count++;
+         return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         int n = super.read(b, off, len);
+         if (n > 0)
+            count += n;
+         return n;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+         long skipped = super.skip(n);
+         count += skipped;
+         return skipped;
+      }
+   }
+
+   static final class TextKeyIterator extends KeyIterator {
+      private final BufferedReader reader;
+
+      TextKeyIterator(HttpURLConnection httpcon, InputStream is) {
+         super(httpcon, is);
+         this.reader = new BufferedReader(new InputStreamReader(in, UTF8));
+      }
+
+      @Override
+      String readKey() throws IOException {
+         // One key per line, skipping blank lines
+         String line;
+         while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty())
+               return line;
+         }
+         return null;
+      }
+
+      @Override
+      void closeInput() throws IOException {
+         reader.close();
+      }
+   }
+
+   static final class XmlKeyIterator extends KeyIterator {
+      private final XMLStreamReader reader;
+
+      XmlKeyIterator(HttpURLConnection httpcon, InputStream is) {
+         super(httpcon, is);
+         try {
+            this.reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+         } catch (XMLStreamException e) {
+            throw new IllegalStateException(e);
+         }
+      }
+
+      @Override
+      String readKey() throws IOException {
+         // Pull events until the next <key> element is found
+         try {
+            while (reader.hasNext()) {
+               if (reader.next() == XMLStreamConstants.START_ELEMENT && "key".equals(reader.getLocalName()))
+                  return reader.getElementText();
+            }
+            return null;
+         } catch (XMLStreamException e) {
+            throw new IOException(e);
+         }
+      }
+
+      @Override
+      void closeInput() throws IOException {
+         try {
+            reader.close();
+         } catch (XMLStreamException e) {
+            throw new IOException(e);
+         } finally {
+            in.close();
+         }
+      }
+   }
+
+   static final class JsonKeyIterator extends KeyIterator {
+      private final Reader reader;
+      private final StringBuilder key = new StringBuilder();
+      private boolean inArray;
+
+      JsonKeyIterator(HttpURLConnection httpcon, InputStream is) {
+         super(httpcon, is);
+         this.reader = new BufferedReader(new InputStreamReader(in, UTF8));
+      }
+
+      @Override
+      String readKey() throws IOException {
+         // Keys are the string elements of the first array, e.g. keys=["a","b"]
+         int c;
+         while ((c = reader.read()) != -1) {
+            if (!inArray) {
+               inArray = c == '[';
+            } else if (c == ']') {
+               return null;
+            } else if (c == '"') {
+               return readString();
+            }
+         }
+         return null;
+      }
+
+      private String readString() throws IOException {
+         key.setLength(0);
+         int c;
+         while ((c = reader.read()) != -1) {
+            if (c == '"')
+               return key.toString();
+
+            if (c == '\\') {
+               c = reader.read();
+               switch (c) {
+                  case 'n': key.append('\n'); break;
+                  case 't': key.append('\t'); break;
+                  case 'r': key.append('\r'); break;
+                  case 'b': key.append('\b'); break;
+                  case 'f': key.append('\f'); break;
+                  case 'u':
+                     char[] hex = new char[4];
+                     for (int i = 0; i < 4; i++) hex[i] = (char) reader.read();
+                     key.append((char) Integer.parseInt(new String(hex), 16));
+                     break;
+                  default: key.append((char) c);
+               }
+            } else {
+               key.append((char) c);
+            }
+         }
+         throw new IOException("Unterminated key in JSON key set");
+      }
+
+      @Override
+      void closeInput() throws IOException {
+         reader.close();
+      }
+   }
+
+}
@@ -0,0 +1,141 @@
+package org.infinispan.tutorial.remote.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bounded, least recently used cache of decoded REST responses and their
+ * ETags, used by {@link JdkHttpClient} to revalidate reads with
+ * {@code If-None-Match}: when the server answers 304 Not Modified the cached
+ * response is returned without downloading or decoding the body again.
+ *
+ * The cache is bounded both by number of responses and by the total size of
+ * their encoded bodies. Cached bodies are shared between callers, so they
+ * must not be modified.
+ */
+public class RestResponseCache {
+
+   private final int maxEntries;
+   private final long maxBytes;
+   private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+   private long bytes;
+
+   private long hits;
+   private long misses;
+   private long evictions;
+
+   public RestResponseCache(int maxEntries, long maxBytes) {
+      if (maxEntries < 1 || maxBytes < 1)
+         throw new IllegalArgumentException("Cache bounds must be positive");
+      this.maxEntries = maxEntries;
+      this.maxBytes = maxBytes;
+   }
+
+   /**
+    * Forgets the responses of a resource, e.g. after modifying or deleting
+    * it, so that the next read does not need a round trip to revalidate.
+    */
+   public synchronized void invalidate(String uri) {
+      for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+         Map.Entry<String, Entry> e = it.next();
+         if (e.getValue().uri.equals(uri)) {
+            bytes -= e.getValue().size;
+            it.remove();
+         }
+      }
+   }
+
+   public synchronized void clear() {
+      entries.clear();
+      bytes = 0;
+   }
+
+   public synchronized int size() {
+      return entries.size();
+   }
+
+   /**
+    * Total size of the encoded bodies of cached responses.
+    */
+   public synchronized long bytes() {
+      return bytes;
+   }
+
+   /**
+    * Number of reads answered with a cached response after revalidation.
+    */
+   public synchronized long hits() {
+      return hits;
+   }
+
+   /**
+    * Number of reads which downloaded the body.
+    */
+   public synchronized long misses() {
+      return misses;
+   }
+
+   public synchronized long evictions() {
+      return evictions;
+   }
+
+   static String key(String uri, Object type) {
+      // The same resource decodes differently depending on the requested media type
+      return type == null ? uri : uri + " " + type;
+   }
+
+   synchronized Entry get(String key) {
+      return entries.get(key);
+   }
+
+   synchronized Map<String, ?> hit(Entry entry) {
+      hits++;
+      Map<String, Object> resp = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      resp.putAll(entry.response);
+      resp.put(JdkHttpClient.Keys.REVALIDATED, true);
+      return resp;
+   }
+
+   synchronized void miss(String key, String uri, String etag, Map<String, ?> response, long size) {
+      misses++;
+      Entry previous = entries.remove(key);
+      if (previous != null)
+         bytes -= previous.size;
+
+      // Responses without a validator, or too large to ever fit, are not worth keeping
+      if (etag == null || size > maxBytes)
+         return;
+
+      // Keep a copy, callers are free to modify the response map they were given
+      Map<String, Object> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      copy.putAll(response);
+      entries.put(key, new Entry(uri, etag, Collections.unmodifiableMap(copy), size));
+      bytes += size;
+
+      // Evict least recently read responses until within bounds
+      Iterator<Entry> it = entries.values().iterator();
+      while ((entries.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+         bytes -= it.next().size;
+         it.remove();
+         evictions++;
+      }
+   }
+
+   static final class Entry {
+      final String uri;
+      final String etag;
+      final Map<String, ?> response;
+      final long size;
+
+      Entry(String uri, String etag, Map<String, ?> response, long size) {
+         this.uri = uri;
+         this.etag = etag;
+         this.response = response;
+         this.size = size;
+      }
+   }
+
+}
@@ -3,6 +3,7 @@ package org.infinispan.tutorial.remote.util;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -67,4 +68,46 @@ public class Xml {
       }
    }
 
+   public static void setCompatibilityMarshaller(String serverDir, String configPath, String marshaller) {
+      // Back up original configuration in order to restore it in the cleanup phase
+      FileSystem fs = FileSystems.getDefault();
+      Path configXmlPath = fs.getPath(serverDir, configPath);
+      Path configXmlBackupPath = fs.getPath(serverDir, configPath + ".bak");
+      try {
+         Files.copy(configXmlPath, configXmlBackupPath, StandardCopyOption.REPLACE_EXISTING);
+
+         // Read the server configuration and set the marshaller of every compatibility element
+         DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
+         docFactory.setNamespaceAware(true);
+         DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
+         File configXmlFile = configXmlPath.toFile();
+         Document doc = docBuilder.parse(configXmlFile);
+         NodeList compatibilities = doc.getElementsByTagNameNS("*", "compatibility");
+         for (int i = 0; i < compatibilities.getLength(); i++)
+            ((Element) compatibilities.item(i)).setAttribute("marshaller", marshaller);
+
+         // Save the server configuration file
+         TransformerFactory transformerFactory = TransformerFactory.newInstance();
+         Transformer transformer = transformerFactory.newTransformer();
+         DOMSource source = new DOMSource(doc);
+         StreamResult result = new StreamResult(configXmlFile);
+         transformer.transform(source, result);
+      } catch (Exception e) {
+         throw new AssertionError(e);
+      }
+   }
+
+   public static void restoreCompatibilityMarshaller(String serverDir, String configPath) {
+      // Restore the originally backed up version of the server configuration
+      FileSystem fs = FileSystems.getDefault();
+      Path configXmlPath = fs.getPath(serverDir, configPath);
+      Path configXmlBackupPath = fs.getPath(serverDir, configPath + ".bak");
+      try {
+         Files.copy(configXmlBackupPath, configXmlPath, StandardCopyOption.REPLACE_EXISTING);
+         Files.delete(configXmlBackupPath);
+      } catch (IOException e) {
+         throw new AssertionError(e);
+      }
+   }
+
 }